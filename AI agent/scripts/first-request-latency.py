@@ -0,0 +1,86 @@
+#!/usr/bin/env python3
+"""Reports first-request latency after readiness, with and without the startup warm-up.
+
+Usage: scripts/first-request-latency.py [runs] [jar]
+Starts the jar with the "stub" profile (warmup.enabled=true, then false), waits for
+/actuator/health/readiness to report UP, then times the first form registration, profile page,
+form analysis (result page) and API analysis. Prints the median of each over the runs.
+"""
+import http.client
+import json
+import socket
+import statistics
+import subprocess
+import sys
+import time
+import urllib.parse
+import uuid
+
+runs = int(sys.argv[1]) if len(sys.argv) > 1 else 3
+jar = sys.argv[2] if len(sys.argv) > 2 else "target/calorie-counter-agent-1.0.0.jar"
+STEPS = ["register", "profile", "analyze_form", "analyze_api"]
+
+
+def free_port():
+    with socket.socket() as s:
+        s.bind(("localhost", 0))
+        return s.getsockname()[1]
+
+
+def timed(port, method, path, body=None, headers=None):
+    conn = http.client.HTTPConnection("localhost", port, timeout=30)
+    start = time.perf_counter()
+    conn.request(method, path, body, headers or {})
+    response = conn.getresponse()
+    data = response.read()
+    elapsed = (time.perf_counter() - start) * 1000
+    conn.close()
+    return elapsed, response, data
+
+
+def measure(warmup):
+    port = free_port()
+    app = subprocess.Popen(["java", "-jar", jar, "--spring.profiles.active=stub", "--server.port=%d" % port,
+                            "--warmup.enabled=%s" % str(warmup).lower()],
+                           stdout=subprocess.DEVNULL, stderr=subprocess.DEVNULL)
+    try:
+        while True:
+            try:
+                _, response, data = timed(port, "GET", "/actuator/health/readiness")
+                if response.status == 200 and b"UP" in data:
+                    break
+            except OSError:
+                pass
+            time.sleep(0.05)
+
+        form = urllib.parse.urlencode({"name": "First Request", "email": "first-%s@example.com" % uuid.uuid4().hex[:8],
+                                       "age": 40, "gender": "MALE", "weight": 80, "height": 180,
+                                       "activityLevel": "SEDENTARY", "geminiApiKey": "AIzaStubKeyForLatency"})
+        form_headers = {"Content-Type": "application/x-www-form-urlencoded"}
+        register_ms, response, _ = timed(port, "POST", "/register", form, form_headers)
+        cookie = (response.getheader("Set-Cookie") or "").split(";")[0]
+        user_id = response.getheader("Location", "").rsplit("/", 1)[-1].split(";")[0]
+        form_headers["Cookie"] = cookie
+
+        profile_ms, _, _ = timed(port, "GET", "/profile/%s" % user_id, headers={"Cookie": cookie})
+        analyze_form_ms, response, data = timed(port, "POST", "/analyze", urllib.parse.urlencode({
+            "userId": user_id, "foodName": "apple", "portionSizeInGrams": 150, "idempotencyKey": uuid.uuid4().hex}),
+            form_headers)
+        if response.status != 200 or b"GOOD" not in data:
+            sys.exit("form analysis failed: %s" % response.status)
+        analyze_api_ms, response, _ = timed(port, "POST", "/api/analysis", json.dumps(
+            {"userId": int(user_id), "foodName": "pear", "portionSizeInGrams": 120.0}),
+            {"Content-Type": "application/json", "Idempotency-Key": uuid.uuid4().hex})
+        if response.status != 200:
+            sys.exit("API analysis failed: %s" % response.status)
+        return [register_ms, profile_ms, analyze_form_ms, analyze_api_ms]
+    finally:
+        app.terminate()
+        app.wait(timeout=30)
+
+
+print("%-8s %s" % ("warm-up", " ".join("%14s" % s for s in STEPS)))
+for warmup in (False, True):
+    samples = [measure(warmup) for _ in range(runs)]
+    medians = [statistics.median(column) for column in zip(*samples)]
+    print("%-8s %s" % ("on" if warmup else "off", " ".join("%12.1fms" % m for m in medians)))
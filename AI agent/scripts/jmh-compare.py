@@ -0,0 +1,51 @@
+#!/usr/bin/env python3
+"""Compares a JMH JSON result against a committed baseline.
+
+Usage: scripts/jmh-compare.py [baseline.json] [candidate.json] [threshold_percent]
+Defaults to benchmarks/baseline.json vs target/jmh-result.json and a 10% threshold.
+A change is only flagged when it exceeds the threshold AND the two error bars do not overlap.
+Exits with status 1 if any throughput/latency regression is flagged.
+"""
+import json
+import sys
+
+baseline_path = sys.argv[1] if len(sys.argv) > 1 else "benchmarks/baseline.json"
+candidate_path = sys.argv[2] if len(sys.argv) > 2 else "target/jmh-result.json"
+threshold = float(sys.argv[3]) if len(sys.argv) > 3 else 10.0
+
+
+def load(path):
+    results = {}
+    with open(path) as f:
+        for run in json.load(f):
+            params = ",".join(f"{k}={v}" for k, v in sorted((run.get("params") or {}).items()))
+            name = run["benchmark"].rsplit(".", 2)
+            key = (f"{name[-2]}.{name[-1]}", params, run["mode"])
+            primary = run["primaryMetric"]
+            alloc = run.get("secondaryMetrics", {}).get("gc.alloc.rate.norm", {}).get("score")
+            results[key] = (primary["score"], primary.get("scoreError") or 0.0, primary["scoreUnit"], alloc)
+    return results
+
+
+baseline = load(baseline_path)
+candidate = load(candidate_path)
+regressions = 0
+
+print(f"{'benchmark':45} {'params':22} {'mode':5} {'baseline':>12} {'candidate':>12} {'change':>8} {'B/op':>14}")
+for key in sorted(candidate):
+    if key not in baseline:
+        continue
+    b_score, b_err, unit, b_alloc = baseline[key]
+    c_score, c_err, _, c_alloc = candidate[key]
+    change = (c_score - b_score) / b_score * 100 if b_score else 0.0
+    # Throughput: higher is better. Average/sample time: lower is better.
+    worse = change < 0 if key[2] == "thrpt" else change > 0
+    significant = abs(change) > threshold and abs(c_score - b_score) > (b_err + c_err)
+    flag = ""
+    if significant:
+        flag = "REGRESSION" if worse else "improved"
+        regressions += worse
+    alloc = f"{b_alloc or 0:.0f}->{c_alloc or 0:.0f}" if b_alloc is not None or c_alloc is not None else ""
+    print(f"{key[0]:45} {key[1]:22} {key[2]:5} {b_score:12.3f} {c_score:12.3f} {change:+7.1f}% {alloc:>14} {unit} {flag}")
+
+sys.exit(1 if regressions else 0)
@@ -0,0 +1,132 @@
+#!/usr/bin/env python3
+"""Smoke tests the native executable (or any launch command) against the stub Gemini endpoint.
+
+Usage: scripts/native-smoke-test.py [command...]
+Default command: target/calorie-counter (built with -Pnative, AOT processed with the stub profile).
+Any launch command works, e.g. scripts/native-smoke-test.py java -jar target/calorie-counter-agent-1.0.0.jar
+Starts the app on a free port with the "stub" profile, reports time to first healthy response
+and resident memory, runs the checks below and exits non-zero if any fail.
+"""
+import http.client
+import json
+import os
+import socket
+import subprocess
+import sys
+import time
+import urllib.parse
+import uuid
+
+command = sys.argv[1:] or ["target/calorie-counter"]
+
+with socket.socket() as s:
+    s.bind(("localhost", 0))
+    port = s.getsockname()[1]
+
+failures = []
+
+
+def check(name, condition, detail=""):
+    print("%-4s %s%s" % ("ok" if condition else "FAIL", name, (" - " + detail) if detail and not condition else ""))
+    if not condition:
+        failures.append(name)
+
+
+def request(method, path, body=None, headers=None):
+    conn = http.client.HTTPConnection("localhost", port, timeout=10)
+    conn.request(method, path, body, headers or {})
+    response = conn.getresponse()
+    data = response.read()
+    conn.close()
+    return response.status, dict((k.lower(), v) for k, v in response.getheaders()), data
+
+
+def rss_mb(pid):
+    with open("/proc/%d/status" % pid) as status:
+        for line in status:
+            if line.startswith("VmRSS:"):
+                return int(line.split()[1]) / 1024
+    return 0.0
+
+
+started = time.perf_counter()
+app = subprocess.Popen(command + ["--spring.profiles.active=stub", "--server.port=%d" % port],
+                       stdout=subprocess.DEVNULL, stderr=subprocess.DEVNULL)
+try:
+    while True:
+        if app.poll() is not None:
+            sys.exit("application exited with status %d during startup" % app.returncode)
+        try:
+            if request("GET", "/actuator/health")[0] == 200:
+                break
+        except OSError:
+            pass
+        if time.perf_counter() - started > 120:
+            sys.exit("application did not become healthy within 120s")
+        time.sleep(0.005)
+    startup_ms = (time.perf_counter() - started) * 1000
+
+    status, _, body = request("GET", "/")
+    check("home page renders", status == 200 and b"<html" in body.lower(), str(status))
+
+    status, _, body = request("POST", "/api/users", json.dumps({
+        "name": "Smoke Test", "email": "smoke-%s@example.com" % uuid.uuid4().hex[:8],
+        "weight": 70.0, "height": 175.0, "age": 30, "gender": "FEMALE",
+        "activityLevel": "LIGHTLY_ACTIVE", "healthConditions": ["Hypertension"],
+        "geminiApiKey": "AIzaStubKeyForSmokeTesting"}), {"Content-Type": "application/json"})
+    check("register user via API", status == 201, "%s %s" % (status, body[:200]))
+    user_id = json.loads(body)["id"] if status == 201 else 0
+
+    status, headers, body = request("GET", "/api/users/%d" % user_id)
+    check("profile JSON has ETag", status == 200 and "etag" in headers, str(status))
+    if "etag" in headers:
+        status, _, _ = request("GET", "/api/users/%d" % user_id, headers={"If-None-Match": headers["etag"]})
+        check("profile revalidates with 304", status == 304, str(status))
+
+    analysis = json.dumps({"userId": user_id, "foodName": "lentil soup", "portionSizeInGrams": 300.0})
+    status, headers, body = request("POST", "/api/analysis", analysis,
+                                    {"Content-Type": "application/json", "Idempotency-Key": uuid.uuid4().hex})
+    result = json.loads(body) if status == 200 else {}
+    check("analysis via API", status == 200 and result.get("suitabilityScore") == "GOOD", "%s %s" % (status, body[:200]))
+    check("analysis benefits parsed", len(result.get("benefits", [])) == 3, str(result.get("benefits")))
+    check("Server-Timing header", "gemini_round_trip" in headers.get("server-timing", ""), headers.get("server-timing", ""))
+
+    status, headers, body = request("POST", "/api/analysis", analysis,
+                                    {"Content-Type": "application/json", "Accept": "application/x-jackson-smile",
+                                     "Idempotency-Key": uuid.uuid4().hex})
+    check("analysis as Smile", status == 200 and body[:2] == b":)", "%s %s" % (status, headers.get("content-type")))
+
+    conn = http.client.HTTPConnection("localhost", port, timeout=10)
+    form = urllib.parse.urlencode({"name": "Smoke Form", "email": "form-%s@example.com" % uuid.uuid4().hex[:8],
+                                   "age": 40, "gender": "MALE", "weight": 80, "height": 180,
+                                   "activityLevel": "SEDENTARY", "geminiApiKey": "AIzaStubKeyForSmokeTesting"})
+    conn.request("POST", "/register", form, {"Content-Type": "application/x-www-form-urlencoded"})
+    response = conn.getresponse()
+    response.read()
+    location = response.getheader("Location", "")
+    cookie = (response.getheader("Set-Cookie") or "").split(";")[0]
+    check("register via form redirects to profile", response.status == 302 and "/profile/" in location, str(response.status))
+
+    form_user = location.rsplit("/", 1)[-1].split(";")[0]
+    status, _, body = request("GET", "/profile/%s" % form_user, headers={"Cookie": cookie})
+    check("profile page renders", status == 200 and b"Smoke Form" in body, str(status))
+
+    form = urllib.parse.urlencode({"userId": form_user, "foodName": "apple", "portionSizeInGrams": 150,
+                                   "idempotencyKey": uuid.uuid4().hex})
+    status, _, body = request("POST", "/analyze", form,
+                              {"Content-Type": "application/x-www-form-urlencoded", "Cookie": cookie})
+    check("analysis result page renders", status == 200 and b"GOOD" in body, str(status))
+
+    status, _, body = request("GET", "/actuator/prometheus")
+    check("prometheus metrics", status == 200 and b"analysis_stage_seconds" in body, str(status))
+
+    print("startup_to_healthy=%.0fms rss=%.1fMB" % (startup_ms, rss_mb(app.pid)))
+finally:
+    app.terminate()
+    try:
+        app.wait(timeout=20)
+    except subprocess.TimeoutExpired:
+        app.kill()
+
+if failures:
+    sys.exit("%d smoke check(s) failed: %s" % (len(failures), ", ".join(failures)))
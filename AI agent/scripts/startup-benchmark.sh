@@ -0,0 +1,92 @@
+#!/usr/bin/env bash
+# Measures time from JVM launch to the first successful POST /analyze (register, then analyze
+# through the stub Gemini endpoint), for the thin jar built by the "aot" Maven profile:
+#
+#   plain    no AOT, no CDS
+#   aot      Spring AOT initializers (-Dspring.aot.enabled=true)
+#   cds      AppCDS archive from a training run
+#   aot-cds  both
+#
+# Usage: scripts/startup-benchmark.sh [runs_per_mode] [port]
+# Set SKIP_BUILD=1 to reuse an existing build. AOT is processed with the "stub" profile active,
+# because AOT fixes profile-conditional beans (the stub controller) at build time.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+runs="${1:-5}"
+port="${2:-18080}"
+# AppCDS on JDK 17 silently leaves application classes out of the archive when the jar path
+# contains a space (as this project directory does), so the app runs from a staging directory.
+stage="${STAGE_DIR:-${TMPDIR:-/tmp}/calorie-counter-startup}"
+jar="${stage}/calorie-counter-agent-1.0.0.jar"
+base_url="http://localhost:${port}"
+app_args=(--spring.profiles.active=stub --server.port="${port}" --logging.level.root=WARN)
+
+if [[ "${SKIP_BUILD:-0}" != "1" ]]; then
+    mvn -B -q -Paot -DskipTests package -Dspring-boot.aot.jvmArguments=-Dspring.profiles.active=stub
+fi
+rm -rf "$stage" && mkdir -p "$stage"
+cp -r target/calorie-counter-agent-1.0.0.jar target/lib "$stage/"
+
+now_ms() { date +%s%3N; }
+
+# Polls until the app accepts a registration, then until one analysis renders a result.
+first_analyze() {
+    local cookies location user_id
+    cookies="$(mktemp)"
+    until location="$(curl -sf -o /dev/null -c "$cookies" -b "$cookies" -w '%{redirect_url}' \
+            -X POST "${base_url}/register" \
+            --data "name=Bench&email=bench${RANDOM}${RANDOM}@example.com&age=30&gender=MALE&weight=70&height=175&activityLevel=MODERATELY_ACTIVE&geminiApiKey=AIzaStartupBenchmark")"; do
+        sleep 0.01
+    done
+    user_id="${location##*/}"
+    user_id="${user_id%%;*}" # drop ;jsessionid=...
+    until curl -sf -c "$cookies" -b "$cookies" -X POST "${base_url}/analyze" \
+            --data "userId=${user_id}&foodName=apple&portionSizeInGrams=150&idempotencyKey=$(cat /proc/sys/kernel/random/uuid)" \
+            | grep -q "GOOD"; do
+        sleep 0.01
+    done
+    rm -f "$cookies"
+}
+
+# run <jvm options...>: starts the app, prints ms until the first successful analysis, stops it.
+run() {
+    local start pid elapsed
+    start="$(now_ms)"
+    java "$@" -jar "$jar" "${app_args[@]}" > /dev/null 2>&1 &
+    pid=$!
+    first_analyze
+    elapsed=$(( $(now_ms) - start ))
+    kill -TERM "$pid"
+    wait "$pid" || true
+    echo "$elapsed"
+}
+
+train() {
+    local archive="$1"; shift
+    rm -f "$archive"
+    run -XX:ArchiveClassesAtExit="$archive" "$@" > /dev/null
+    [[ -f "$archive" ]] || { echo "CDS archive $archive was not created" >&2; exit 1; }
+}
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'; }
+
+train "${stage}/app-cds.jsa"
+train "${stage}/app-aot-cds.jsa" -Dspring.aot.enabled=true
+
+declare -A options=(
+    [plain]=""
+    [aot]="-Dspring.aot.enabled=true"
+    [cds]="-XX:SharedArchiveFile=${stage}/app-cds.jsa"
+    [aot-cds]="-XX:SharedArchiveFile=${stage}/app-aot-cds.jsa -Dspring.aot.enabled=true"
+)
+
+printf '%-8s %10s   %s\n' mode median_ms runs_ms
+for mode in plain aot cds aot-cds; do
+    results=()
+    for ((i = 0; i < runs; i++)); do
+        # shellcheck disable=SC2086
+        results+=("$(run -Xshare:auto ${options[$mode]})")
+    done
+    printf '%-8s %10s   %s\n' "$mode" "$(printf '%s\n' "${results[@]}" | median)" "${results[*]}"
+done
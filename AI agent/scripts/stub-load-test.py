@@ -0,0 +1,71 @@
+#!/usr/bin/env python3
+"""Drives concurrent POST /api/analysis load against an instance running with the "stub" profile.
+
+Usage: scripts/stub-load-test.py [base_url] [threads] [requests_per_thread]
+Registers one user, then reports throughput and latency percentiles for the analysis API.
+"""
+import http.client
+import json
+import sys
+import threading
+import time
+import urllib.parse
+import uuid
+
+base_url = sys.argv[1] if len(sys.argv) > 1 else "http://localhost:8080"
+threads = int(sys.argv[2]) if len(sys.argv) > 2 else 16
+per_thread = int(sys.argv[3]) if len(sys.argv) > 3 else 200
+target = urllib.parse.urlparse(base_url)
+
+
+def post(conn, path, body, headers=None):
+    all_headers = {"Content-Type": "application/json"}
+    all_headers.update(headers or {})
+    conn.request("POST", path, json.dumps(body), all_headers)
+    response = conn.getresponse()
+    return response.status, response.read()
+
+
+setup = http.client.HTTPConnection(target.hostname, target.port)
+status, body = post(setup, "/api/users", {
+    "name": "Load Test", "email": "load-%s@example.com" % uuid.uuid4().hex[:8],
+    "weight": 70.0, "height": 175.0, "age": 30, "gender": "MALE",
+    "activityLevel": "MODERATELY_ACTIVE", "healthConditions": ["Diabetes"],
+    "geminiApiKey": "AIzaStubKeyForLoadTesting"})
+if status != 201:
+    sys.exit("registration failed: %s %s" % (status, body[:200]))
+user_id = json.loads(body)["id"]
+
+latencies = []
+errors = []
+lock = threading.Lock()
+
+
+def worker(index):
+    conn = http.client.HTTPConnection(target.hostname, target.port)
+    local = []
+    for i in range(per_thread):
+        start = time.perf_counter()
+        status, _ = post(conn, "/api/analysis",
+                         {"userId": user_id, "foodName": "food %d-%d" % (index, i), "portionSizeInGrams": 100.0},
+                         {"Idempotency-Key": uuid.uuid4().hex})
+        local.append(time.perf_counter() - start)
+        if status != 200:
+            with lock:
+                errors.append(status)
+    with lock:
+        latencies.extend(local)
+
+
+started = time.perf_counter()
+workers = [threading.Thread(target=worker, args=(n,)) for n in range(threads)]
+for w in workers:
+    w.start()
+for w in workers:
+    w.join()
+elapsed = time.perf_counter() - started
+
+latencies.sort()
+pct = lambda p: latencies[min(len(latencies) - 1, int(p * len(latencies)))] * 1000
+print("requests=%d errors=%d elapsed=%.1fs throughput=%.0f req/s p50=%.1fms p95=%.1fms p99=%.1fms" % (
+    len(latencies), len(errors), elapsed, len(latencies) / elapsed, pct(0.50), pct(0.95), pct(0.99)))
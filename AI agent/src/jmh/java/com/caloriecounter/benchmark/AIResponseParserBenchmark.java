@@ -0,0 +1,81 @@
+package com.caloriecounter.benchmark;
+
+import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import com.caloriecounter.service.AIResponseParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses recorded-style Gemini responses from src/jmh/resources/corpora.
+ * canonical - exact requested format; markdown - bold labels and bullets;
+ * lowercase - lower-case labels; long - multi-kilobyte reasoning section.
+ * parseAIResponseLegacy runs the previous regex parser on the same input for comparison.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AIResponseParserBenchmark {
+
+    @Param({"canonical", "markdown", "lowercase", "long"})
+    public String corpus;
+
+    private AIResponseParser parser;
+    private LegacyAIResponseParser legacyParser;
+    private User user;
+    private String response;
+
+    @Setup
+    public void setUp() throws IOException {
+        AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+        parser = new AIResponseParser(metrics);
+        legacyParser = new LegacyAIResponseParser(metrics);
+        user = BenchmarkUsers.user(3);
+        response = Corpora.load(corpus);
+    }
+
+    @Benchmark
+    public FoodRecommendation parseAIResponse() {
+        FoodRecommendation recommendation = newRecommendation();
+        parser.parseAIResponse(response, recommendation, user);
+        return recommendation;
+    }
+
+    @Benchmark
+    public FoodRecommendation parseAIResponseLegacy() {
+        FoodRecommendation recommendation = newRecommendation();
+        legacyParser.parseAIResponse(response, recommendation, user);
+        return recommendation;
+    }
+
+    private static FoodRecommendation newRecommendation() {
+        FoodRecommendation recommendation = new FoodRecommendation();
+        recommendation.setFoodName("grilled chicken salad");
+        recommendation.setPortionSize(250.0);
+        return recommendation;
+    }
+
+    static final class Corpora {
+
+        private Corpora() {
+        }
+
+        static String load(String name) throws IOException {
+            try (InputStream in = Corpora.class.getResourceAsStream("/corpora/" + name + ".txt")) {
+                if (in == null) {
+                    throw new IOException("Unknown corpus: " + name);
+                }
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
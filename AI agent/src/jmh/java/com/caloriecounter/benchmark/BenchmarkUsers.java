@@ -0,0 +1,32 @@
+package com.caloriecounter.benchmark;
+
+import com.caloriecounter.model.ActivityLevel;
+import com.caloriecounter.model.Gender;
+import com.caloriecounter.model.User;
+
+import java.util.List;
+
+/**
+ * Deterministic user fixtures shared by the benchmarks.
+ */
+final class BenchmarkUsers {
+
+    private static final ActivityLevel[] LEVELS = ActivityLevel.values();
+
+    private BenchmarkUsers() {
+    }
+
+    static User user(long seed) {
+        User user = new User();
+        user.setName("User " + seed);
+        user.setEmail("user" + seed + "@example.com");
+        user.setAge(18 + (int) (seed % 60));
+        user.setGender(seed % 2 == 0 ? Gender.MALE : Gender.FEMALE);
+        user.setWeight(50.0 + seed % 70);
+        user.setHeight(150.0 + seed % 50);
+        user.setActivityLevel(LEVELS[(int) (seed % LEVELS.length)]);
+        user.setHealthConditions(seed % 3 == 0 ? List.of("diabetes", "hypertension") : List.of());
+        user.setGeminiApiKey("AIzaBenchmarkKey" + seed);
+        return user;
+    }
+}
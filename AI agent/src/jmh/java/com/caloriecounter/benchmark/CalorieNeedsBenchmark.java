@@ -0,0 +1,33 @@
+package com.caloriecounter.benchmark;
+
+import com.caloriecounter.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BMR and daily calorie math on the User model, called on every prompt and parse.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalorieNeedsBenchmark {
+
+    private final User[] users = new User[16];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < users.length; i++) {
+            users[i] = BenchmarkUsers.user(i);
+        }
+    }
+
+    @Benchmark
+    public double calculateDailyCalorieNeeds() {
+        return users[next++ & (users.length - 1)].calculateDailyCalorieNeeds();
+    }
+}
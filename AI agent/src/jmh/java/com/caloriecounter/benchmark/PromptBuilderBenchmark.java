@@ -0,0 +1,53 @@
+package com.caloriecounter.benchmark;
+
+import com.caloriecounter.model.User;
+import com.caloriecounter.service.PromptBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building one nutrition prompt. The cached path serves a persisted user's profile block
+ * from the segment cache; the uncached path renders it (including the String.format of daily
+ * calorie needs) for a user without an id; the legacy path is the pre-cache builder.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromptBuilderBenchmark {
+
+    @Param({"none", "conditions"})
+    public String profile;
+
+    private final PromptBuilder promptBuilder = new PromptBuilder();
+    private final LegacyPromptBuilder legacyPromptBuilder = new LegacyPromptBuilder();
+    private User user;
+    private User persistedUser;
+
+    @Setup
+    public void setUp() {
+        long seed = "conditions".equals(profile) ? 3 : 4;
+        user = BenchmarkUsers.user(seed);
+        persistedUser = BenchmarkUsers.user(seed);
+        persistedUser.setId(seed);
+        persistedUser.setVersion(1);
+    }
+
+    @Benchmark
+    public String buildNutritionPrompt() {
+        return promptBuilder.buildNutritionPrompt(user, "grilled chicken salad", 250.0);
+    }
+
+    @Benchmark
+    public String buildNutritionPromptCached() {
+        return promptBuilder.buildNutritionPrompt(persistedUser, "grilled chicken salad", 250.0);
+    }
+
+    @Benchmark
+    public String buildNutritionPromptLegacy() {
+        return legacyPromptBuilder.buildNutritionPrompt(user, "grilled chicken salad", 250.0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.caloriecounter.benchmark;
+
+import com.caloriecounter.model.User;
+import com.caloriecounter.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository lookups against a populated in-memory store.
+ * findById is a hash lookup; the email queries scan every user.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class UserRepositoryBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int users;
+
+    private UserRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new UserRepository();
+        for (long i = 0; i < users; i++) {
+            repository.save(BenchmarkUsers.user(i));
+        }
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return repository.findById(ThreadLocalRandom.current().nextLong(1, users + 1));
+    }
+
+    @Benchmark
+    public Optional<User> findByEmail() {
+        return repository.findByEmail("user" + ThreadLocalRandom.current().nextInt(users) + "@example.com");
+    }
+
+    @Benchmark
+    public boolean existsByEmailMiss() {
+        return repository.existsByEmail("new-user@example.com");
+    }
+}
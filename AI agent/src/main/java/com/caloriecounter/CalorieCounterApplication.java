@@ -1,9 +1,12 @@
 package com.caloriecounter;
 
+import com.caloriecounter.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class CalorieCounterApplication {
     public static void main(String[] args) {
         SpringApplication.run(CalorieCounterApplication.class, args);
@@ -0,0 +1,82 @@
+package com.caloriecounter.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AI endpoints the analysis can be sent to ({@code ai.providers[n].*}) and how the router picks between them
+ * ({@code ai.routing.*}). Without any provider configured, the single Gemini endpoint from
+ * {@code gemini.api.url} is used with each user's own key, as before.
+ */
+@Component
+@ConfigurationProperties("ai")
+public class AiProviderProperties {
+
+    private List<Provider> providers = new ArrayList<>();
+    private Routing routing = new Routing();
+
+    public List<Provider> getProviders() { return providers; }
+    public void setProviders(List<Provider> providers) { this.providers = providers; }
+
+    public Routing getRouting() { return routing; }
+    public void setRouting(Routing routing) { this.routing = routing; }
+
+    public enum Type { GEMINI, OPENAI }
+
+    public static class Provider {
+        private String name;
+        private Type type = Type.GEMINI;
+        private String url;
+        private String model; // sent in the request body by OpenAI-compatible providers
+        private String apiKey; // deployment key; empty for Gemini means the requesting user's key
+        private int requestsPerMinute; // 0 = unlimited
+        private int requestsPerDay; // 0 = unlimited
+        private boolean enabled = true;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public Type getType() { return type; }
+        public void setType(Type type) { this.type = type; }
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+
+        public String getModel() { return model; }
+        public void setModel(String model) { this.model = model; }
+
+        public String getApiKey() { return apiKey; }
+        public void setApiKey(String apiKey) { this.apiKey = apiKey; }
+
+        public int getRequestsPerMinute() { return requestsPerMinute; }
+        public void setRequestsPerMinute(int requestsPerMinute) { this.requestsPerMinute = requestsPerMinute; }
+
+        public int getRequestsPerDay() { return requestsPerDay; }
+        public void setRequestsPerDay(int requestsPerDay) { this.requestsPerDay = requestsPerDay; }
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    }
+
+    public static class Routing {
+        private double ewmaAlpha = 0.2; // weight of the newest sample in the latency and error-rate averages
+        private long errorPenaltyMs = 10_000; // expected cost of a failed call, scaled by the error rate
+        private long cooldownMs = 60_000; // how long a rate-limited or out-of-quota provider is skipped
+        private int maxProvidersPerRequest = 3; // providers tried before the request fails
+
+        public double getEwmaAlpha() { return ewmaAlpha; }
+        public void setEwmaAlpha(double ewmaAlpha) { this.ewmaAlpha = ewmaAlpha; }
+
+        public long getErrorPenaltyMs() { return errorPenaltyMs; }
+        public void setErrorPenaltyMs(long errorPenaltyMs) { this.errorPenaltyMs = errorPenaltyMs; }
+
+        public long getCooldownMs() { return cooldownMs; }
+        public void setCooldownMs(long cooldownMs) { this.cooldownMs = cooldownMs; }
+
+        public int getMaxProvidersPerRequest() { return maxProvidersPerRequest; }
+        public void setMaxProvidersPerRequest(int maxProvidersPerRequest) { this.maxProvidersPerRequest = maxProvidersPerRequest; }
+    }
+}
@@ -0,0 +1,51 @@
+package com.caloriecounter.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors used by the food analysis pipeline.
+ * The fan-out executor is bounded in both threads and queued work so a large meal cannot starve
+ * other requests; background pre-computation gets a single minimum-priority thread of its own.
+ */
+@Configuration
+public class AnalysisExecutorConfig {
+
+    @Bean(name = "analysisExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService analysisExecutor(@Value("${analysis.fanout.max-threads:16}") int maxThreads,
+                                            @Value("${analysis.fanout.queue-capacity:256}") int queueCapacity) {
+        AtomicInteger threadCounter = new AtomicInteger(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxThreads, maxThreads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-" + threadCounter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Bean(name = "precomputeExecutor", destroyMethod = "shutdownNow")
+    public ScheduledExecutorService precomputeExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "precompute");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
+    }
+}
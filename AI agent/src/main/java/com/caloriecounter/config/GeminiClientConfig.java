@@ -0,0 +1,99 @@
+package com.caloriecounter.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * HTTP client for the Gemini API: a dedicated, sized connection pool with keep-alive,
+ * HTTP/2 (negotiated via ALPN) for https endpoints, gzip responses and explicit timeouts.
+ * Pool and client metrics are published through Micrometer as {@code reactor.netty.*}.
+ */
+@Configuration
+public class GeminiClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider geminiConnectionProvider(
+            @Value("${gemini.http.max-connections:50}") int maxConnections,
+            @Value("${gemini.http.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+            @Value("${gemini.http.pending-acquire-timeout-ms:5000}") long pendingAcquireTimeoutMs,
+            @Value("${gemini.http.max-idle-time-ms:30000}") long maxIdleTimeMs,
+            @Value("${gemini.http.max-life-time-ms:300000}") long maxLifeTimeMs) {
+        return ConnectionProvider.builder("gemini")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofMillis(maxIdleTimeMs))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient geminiWebClient(@Qualifier("geminiConnectionProvider") ConnectionProvider connectionProvider,
+                                     WebClient.Builder builder,
+                                     @Value("${gemini.api.url}") String apiUrl,
+                                     @Value("${gemini.http.http2:true}") boolean http2,
+                                     @Value("${gemini.http.compression:true}") boolean compression,
+                                     @Value("${gemini.http.connect-timeout-ms:3000}") int connectTimeoutMs,
+                                     @Value("${gemini.http.response-timeout-ms:30000}") long responseTimeoutMs,
+                                     @Value("${gemini.http.max-in-memory-size:262144}") int maxInMemorySize) {
+        // h2 needs TLS/ALPN here; plain http (e.g. the local stub) stays on HTTP/1.1 keep-alive
+        boolean secure = "https".equalsIgnoreCase(URI.create(apiUrl).getScheme());
+        HttpProtocol[] protocols = http2 && secure
+                ? new HttpProtocol[] {HttpProtocol.H2, HttpProtocol.HTTP11}
+                : new HttpProtocol[] {HttpProtocol.HTTP11};
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .protocol(protocols)
+                .compress(compression)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .metrics(true, uri -> "/generateContent"); // one endpoint - keep the uri tag low-cardinality
+        if (secure) {
+            httpClient = httpClient.secure();
+        }
+
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemorySize))
+                .build();
+    }
+
+    /**
+     * Client for the other configured AI providers ({@code ai.providers}), on the same pool and timeouts.
+     * Their URLs are only known per request, so it stays on HTTP/1.1; https endpoints get TLS automatically.
+     */
+    @Bean
+    public WebClient aiProviderWebClient(@Qualifier("geminiConnectionProvider") ConnectionProvider connectionProvider,
+                                         WebClient.Builder builder,
+                                         @Value("${gemini.http.compression:true}") boolean compression,
+                                         @Value("${gemini.http.connect-timeout-ms:3000}") int connectTimeoutMs,
+                                         @Value("${gemini.http.response-timeout-ms:30000}") long responseTimeoutMs,
+                                         @Value("${gemini.http.max-in-memory-size:262144}") int maxInMemorySize) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .protocol(HttpProtocol.HTTP11)
+                .compress(compression)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .metrics(true, uri -> "/ai-provider");
+
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemorySize))
+                .build();
+    }
+}
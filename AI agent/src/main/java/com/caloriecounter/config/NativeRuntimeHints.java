@@ -0,0 +1,57 @@
+package com.caloriecounter.config;
+
+import com.caloriecounter.controller.UserController;
+import com.caloriecounter.dto.FoodAnalysisRequest;
+import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.dto.MealAnalysisResult;
+import com.caloriecounter.dto.RecipeAnalysisRequest;
+import com.caloriecounter.dto.RecipeAnalysisResult;
+import com.caloriecounter.dto.UserProfileDto;
+import com.caloriecounter.dto.UserRegistrationDto;
+import com.caloriecounter.model.ActivityLevel;
+import com.caloriecounter.model.Gender;
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.ExperimentStats;
+import com.caloriecounter.monitoring.PayloadLog;
+import com.caloriecounter.monitoring.SlowRequestLog;
+import com.caloriecounter.monitoring.TokenUsageLedger;
+import com.caloriecounter.service.PrecomputeService;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+
+/**
+ * GraalVM native-image hints for what AOT processing cannot infer on its own.
+ * Covers DTOs that Jackson binds or serializes behind {@code ResponseEntity<?>} or collections,
+ * including the values nested in the admin endpoints' {@code Map<String, Object>} responses,
+ * and model objects that Thymeleaf templates read through SpEL, plus the templates themselves.
+ * WebClient and Reactor Netty need no hints here: Gemini payloads are plain maps and
+ * {@code JsonNode}, and the libraries ship reachability metadata enabled by the native profile.
+ *
+ * @see RegisterReflectionForBinding
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] BOUND_TYPES = {
+            FoodRecommendation.class, UserProfileDto.class, UserRegistrationDto.class, FoodAnalysisRequest.class,
+            MealAnalysisResult.class, RecipeAnalysisRequest.class, RecipeAnalysisResult.class, User.class, UserController.ErrorResponse.class,
+            SlowRequestLog.Entry.class, PayloadLog.Payload.class,
+            // values inside admin Map responses: token usage, precompute status, prompt experiment summary
+            TokenUsageLedger.Snapshot.class, PrecomputeService.RunSummary.class, ExperimentStats.Summary.class
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), BOUND_TYPES);
+
+        // Templates call getDescription()/name() on the enums
+        for (Class<?> enumType : new Class<?>[] {Gender.class, ActivityLevel.class}) {
+            hints.reflection().registerType(enumType, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        hints.resources().registerPattern("templates/*.html");
+        hints.resources().registerPattern("nutrition/*.csv"); // read by LocalNutritionAIService
+    }
+}
@@ -0,0 +1,225 @@
+package com.caloriecounter.config;
+
+import com.caloriecounter.dto.FoodAnalysisRequest;
+import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.dto.UserProfileDto;
+import com.caloriecounter.model.ActivityLevel;
+import com.caloriecounter.model.Gender;
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import com.caloriecounter.service.AIResponseParser;
+import com.caloriecounter.service.GeminiService;
+import com.caloriecounter.service.PromptBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Warms the service up before it reports ready. Spring Boot only publishes the
+ * ACCEPTING_TRAFFIC readiness state after application runners finish, so the first real
+ * users do not pay for cold JIT, template parsing or a fresh upstream DNS/TCP/TLS handshake.
+ * Synthetic work never touches the user repository or the analysis metrics.
+ */
+@Component
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    static final String SYNTHETIC_RESPONSE = """
+            SUITABILITY: GOOD
+            RECOMMENDED_PORTION: 150
+            BENEFITS: Good source of protein;Provides fiber;Low in saturated fat
+            WARNINGS: Watch the sodium in dressings
+            REASONING: A balanced choice for this profile when eaten in a moderate portion.
+            """;
+
+    private final PromptBuilder promptBuilder;
+    private final GeminiService geminiService;
+    private final ObjectProvider<ITemplateEngine> templateEngine;
+    private final ObjectProvider<ObjectMapper> objectMapper;
+    private final Environment environment;
+    private final boolean enabled;
+    private final int iterations;
+    private final int renderIterations;
+    private final List<String> pagePaths;
+    private final int upstreamConnections;
+    private final Duration maxDuration;
+
+    public WarmupRunner(PromptBuilder promptBuilder, GeminiService geminiService,
+                        ObjectProvider<ITemplateEngine> templateEngine, ObjectProvider<ObjectMapper> objectMapper,
+                        Environment environment,
+                        @Value("${warmup.enabled:true}") boolean enabled,
+                        @Value("${warmup.iterations:10000}") int iterations,
+                        @Value("${warmup.render-iterations:20}") int renderIterations,
+                        @Value("${warmup.page-paths:/,/register,/about}") List<String> pagePaths,
+                        @Value("${warmup.upstream-connections:2}") int upstreamConnections,
+                        @Value("${warmup.max-duration-ms:15000}") long maxDurationMs) {
+        this.promptBuilder = promptBuilder;
+        this.geminiService = geminiService;
+        this.templateEngine = templateEngine;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.renderIterations = renderIterations;
+        this.pagePaths = pagePaths;
+        this.upstreamConnections = upstreamConnections;
+        this.maxDuration = Duration.ofMillis(maxDurationMs);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+
+        int compiled = runStep("JIT", () -> primeParseAndPrompt(deadline));
+        int rendered = runStep("templates", this::renderTemplates);
+        runStep("json", this::bindJson);
+        int pages = runStep("pages", this::requestPages);
+        int connections = runStep("upstream", () -> geminiService.preconnect(upstreamConnections,
+                Duration.ofNanos(Math.max(0, deadline - System.nanoTime()))));
+
+        log.info("Warm-up finished in {}ms: {} parse/prompt iterations, {} template renders, {} pages, {} upstream connections",
+                Duration.ofNanos(System.nanoTime() - start).toMillis(), compiled, rendered, pages, connections);
+    }
+
+    private int primeParseAndPrompt(long deadline) {
+        // Separate parser instance so warm-up never shows up in the analysis metrics - JIT profiles are per method
+        AIResponseParser parser = new AIResponseParser(new AnalysisMetrics(new SimpleMeterRegistry()));
+        User user = syntheticUser();
+        int done = 0;
+        while (done < iterations && System.nanoTime() < deadline) {
+            promptBuilder.buildNutritionPrompt(user, "warm-up food " + (done & 15), 100 + (done & 63));
+            parser.parseAIResponse(SYNTHETIC_RESPONSE, syntheticRecommendation(), user);
+            done++;
+        }
+        return done;
+    }
+
+    /**
+     * Renders the templates that need a user or an analysis, which no anonymous page request reaches.
+     */
+    private int renderTemplates() {
+        ITemplateEngine engine = templateEngine.getIfAvailable();
+        if (engine == null) {
+            return 0;
+        }
+        FoodRecommendation recommendation = syntheticRecommendation();
+        new AIResponseParser(new AnalysisMetrics(new SimpleMeterRegistry()))
+                .parseAIResponse(SYNTHETIC_RESPONSE, recommendation, syntheticUser());
+
+        Context context = new Context();
+        context.setVariable("recommendation", recommendation);
+        context.setVariable("user", syntheticProfile());
+        for (int i = 0; i < renderIterations; i++) {
+            engine.process("result", context);
+            engine.process("profile", context);
+        }
+        return renderIterations * 2;
+    }
+
+    /**
+     * Builds the Jackson (de)serializers for the analysis API types.
+     */
+    private int bindJson() throws Exception {
+        ObjectMapper mapper = objectMapper.getIfAvailable();
+        if (mapper == null) {
+            return 0;
+        }
+        FoodRecommendation recommendation = syntheticRecommendation();
+        new AIResponseParser(new AnalysisMetrics(new SimpleMeterRegistry()))
+                .parseAIResponse(SYNTHETIC_RESPONSE, recommendation, syntheticUser());
+        mapper.writeValueAsBytes(recommendation);
+        mapper.writeValueAsBytes(syntheticProfile());
+        mapper.readValue("{\"userId\":1,\"foodName\":\"apple\",\"portionSizeInGrams\":100}", FoodAnalysisRequest.class);
+        return 1;
+    }
+
+    private int requestPages() throws Exception {
+        String port = environment.getProperty("local.server.port");
+        if (port == null || pagePaths.isEmpty()) {
+            return 0;
+        }
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        int done = 0;
+        for (String path : pagePaths) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                    .timeout(Duration.ofSeconds(5))
+                    .header("X-Trace-Id", "warmup")
+                    .build();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+            done++;
+        }
+        return done;
+    }
+
+    private static int runStep(String step, WarmupStep work) {
+        try {
+            return work.run();
+        } catch (Exception e) {
+            // Warm-up is best effort - a failed step must never stop the service from starting
+            log.warn("Warm-up step {} failed: {}", step, e.getMessage());
+            return 0;
+        }
+    }
+
+    private static User syntheticUser() {
+        User user = new User();
+        user.setName("Warm-up");
+        user.setAge(35);
+        user.setGender(Gender.FEMALE);
+        user.setWeight(65.0);
+        user.setHeight(168.0);
+        user.setActivityLevel(ActivityLevel.MODERATELY_ACTIVE);
+        user.setHealthConditions(List.of("Hypertension"));
+        return user;
+    }
+
+    private static UserProfileDto syntheticProfile() {
+        User user = syntheticUser();
+        UserProfileDto profile = new UserProfileDto();
+        profile.setId(0L);
+        profile.setName(user.getName());
+        profile.setEmail("warmup@example.com");
+        profile.setAge(user.getAge());
+        profile.setGender(user.getGender());
+        profile.setWeight(user.getWeight());
+        profile.setHeight(user.getHeight());
+        profile.setActivityLevel(user.getActivityLevel());
+        profile.setHealthConditions(user.getHealthConditions());
+        profile.setBmr(user.calculateBMR());
+        profile.setDailyCalorieNeeds(user.calculateDailyCalorieNeeds());
+        return profile;
+    }
+
+    private static FoodRecommendation syntheticRecommendation() {
+        FoodRecommendation recommendation = new FoodRecommendation();
+        recommendation.setFoodName("warm-up food");
+        recommendation.setPortionSize(150.0);
+        return recommendation;
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep {
+        int run() throws Exception;
+    }
+}
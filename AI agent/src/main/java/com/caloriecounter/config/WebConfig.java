@@ -0,0 +1,30 @@
+package com.caloriecounter.config;
+
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import com.caloriecounter.monitoring.RenderTimingInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the view render timing interceptor when metrics are available.
+ * Smile and CBOR need no registration here: Spring MVC adds their converters after the JSON one whenever
+ * jackson-dataformat-smile/cbor are on the classpath, so clients opt in with
+ * {@code Accept: application/x-jackson-smile} or {@code Accept: application/cbor} and JSON stays the default.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ObjectProvider<AnalysisMetrics> analysisMetrics;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        AnalysisMetrics metrics = analysisMetrics.getIfAvailable();
+        if (metrics != null) {
+            registry.addInterceptor(new RenderTimingInterceptor(metrics));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.caloriecounter.controller;
+
+import com.caloriecounter.monitoring.SlowRequestLog;
+import com.caloriecounter.monitoring.TokenUsageLedger;
+import com.caloriecounter.service.AiProviderRegistry;
+import com.caloriecounter.service.ArchetypeCache;
+import com.caloriecounter.service.PrecomputeService;
+import com.caloriecounter.service.PromptExperiment;
+import com.caloriecounter.service.PromptVariant;
+import com.caloriecounter.service.UserAnalysisCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only operational endpoints: aggregate stats of caches, token usage, experiments and providers.
+ * Endpoints exposing payloads or changing state are in {@link AdminDiagnosticsController}.
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    @Autowired
+    private SlowRequestLog slowRequestLog;
+
+    @Autowired
+    private TokenUsageLedger tokenUsage;
+
+    @Autowired
+    private PromptExperiment promptExperiment;
+
+    @Autowired
+    private ArchetypeCache archetypeCache;
+
+    @Autowired
+    private PrecomputeService precomputeService;
+
+    @Autowired
+    private UserAnalysisCache userAnalysisCache;
+
+    @Autowired
+    private AiProviderRegistry providerRegistry;
+
+    @GetMapping("/slow-requests")
+    public ResponseEntity<List<SlowRequestLog.Entry>> getSlowRequests() {
+        return ResponseEntity.ok(slowRequestLog.getEntries());
+    }
+
+    /**
+     * Token usage per prompt variant and per user, plus the compact variant's relative change
+     * in tokens and latency against the standard one once both have traffic.
+     */
+    @GetMapping("/token-usage")
+    public ResponseEntity<Map<String, Object>> getTokenUsage() {
+        return ResponseEntity.ok(Map.of(
+                "variants", tokenUsage.byVariant(),
+                "compactVsStandard", tokenUsage.compare(PromptVariant.STANDARD.tag(), PromptVariant.COMPACT.tag()),
+                "users", tokenUsage.byUser()));
+    }
+
+    @GetMapping("/token-usage/users/{userId}")
+    public ResponseEntity<TokenUsageLedger.Snapshot> getUserTokenUsage(@PathVariable Long userId) {
+        return ResponseEntity.ok(tokenUsage.forUser(userId));
+    }
+
+    /**
+     * Per-variant latency, output tokens, retries, failure and parse success rates of the prompt
+     * experiment, each with a 95% confidence interval.
+     */
+    @GetMapping("/experiments/prompt")
+    public ResponseEntity<Map<String, Object>> getPromptExperiment() {
+        return ResponseEntity.ok(promptExperiment.summary());
+    }
+
+    @GetMapping("/archetype-cache")
+    public ResponseEntity<Map<String, Object>> getArchetypeCacheStats() {
+        return ResponseEntity.ok(archetypeCache.stats());
+    }
+
+    @GetMapping("/user-cache")
+    public ResponseEntity<Map<String, Object>> getUserCacheStats() {
+        return ResponseEntity.ok(userAnalysisCache.stats());
+    }
+
+    @GetMapping("/providers")
+    public ResponseEntity<List<Map<String, Object>>> getProviders() {
+        return ResponseEntity.ok(providerRegistry.snapshot());
+    }
+
+    @GetMapping("/precompute")
+    public ResponseEntity<Map<String, Object>> getPrecomputeStatus() {
+        return ResponseEntity.ok(precomputeService.status());
+    }
+}
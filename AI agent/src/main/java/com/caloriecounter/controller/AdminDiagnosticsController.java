@@ -0,0 +1,93 @@
+package com.caloriecounter.controller;
+
+import com.caloriecounter.monitoring.FlightRecorderControl;
+import com.caloriecounter.monitoring.PayloadLog;
+import com.caloriecounter.service.PromptExperiment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin endpoints that expose user data or change state: captured prompts (which include users'
+ * health conditions), resetting the prompt experiment and JFR recordings. They have no authentication,
+ * so they only exist with {@code admin.diagnostics.enabled=true} - enable them temporarily, on an
+ * instance that is not reachable from the public internet.
+ */
+@RestController
+@RequestMapping("/admin")
+@ConditionalOnProperty(name = "admin.diagnostics.enabled", havingValue = "true")
+public class AdminDiagnosticsController {
+
+    @Autowired
+    private PayloadLog payloadLog;
+
+    @Autowired
+    private PromptExperiment promptExperiment;
+
+    @Autowired
+    private FlightRecorderControl flightRecorder;
+
+    @GetMapping("/payloads/{traceId}")
+    public ResponseEntity<List<PayloadLog.Payload>> getPayloads(@PathVariable String traceId) {
+        return ResponseEntity.ok(payloadLog.findByTraceId(traceId));
+    }
+
+    @PostMapping("/experiments/prompt/reset")
+    public ResponseEntity<Map<String, Object>> resetPromptExperiment() {
+        promptExperiment.reset();
+        return ResponseEntity.ok(promptExperiment.summary());
+    }
+
+    @GetMapping("/jfr")
+    public ResponseEntity<Map<String, String>> getRecordingState() {
+        return ResponseEntity.ok(Map.of("state", flightRecorder.getState()));
+    }
+
+    @PostMapping("/jfr/start")
+    public ResponseEntity<?> startRecording(@RequestParam(required = false) Long durationSeconds) {
+        try {
+            Duration duration = flightRecorder.start(durationSeconds != null ? Duration.ofSeconds(durationSeconds) : null);
+            return ResponseEntity.ok(Map.of("state", flightRecorder.getState(), "durationSeconds", duration.toSeconds()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new UserController.ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Stops the on-demand recording and streams the .jfr file back; the temporary file is removed afterwards.
+     */
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<?> stopRecording() {
+        Path file;
+        try {
+            file = flightRecorder.stopAndDump();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new UserController.ErrorResponse(e.getMessage()));
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(body);
+    }
+}
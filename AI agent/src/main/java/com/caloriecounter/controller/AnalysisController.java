@@ -0,0 +1,94 @@
+package com.caloriecounter.controller;
+
+import com.caloriecounter.controller.UserController.ErrorResponse;
+import com.caloriecounter.dto.FoodAnalysisRequest;
+import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.dto.RecipeAnalysisRequest;
+import com.caloriecounter.dto.RecipeAnalysisResult;
+import com.caloriecounter.service.HealthAnalysisService;
+import com.caloriecounter.service.IdempotencyService;
+import com.caloriecounter.service.UserService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST API for food analysis.
+ * Returns JSON by default, or Smile/CBOR when the client asks for it via the Accept header.
+ */
+@RestController
+@RequestMapping("/api/analysis")
+@CrossOrigin(origins = "*")
+public class AnalysisController {
+
+    @Autowired
+    private HealthAnalysisService healthAnalysisService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @PostMapping
+    public ResponseEntity<?> analyzeFood(@Valid @RequestBody FoodAnalysisRequest request,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            userService.findById(request.getUserId());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+
+        // Header wins over a key in the body; duplicates attach to the original analysis
+        String key = idempotencyService.keyFor("api:" + request.getUserId(),
+                idempotencyKey != null ? idempotencyKey : request.getIdempotencyKey(),
+                request.getFoodName(), request.getPortionSizeInGrams());
+
+        String fingerprint = idempotencyService.fingerprint(
+                request.getUserId(), request.getFoodName(), request.getPortionSizeInGrams());
+
+        try {
+            FoodRecommendation recommendation = idempotencyService.execute(key, fingerprint, () ->
+                    healthAnalysisService.analyzeFoodForUser(
+                            request.getUserId(),
+                            request.getFoodName(),
+                            request.getPortionSizeInGrams()));
+            return ResponseEntity.ok(recommendation);
+        } catch (IdempotencyService.KeyReusedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Analyzes a recipe per ingredient; ingredients already analyzed for this user or archetype come from cache.
+     * Responds 200 with whatever ingredients finished (see {@code complete}), 502 if none did.
+     */
+    @PostMapping("/recipe")
+    public ResponseEntity<?> analyzeRecipe(@Valid @RequestBody RecipeAnalysisRequest request) {
+        try {
+            userService.findById(request.getUserId());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+
+        RecipeAnalysisResult result;
+        try {
+            result = healthAnalysisService.analyzeRecipeForUser(request.getUserId(), request.getRecipe());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+        if (result.getIngredients().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body(new ErrorResponse("Recipe analysis failed: " + String.join("; ", result.getErrors())));
+        }
+        return ResponseEntity.ok(result);
+    }
+}
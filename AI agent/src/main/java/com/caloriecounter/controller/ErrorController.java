@@ -1,5 +1,7 @@
 package com.caloriecounter.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -9,13 +11,15 @@ import jakarta.servlet.http.HttpServletRequest;
 @Controller
 public class ErrorController implements org.springframework.boot.web.servlet.error.ErrorController {
 
+    private static final Logger log = LoggerFactory.getLogger(ErrorController.class);
+
     @RequestMapping("/error")
     public String handleError(HttpServletRequest request, Model model) {
         Integer statusCode = (Integer) request.getAttribute("jakarta.servlet.error.status_code");
         String errorMessage = (String) request.getAttribute("jakarta.servlet.error.message");
         String requestUri = (String) request.getAttribute("jakarta.servlet.error.request_uri");
         
-        System.out.println("DEBUG: Error occurred - Status: " + statusCode + ", URI: " + requestUri + ", Message: " + errorMessage);
+        log.debug("Error occurred - status={} uri={} message={}", statusCode, requestUri, errorMessage);
         
         model.addAttribute("statusCode", statusCode);
         model.addAttribute("errorMessage", errorMessage);
@@ -0,0 +1,65 @@
+package com.caloriecounter.controller;
+
+import com.caloriecounter.service.TokenEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local stand-in for the Gemini generateContent endpoint, active only with the "stub" profile.
+ * Lets load tests, startup benchmarks and smoke tests run the full pipeline without an API key or quota.
+ */
+@RestController
+@Profile("stub")
+@RequestMapping("/stub/gemini")
+public class GeminiStubController {
+
+    static final String ANALYSIS = """
+            SUITABILITY: GOOD
+            RECOMMENDED_PORTION: 120
+            BENEFITS: Good source of protein; Provides essential vitamins; Moderate calorie density
+            WARNINGS: None
+            REASONING: This food fits well within the user's daily calorie needs and supports their activity level. Keep portions moderate and pair it with vegetables for a balanced meal.
+            """;
+
+    @Value("${gemini.stub.latency-ms:0}")
+    private long latencyMs;
+
+    /**
+     * Answers the warm-up pre-connect quietly instead of with a logged 405.
+     */
+    @RequestMapping(method = RequestMethod.HEAD)
+    public void preconnect() {
+    }
+
+    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> generateContent(@RequestBody Map<String, Object> request) throws InterruptedException {
+        if (latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+        int promptTokens = TokenEstimator.estimate(promptText(request));
+        int responseTokens = TokenEstimator.estimate(ANALYSIS);
+        return Map.of(
+                "candidates", List.of(Map.of(
+                        "content", Map.of("parts", List.of(Map.of("text", ANALYSIS))))),
+                "usageMetadata", Map.of(
+                        "promptTokenCount", promptTokens,
+                        "candidatesTokenCount", responseTokens,
+                        "totalTokenCount", promptTokens + responseTokens));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String promptText(Map<String, Object> request) {
+        try {
+            List<Map<String, Object>> contents = (List<Map<String, Object>>) request.get("contents");
+            List<Map<String, Object>> parts = (List<Map<String, Object>>) contents.get(0).get("parts");
+            return String.valueOf(parts.get(0).get("text"));
+        } catch (RuntimeException e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.caloriecounter.controller;
+
+import com.caloriecounter.service.TokenEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local stand-in for an OpenAI-compatible chat completions endpoint, active only with the "stub" profile,
+ * answering with the same analysis as {@link GeminiStubController}. Lets multi-provider routing be
+ * exercised without a second real provider.
+ */
+@RestController
+@Profile("stub")
+@RequestMapping("/stub/openai/v1/chat/completions")
+public class OpenAIStubController {
+
+    @Value("${openai.stub.latency-ms:0}")
+    private long latencyMs;
+
+    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> chatCompletions(@RequestBody Map<String, Object> request) throws InterruptedException {
+        if (latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+        int promptTokens = TokenEstimator.estimate(promptText(request));
+        int completionTokens = TokenEstimator.estimate(GeminiStubController.ANALYSIS);
+        return Map.of(
+                "object", "chat.completion",
+                "model", String.valueOf(request.getOrDefault("model", "stub")),
+                "choices", List.of(Map.of(
+                        "index", 0,
+                        "message", Map.of("role", "assistant", "content", GeminiStubController.ANALYSIS),
+                        "finish_reason", "stop")),
+                "usage", Map.of(
+                        "prompt_tokens", promptTokens,
+                        "completion_tokens", completionTokens,
+                        "total_tokens", promptTokens + completionTokens));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String promptText(Map<String, Object> request) {
+        try {
+            List<Map<String, Object>> messages = (List<Map<String, Object>>) request.get("messages");
+            return String.valueOf(messages.get(0).get("content"));
+        } catch (RuntimeException e) {
+            return "";
+        }
+    }
+}
@@ -5,9 +5,11 @@ import com.caloriecounter.dto.UserRegistrationDto;
 import com.caloriecounter.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Optional;
 
@@ -15,6 +17,9 @@ import java.util.Optional;
 @RequestMapping("/api/users")
 @CrossOrigin(origins = "*")
 public class UserController {
+
+    // Profiles are private and change rarely - let clients keep a copy but always revalidate
+    private static final CacheControl PROFILE_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
     
     @Autowired
     private UserService userService;
@@ -31,10 +36,21 @@ public class UserController {
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<?> getUserProfile(@PathVariable Long id) {
+    public ResponseEntity<?> getUserProfile(@PathVariable Long id, WebRequest webRequest) {
+        // Answer revalidations from the version alone - no DTO conversion or serialization
+        Optional<String> eTag = userService.getProfileETag(id);
+        if (eTag.isPresent() && webRequest.checkNotModified(eTag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag.get())
+                    .cacheControl(PROFILE_CACHE_CONTROL)
+                    .build();
+        }
+
         Optional<UserProfileDto> userProfile = userService.getUserProfile(id);
         if (userProfile.isPresent()) {
-            return ResponseEntity.ok(userProfile.get());
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(PROFILE_CACHE_CONTROL);
+            eTag.ifPresent(response::eTag);
+            return response.body(userProfile.get());
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new ErrorResponse("User not found with id: " + id));
@@ -12,24 +12,36 @@ import com.caloriecounter.model.User;
 
 import com.caloriecounter.repository.UserRepository;
 
+import com.caloriecounter.service.GeminiService;
 import com.caloriecounter.service.HealthAnalysisService;
+import com.caloriecounter.service.IdempotencyService;
+import com.caloriecounter.service.PromptBuilder;
 import com.caloriecounter.service.SessionService;
 import com.caloriecounter.service.UserService;
-import com.caloriecounter.service.AIService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Controller
 public class WebController {
+
+    private static final Logger log = LoggerFactory.getLogger(WebController.class);
     
     @Autowired
     private UserService userService;
@@ -45,14 +57,21 @@ public class WebController {
     @Autowired
     private SessionService sessionService;
 
+    // /test-gemini checks the submitted key against gemini.api.url itself: no analysis cache and no provider
+    // routing, which could fail over to, or answer from, a provider that never sees the user's key
+    @Autowired
+    private GeminiService geminiService;
+
+    @Autowired
+    private PromptBuilder promptBuilder;
+
     @Autowired
-    private AIService aiService; // Now properly injected via interface
+    private IdempotencyService idempotencyService;
 
 
     
     @GetMapping("/")
     public String home(Model model) {
-        System.out.println("DEBUG: Home page accessed");
         model.addAttribute("title", "Calorie Counter AI Agent");
         return "index";
     }
@@ -110,7 +129,18 @@ public class WebController {
     }
     
     @GetMapping("/profile/{id}")
-    public String showProfile(@PathVariable Long id, Model model) {
+    public String showProfile(@PathVariable Long id, Model model, WebRequest webRequest, HttpServletResponse response) {
+        // Flash messages make the page one-off, so only plain profile views are revalidated
+        Optional<String> eTag = model.containsAttribute("successMessage")
+                ? Optional.empty()
+                : userService.getProfileETag(id);
+        if (eTag.isPresent()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+            if (webRequest.checkNotModified(eTag.get())) {
+                return null;
+            }
+        }
+
         Optional<UserProfileDto> profile = userService.getUserProfile(id);
         if (profile.isPresent()) {
             model.addAttribute("user", profile.get());
@@ -124,16 +154,17 @@ public class WebController {
     @GetMapping("/analyze")
     public String showAnalyzeForm(Model model) {
         if (!sessionService.isUserLoggedIn()) {
-            System.out.println("DEBUG: User not logged in, redirecting to register");
+            log.debug("User not logged in, redirecting to register");
             return "redirect:/register";
         }
         Long currentUserId = sessionService.getCurrentUserId();
-        System.out.println("DEBUG: showAnalyzeForm - Current User ID: " + currentUserId);
+        log.debug("showAnalyzeForm - current user id: {}", currentUserId);
 
         // Create FoodAnalysisRequest with default values
         FoodAnalysisRequest defaultRequest = new FoodAnalysisRequest();
         defaultRequest.setFoodName("chicken breast");
         defaultRequest.setPortionSizeInGrams(100.0);
+        defaultRequest.setIdempotencyKey(UUID.randomUUID().toString()); // One token per rendered form
 
         model.addAttribute("analysisRequest", defaultRequest);
         model.addAttribute("currentUserId", currentUserId);
@@ -142,26 +173,26 @@ public class WebController {
     
     @PostMapping("/analyze")
     public String analyzeFood(@Valid @ModelAttribute("analysisRequest") FoodAnalysisRequest request,
-                             BindingResult result, Model model) {
-        System.out.println("DEBUG: analyzeFood method called");
-        System.out.println("DEBUG: Request - Food: " + request.getFoodName() + ", Portion: " + request.getPortionSizeInGrams() + ", UserID: " + request.getUserId());
+                             BindingResult result, Model model, HttpServletResponse response) {
+        log.debug("analyzeFood request - food={} portion={} userId={}",
+                request.getFoodName(), request.getPortionSizeInGrams(), request.getUserId());
 
         if (!sessionService.isUserLoggedIn()) {
-            System.out.println("DEBUG: User not logged in, redirecting to register");
+            log.debug("User not logged in, redirecting to register");
             return "redirect:/register";
         }
 
         if (result.hasErrors()) {
-            System.out.println("DEBUG: Form validation errors: " + result.getAllErrors());
+            log.debug("Form validation errors: {}", result.getAllErrors());
             model.addAttribute("currentUserId", sessionService.getCurrentUserId());
             model.addAttribute("errorMessage", "Please fill in all required fields correctly.");
+            request.setIdempotencyKey(UUID.randomUUID().toString()); // the corrected form is a new submission
             return "analyze";
         }
 
         try {
             // Get current user from session
             Long currentUserId = sessionService.getCurrentUserId();
-            System.out.println("DEBUG: Current User ID from session: " + currentUserId);
 
             if (currentUserId == null) {
                 model.addAttribute("errorMessage", "No user session found. Please register first.");
@@ -175,25 +206,38 @@ public class WebController {
             }
 
             User user = userOpt.get();
-            System.out.println("DEBUG: Analyzing " + request.getFoodName() + " for user " + user.getName());
 
-            // Analyze food directly with AI - no food database needed
-            FoodRecommendation recommendation = healthAnalysisService.analyzeFoodForUser(
-                    request.getUserId(),
-                    request.getFoodName(),
-                    request.getPortionSizeInGrams());
+            // Analyze food directly with AI - no food database needed.
+            // Double submissions of the same form attach to the first analysis.
+            String idempotencyKey = idempotencyService.keyFor("web:" + sessionService.getCurrentSessionId(),
+                    request.getIdempotencyKey(), request.getFoodName(), request.getPortionSizeInGrams());
+            String fingerprint = idempotencyService.fingerprint(
+                    request.getUserId(), request.getFoodName(), request.getPortionSizeInGrams());
+            FoodRecommendation recommendation = idempotencyService.execute(idempotencyKey, fingerprint, () ->
+                    healthAnalysisService.analyzeFoodForUser(
+                            request.getUserId(),
+                            request.getFoodName(),
+                            request.getPortionSizeInGrams()));
 
-            System.out.println("DEBUG: Analysis complete, suitability: " + recommendation.getSuitabilityScore());
+            log.debug("Analysis complete, suitability: {}", recommendation.getSuitabilityScore());
 
             model.addAttribute("recommendation", recommendation);
             model.addAttribute("user", user);
 
             return "result";
 
+        } catch (IdempotencyService.KeyReusedException e) {
+            // A stale form (back button) submitted with another food - never show the earlier food's result
+            response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+            model.addAttribute("errorMessage", "This form was already submitted for a different food. Please submit it again.");
+            model.addAttribute("currentUserId", sessionService.getCurrentUserId());
+            request.setIdempotencyKey(UUID.randomUUID().toString());
+            return "analyze";
         } catch (Exception e) {
             model.addAttribute("errorMessage", "Error analyzing food: " + e.getMessage());
             model.addAttribute("currentUserId", sessionService.getCurrentUserId());
-            e.printStackTrace(); // Debug log
+            request.setIdempotencyKey(UUID.randomUUID().toString()); // a retry is a new submission
+            log.warn("Error analyzing food={}", request.getFoodName(), e);
             return "analyze";
         }
     }
@@ -230,7 +274,8 @@ public class WebController {
             testUser.setActivityLevel(ActivityLevel.MODERATELY_ACTIVE);
             testUser.setGeminiApiKey(apiKey);
 
-            String result = aiService.analyzeFood(testUser, "Apple", 100.0);
+            String prompt = promptBuilder.buildNutritionPrompt(testUser, "Apple", 100.0);
+            String result = geminiService.callGeminiAPI(prompt, apiKey);
             return "SUCCESS: Gemini responded with " + result.length() + " characters.\n\nFirst 500 chars:\n" +
                    result.substring(0, Math.min(500, result.length())) + "\n\n[Response truncated...]";
 
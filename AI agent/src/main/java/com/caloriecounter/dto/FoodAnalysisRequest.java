@@ -12,6 +12,8 @@ public class FoodAnalysisRequest {
     @DecimalMin(value = "1.0", message = "Portion size must be at least 1 gram")
     @DecimalMax(value = "2000.0", message = "Portion size must be less than 2000 grams")
     private Double portionSizeInGrams = 100.0; // Default to 100g
+
+    private String idempotencyKey; // Optional - form token or client-supplied key
     
     // Constructors
     public FoodAnalysisRequest() {}
@@ -31,4 +33,7 @@ public class FoodAnalysisRequest {
     
     public Double getPortionSizeInGrams() { return portionSizeInGrams; }
     public void setPortionSizeInGrams(Double portionSizeInGrams) { this.portionSizeInGrams = portionSizeInGrams; }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
 }
@@ -12,6 +12,8 @@ public class FoodRecommendation {
     private List<String> warnings;
     private List<String> benefits;
     private double percentageOfDailyCalories;
+    private Double scaledFromPortion; // set when the analysis of a nearby portion was reused
+    private String source; // gemini, or local for the rule-based estimate
     
     // Constructors
     public FoodRecommendation() {}
@@ -43,4 +45,10 @@ public class FoodRecommendation {
     
     public double getPercentageOfDailyCalories() { return percentageOfDailyCalories; }
     public void setPercentageOfDailyCalories(double percentageOfDailyCalories) { this.percentageOfDailyCalories = percentageOfDailyCalories; }
+
+    public Double getScaledFromPortion() { return scaledFromPortion; }
+    public void setScaledFromPortion(Double scaledFromPortion) { this.scaledFromPortion = scaledFromPortion; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
 }
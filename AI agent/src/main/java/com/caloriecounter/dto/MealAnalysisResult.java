@@ -0,0 +1,31 @@
+package com.caloriecounter.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MealAnalysisResult {
+    private List<FoodRecommendation> recommendations = new ArrayList<>();
+    private List<String> errors = new ArrayList<>();
+    private boolean complete;
+    private boolean timedOut;
+    private long elapsedMillis;
+
+    // Constructors
+    public MealAnalysisResult() {}
+
+    // Getters and Setters
+    public List<FoodRecommendation> getRecommendations() { return recommendations; }
+    public void setRecommendations(List<FoodRecommendation> recommendations) { this.recommendations = recommendations; }
+
+    public List<String> getErrors() { return errors; }
+    public void setErrors(List<String> errors) { this.errors = errors; }
+
+    public boolean isComplete() { return complete; }
+    public void setComplete(boolean complete) { this.complete = complete; }
+
+    public boolean isTimedOut() { return timedOut; }
+    public void setTimedOut(boolean timedOut) { this.timedOut = timedOut; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
@@ -0,0 +1,27 @@
+package com.caloriecounter.dto;
+
+import jakarta.validation.constraints.*;
+
+public class RecipeAnalysisRequest {
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    @NotBlank(message = "Recipe is required")
+    @Size(max = 2000, message = "Recipe must be at most 2000 characters")
+    private String recipe;
+
+    // Constructors
+    public RecipeAnalysisRequest() {}
+
+    public RecipeAnalysisRequest(Long userId, String recipe) {
+        this.userId = userId;
+        this.recipe = recipe;
+    }
+
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getRecipe() { return recipe; }
+    public void setRecipe(String recipe) { this.recipe = recipe; }
+}
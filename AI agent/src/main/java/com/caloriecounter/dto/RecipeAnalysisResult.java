@@ -0,0 +1,71 @@
+package com.caloriecounter.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RecipeAnalysisResult {
+    private String recipe;
+    private double totalPortionSize;
+    private boolean suitable;
+    private String suitabilityScore; // EXCELLENT, GOOD, MODERATE, POOR, AVOID
+    private double recommendedPortionSize;
+    private double percentageOfDailyCalories;
+    private String limitingIngredient; // the ingredient that caps the recommended portion, if any
+    private String reasoning;
+    private List<String> warnings = new ArrayList<>();
+    private List<String> benefits = new ArrayList<>();
+    private List<FoodRecommendation> ingredients = new ArrayList<>();
+    private List<String> errors = new ArrayList<>();
+    private boolean complete;
+    private boolean timedOut;
+    private long elapsedMillis;
+
+    // Constructors
+    public RecipeAnalysisResult() {}
+
+    // Getters and Setters
+    public String getRecipe() { return recipe; }
+    public void setRecipe(String recipe) { this.recipe = recipe; }
+
+    public double getTotalPortionSize() { return totalPortionSize; }
+    public void setTotalPortionSize(double totalPortionSize) { this.totalPortionSize = totalPortionSize; }
+
+    public boolean isSuitable() { return suitable; }
+    public void setSuitable(boolean suitable) { this.suitable = suitable; }
+
+    public String getSuitabilityScore() { return suitabilityScore; }
+    public void setSuitabilityScore(String suitabilityScore) { this.suitabilityScore = suitabilityScore; }
+
+    public double getRecommendedPortionSize() { return recommendedPortionSize; }
+    public void setRecommendedPortionSize(double recommendedPortionSize) { this.recommendedPortionSize = recommendedPortionSize; }
+
+    public double getPercentageOfDailyCalories() { return percentageOfDailyCalories; }
+    public void setPercentageOfDailyCalories(double percentageOfDailyCalories) { this.percentageOfDailyCalories = percentageOfDailyCalories; }
+
+    public String getLimitingIngredient() { return limitingIngredient; }
+    public void setLimitingIngredient(String limitingIngredient) { this.limitingIngredient = limitingIngredient; }
+
+    public String getReasoning() { return reasoning; }
+    public void setReasoning(String reasoning) { this.reasoning = reasoning; }
+
+    public List<String> getWarnings() { return warnings; }
+    public void setWarnings(List<String> warnings) { this.warnings = warnings; }
+
+    public List<String> getBenefits() { return benefits; }
+    public void setBenefits(List<String> benefits) { this.benefits = benefits; }
+
+    public List<FoodRecommendation> getIngredients() { return ingredients; }
+    public void setIngredients(List<FoodRecommendation> ingredients) { this.ingredients = ingredients; }
+
+    public List<String> getErrors() { return errors; }
+    public void setErrors(List<String> errors) { this.errors = errors; }
+
+    public boolean isComplete() { return complete; }
+    public void setComplete(boolean complete) { this.complete = complete; }
+
+    public boolean isTimedOut() { return timedOut; }
+    public void setTimedOut(boolean timedOut) { this.timedOut = timedOut; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
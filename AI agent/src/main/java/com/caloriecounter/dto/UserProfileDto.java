@@ -19,6 +19,7 @@ public class UserProfileDto {
     private LocalDateTime updatedAt;
     private Double bmr;
     private Double dailyCalorieNeeds;
+    private long version;
     
     // Constructors
     public UserProfileDto() {}
@@ -62,4 +63,7 @@ public class UserProfileDto {
     
     public Double getDailyCalorieNeeds() { return dailyCalorieNeeds; }
     public void setDailyCalorieNeeds(Double dailyCalorieNeeds) { this.dailyCalorieNeeds = dailyCalorieNeeds; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
@@ -0,0 +1,182 @@
+package com.caloriecounter.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inbound rate limiter for the expensive controller endpoints.
+ * Each endpoint group has its own budget, tracked per logged-in user, per session, or per client IP.
+ * Recipe analysis fans out into one AI analysis per ingredient, so it has a separate, smaller budget.
+ * Uses the generic cell rate algorithm: one AtomicLong per key updated with CAS, so there are no locks
+ * on the request path. Requests over budget get 429 with a Retry-After header.
+ * Each budget tracks at most {@code MAX_TRACKED_KEYS} clients; when full, idle keys are swept at most once
+ * per {@code SWEEP_INTERVAL_NANOS}, and clients that still find no room share one overflow bucket.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int MAX_TRACKED_KEYS = 100_000;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final boolean enabled;
+    private final Budget analyzeBudget;
+    private final Budget recipeBudget;
+    private final Budget testGeminiBudget;
+    private final Budget usersApiBudget;
+
+    public RateLimitFilter(@Value("${ratelimit.enabled:true}") boolean enabled,
+                           @Value("${ratelimit.analyze.capacity:20}") int analyzeCapacity,
+                           @Value("${ratelimit.analyze.per-minute:30}") int analyzePerMinute,
+                           @Value("${ratelimit.recipe.capacity:2}") int recipeCapacity,
+                           @Value("${ratelimit.recipe.per-minute:2}") int recipePerMinute,
+                           @Value("${ratelimit.test-gemini.capacity:5}") int testGeminiCapacity,
+                           @Value("${ratelimit.test-gemini.per-minute:5}") int testGeminiPerMinute,
+                           @Value("${ratelimit.users-api.capacity:60}") int usersApiCapacity,
+                           @Value("${ratelimit.users-api.per-minute:120}") int usersApiPerMinute) {
+        this.enabled = enabled;
+        this.analyzeBudget = new Budget(analyzeCapacity, analyzePerMinute);
+        this.recipeBudget = new Budget(recipeCapacity, recipePerMinute);
+        this.testGeminiBudget = new Budget(testGeminiCapacity, testGeminiPerMinute);
+        this.usersApiBudget = new Budget(usersApiCapacity, usersApiPerMinute);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || budgetFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Budget budget = budgetFor(request);
+        long retryAfterNanos = budget.tryAcquire(clientKey(request), System.nanoTime());
+
+        if (retryAfterNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many requests. Please retry in " + retryAfterSeconds + " seconds.\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private Budget budgetFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/analyze") && "POST".equals(request.getMethod())) {
+            return analyzeBudget;
+        }
+        if (path.equals("/api/analysis/recipe")) {
+            return recipeBudget;
+        }
+        if (path.startsWith("/api/analysis")) {
+            return analyzeBudget;
+        }
+        if (path.equals("/test-gemini")) {
+            return testGeminiBudget;
+        }
+        if (path.startsWith("/api/users")) {
+            return usersApiBudget;
+        }
+        return null;
+    }
+
+    // Most specific identity first: logged-in user, then session, then client address
+    private String clientKey(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            Object userId = session.getAttribute("currentUserId");
+            return userId != null ? "user:" + userId : "session:" + session.getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * GCRA budget: each key stores its theoretical arrival time. A request is admitted when
+     * advancing that time by one emission interval stays within the burst window.
+     */
+    static final class Budget {
+        private final long emissionIntervalNanos;
+        private final long burstNanos;
+        private final int maxKeys;
+        private final Map<String, AtomicLong> arrivalTimes = new ConcurrentHashMap<>();
+        // Shared by clients that arrive while the map is full, e.g. during a many-IP flood
+        private final AtomicLong overflow = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong lastSweepNanos = new AtomicLong(NEVER);
+
+        Budget(int capacity, int perMinute) {
+            this(capacity, perMinute, MAX_TRACKED_KEYS);
+        }
+
+        Budget(int capacity, int perMinute, int maxKeys) {
+            this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.burstNanos = emissionIntervalNanos * Math.max(1, capacity);
+            this.maxKeys = Math.max(1, maxKeys);
+        }
+
+        /**
+         * @return 0 if admitted, otherwise nanoseconds until the next request would be admitted
+         */
+        long tryAcquire(String key, long now) {
+            AtomicLong arrivalTime = arrivalTimes.get(key);
+            if (arrivalTime == null) {
+                if (arrivalTimes.size() >= maxKeys) {
+                    sweepIdle(now);
+                }
+                // Concurrent first requests can overshoot the cap by a few keys, never by a flood
+                arrivalTime = arrivalTimes.size() < maxKeys
+                        ? arrivalTimes.computeIfAbsent(key, k -> new AtomicLong(now))
+                        : overflow;
+            }
+            while (true) {
+                long current = arrivalTime.get();
+                long next = Math.max(current, now) + emissionIntervalNanos;
+                long wait = next - burstNanos - now;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (arrivalTime.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        int trackedKeys() {
+            return arrivalTimes.size();
+        }
+
+        // Keys whose budget has fully replenished carry no state worth keeping. One thread sweeps per interval,
+        // so a full map of busy keys costs one scan per interval rather than one per request.
+        private void sweepIdle(long now) {
+            long last = lastSweepNanos.get();
+            if ((last != NEVER && now - last < SWEEP_INTERVAL_NANOS) || !lastSweepNanos.compareAndSet(last, now)) {
+                return;
+            }
+            Iterator<AtomicLong> iterator = arrivalTimes.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().get() <= now) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.caloriecounter.filter;
+
+import com.caloriecounter.monitoring.PayloadLog;
+import com.caloriecounter.monitoring.RequestTiming;
+import com.caloriecounter.monitoring.SlowRequestLog;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Attaches a {@link RequestTiming} to each request, reports it in a Server-Timing header,
+ * and hands requests over the slow-request threshold to the {@link SlowRequestLog}.
+ * The header is written just before the response commits, so it covers every stage
+ * finished by then; rendering that streams the body is captured by the slow-request log.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private final SlowRequestLog slowRequestLog;
+
+    @Autowired
+    public ServerTimingFilter(ObjectProvider<SlowRequestLog> slowRequestLog) {
+        this(slowRequestLog.getIfAvailable());
+    }
+
+    ServerTimingFilter(SlowRequestLog slowRequestLog) {
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTiming timing = new RequestTiming();
+        TimingResponseWrapper timedResponse = new TimingResponseWrapper(response, timing);
+        RequestTiming.attach(timing);
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            RequestTiming.detach();
+            timedResponse.addServerTimingHeader();
+            if (slowRequestLog != null && slowRequestLog.recordIfSlow(MDC.get(PayloadLog.TRACE_ID), request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), timing)) {
+                log.info("Slow request {} {} took {}", request.getMethod(), request.getRequestURI(),
+                        timing.toServerTimingHeader());
+            }
+        }
+    }
+
+    private static final class TimingResponseWrapper extends HttpServletResponseWrapper {
+
+        private final RequestTiming timing;
+        private boolean headerWritten;
+
+        private TimingResponseWrapper(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        private void addServerTimingHeader() {
+            if (!headerWritten && !isCommitted()) {
+                setHeader("Server-Timing", timing.toServerTimingHeader());
+            }
+            headerWritten = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTimingHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTimingHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTimingHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTimingHeader();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTimingHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTimingHeader();
+            super.sendError(sc, msg);
+        }
+    }
+}
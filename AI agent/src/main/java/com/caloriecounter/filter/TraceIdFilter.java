@@ -0,0 +1,57 @@
+package com.caloriecounter.filter;
+
+import com.caloriecounter.monitoring.PayloadLog;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Tags every request with a trace id in the logging MDC and echoes it as X-Trace-Id,
+ * so log lines and captured payloads for one request can be found together.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TraceIdFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_HEADER = "X-Trace-Id";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String traceId = request.getHeader(TRACE_HEADER);
+        if (!isSafeTraceId(traceId)) {
+            traceId = UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+        }
+
+        MDC.put(PayloadLog.TRACE_ID, traceId);
+        response.setHeader(TRACE_HEADER, traceId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(PayloadLog.TRACE_ID);
+        }
+    }
+
+    // Client-supplied ids end up in log lines - accept only short, plain tokens
+    private boolean isSafeTraceId(String traceId) {
+        if (traceId == null || traceId.isEmpty() || traceId.length() > 64) {
+            return false;
+        }
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -35,6 +35,7 @@ public class User {
     private String geminiApiKey; // User's personal Gemini API key
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private long version; // Incremented on every save - drives profile ETags
     
     // Constructors
     public User() {
@@ -78,6 +79,9 @@ public class User {
     
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
     
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
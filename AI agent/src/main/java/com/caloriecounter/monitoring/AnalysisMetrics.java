@@ -0,0 +1,191 @@
+package com.caloriecounter.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer instrumentation for the food analysis pipeline.
+ * Every stage is recorded under one timer name with a {@code stage} tag so per-stage
+ * percentiles can be compared side by side. Stages are also added to the current
+ * {@link RequestTiming}, if any, for the per-request breakdown.
+ */
+@Component
+public class AnalysisMetrics {
+
+    public static final String PROMPT_BUILD = "prompt_build";
+    public static final String QUEUE_WAIT = "queue_wait";
+    public static final String RATE_LIMIT_WAIT = "rate_limit_wait";
+    public static final String GEMINI_ROUND_TRIP = "gemini_round_trip";
+    public static final String RETRY_BACKOFF = "retry_backoff";
+    public static final String PARSE = "parse";
+    public static final String RENDER = "render";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> tokenSummaries = new ConcurrentHashMap<>();
+    private final Map<String, Timer> variantTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> providerTimers = new ConcurrentHashMap<>();
+
+    public AnalysisMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordStage(String stage, long durationNanos) {
+        recordStage(stage, "success", durationNanos);
+    }
+
+    /**
+     * @param outcome For stages that can fail, e.g. a Gemini round trip: success, rate_limited, client_error,
+     *                server_error, timeout or io_error
+     */
+    public void recordStage(String stage, String outcome, long durationNanos) {
+        stageTimers.computeIfAbsent(stage + ":" + outcome, k -> Timer.builder("analysis.stage")
+                        .description("Time spent in each stage of the food analysis pipeline")
+                        .tag("stage", stage)
+                        .tag("outcome", outcome)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.add(stage, durationNanos);
+        }
+    }
+
+    public <T> T timeStage(String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            recordStage(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records token usage and round-trip latency of one successful Gemini call, tagged by prompt
+     * variant and by whether the counts were reported by Gemini or estimated locally.
+     * The counts are also added to the current {@link RequestTiming}, if any.
+     */
+    public void recordGeminiCall(String variant, int promptTokens, int responseTokens, boolean reported, long latencyNanos) {
+        String source = reported ? "reported" : "estimated";
+        tokenSummary("prompt", variant, source).record(promptTokens);
+        tokenSummary("response", variant, source).record(responseTokens);
+        variantTimers.computeIfAbsent(variant, v -> Timer.builder("analysis.gemini.call")
+                        .description("Gemini round trip of successful calls per prompt variant")
+                        .tag("variant", v)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry))
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.addTokens(promptTokens, responseTokens);
+        }
+    }
+
+    public void recordRetry(String cause) {
+        counter("analysis.gemini.retries", "cause", cause).increment();
+    }
+
+    public void recordGeminiFailure(String cause) {
+        counter("analysis.gemini.failures", "cause", cause).increment();
+    }
+
+    public void recordApiKeyFailure(String reason) {
+        counter("analysis.gemini.api_key.failures", "reason", reason).increment();
+    }
+
+    public void recordCacheLookup(String cache, String result) {
+        counters.computeIfAbsent("analysis.cache.lookups:" + cache + ":" + result, k -> Counter.builder("analysis.cache.lookups")
+                .description("Analysis cache lookups by outcome (hit, miss, bypass)")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry)).increment();
+    }
+
+    /**
+     * @param route Which AIService answered: ai, local, fallback (local after an AI failure) or unavailable
+     */
+    public void recordRoute(String route) {
+        counter("analysis.route", "route", route).increment();
+    }
+
+    /**
+     * @param outcome success, failure, rate_limited (quota or rate limit; a provider with shared credentials cools down) or rejected_key
+     */
+    public void recordProviderCall(String provider, String outcome, long latencyNanos) {
+        providerTimers.computeIfAbsent(provider + ":" + outcome, k -> Timer.builder("analysis.provider.call")
+                        .description("AI provider calls by outcome, including retries within the provider")
+                        .tag("provider", provider)
+                        .tag("outcome", outcome)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry))
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailover(String from, String to) {
+        counters.computeIfAbsent("analysis.provider.failovers:" + from + ":" + to, k -> Counter.builder("analysis.provider.failovers")
+                .description("Requests retried on another AI provider after a failure")
+                .tag("from", from)
+                .tag("to", to)
+                .register(registry)).increment();
+    }
+
+    /**
+     * Publishes a provider's routing state: EWMA latency, EWMA error rate and remaining quota fraction.
+     */
+    public <T> void registerProviderGauges(String provider, T state, ToDoubleFunction<T> latencyMs,
+                                           ToDoubleFunction<T> errorRate, ToDoubleFunction<T> remainingQuota) {
+        Gauge.builder("analysis.provider.latency.ewma", state, latencyMs)
+                .description("Moving average latency of successful calls")
+                .baseUnit("milliseconds")
+                .tag("provider", provider)
+                .register(registry);
+        Gauge.builder("analysis.provider.error_rate.ewma", state, errorRate)
+                .description("Moving average share of failed calls")
+                .tag("provider", provider)
+                .register(registry);
+        Gauge.builder("analysis.provider.quota.remaining", state, remainingQuota)
+                .description("Share of the tighter of the per-minute and per-day quotas left")
+                .tag("provider", provider)
+                .register(registry);
+    }
+
+    public void recordParseFailure() {
+        counter("analysis.parse.failures", null, null).increment();
+    }
+
+    private DistributionSummary tokenSummary(String direction, String variant, String source) {
+        return tokenSummaries.computeIfAbsent(direction + ":" + variant + ":" + source, k -> DistributionSummary.builder("analysis.gemini.tokens")
+                .description("Tokens per Gemini call")
+                .baseUnit("tokens")
+                .tag("direction", direction)
+                .tag("variant", variant)
+                .tag("source", source)
+                .publishPercentiles(0.5, 0.95)
+                .register(registry));
+    }
+
+    private Counter counter(String name, String tagKey, String tagValue) {
+        return counters.computeIfAbsent(name + ":" + tagValue, k -> {
+            Counter.Builder builder = Counter.builder(name);
+            if (tagKey != null) {
+                builder.tag(tagKey, tagValue);
+            }
+            return builder.register(registry);
+        });
+    }
+}
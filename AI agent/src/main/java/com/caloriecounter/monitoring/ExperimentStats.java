@@ -0,0 +1,181 @@
+package com.caloriecounter.monitoring;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-arm outcome statistics for an online experiment: upstream latency, output tokens, retries,
+ * call failures and parse success, each summarized with a 95% confidence interval so arms are only
+ * declared different when the intervals say so.
+ */
+public class ExperimentStats {
+
+    private static final double Z_95 = 1.96;
+
+    // Two-sided 95% Student's t critical values for 1..30 degrees of freedom; Z_95 beyond that
+    private static final double[] T_95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    private final Map<String, Arm> arms = new ConcurrentHashMap<>();
+
+    public void recordCall(String arm, long latencyNanos, int outputTokens, int retries) {
+        arm(arm).recordCall(latencyNanos / (double) TimeUnit.MILLISECONDS.toNanos(1), outputTokens, retries);
+    }
+
+    public void recordFailure(String arm) {
+        arm(arm).recordFailure();
+    }
+
+    public void recordParse(String arm, boolean succeeded) {
+        arm(arm).recordParse(succeeded);
+    }
+
+    /**
+     * @return One summary per arm that has seen traffic, ordered by arm name
+     */
+    public Map<String, Summary> summarize() {
+        Map<String, Summary> summaries = new TreeMap<>();
+        arms.forEach((name, arm) -> summaries.put(name, arm.summarize()));
+        return summaries;
+    }
+
+    public void reset() {
+        arms.clear();
+    }
+
+    private Arm arm(String name) {
+        return arms.computeIfAbsent(name, n -> new Arm());
+    }
+
+    private static final class Arm {
+        private final RunningMean latencyMillis = new RunningMean();
+        private final RunningMean outputTokens = new RunningMean();
+        private final RunningMean retries = new RunningMean();
+        private long failures;
+        private long parses;
+        private long parseSuccesses;
+
+        synchronized void recordCall(double latency, int tokens, int retryCount) {
+            latencyMillis.add(latency);
+            outputTokens.add(tokens);
+            retries.add(retryCount);
+        }
+
+        synchronized void recordFailure() {
+            failures++;
+        }
+
+        synchronized void recordParse(boolean succeeded) {
+            parses++;
+            if (succeeded) {
+                parseSuccesses++;
+            }
+        }
+
+        synchronized Summary summarize() {
+            long calls = latencyMillis.count;
+            return new Summary(calls, failures,
+                    latencyMillis.estimate(), outputTokens.estimate(), retries.estimate(),
+                    Estimate.proportion(parseSuccesses, parses),
+                    Estimate.proportion(failures, calls + failures));
+        }
+    }
+
+    /**
+     * Welford's online mean and variance - numerically stable and O(1) per sample.
+     * All recorded measures are non-negative, so the interval is clamped at zero.
+     */
+    private static final class RunningMean {
+        private long count;
+        private double mean;
+        private double m2;
+
+        void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        }
+
+        Estimate estimate() {
+            if (count == 0) {
+                return new Estimate(0, 0, 0, 0);
+            }
+            long degreesOfFreedom = count - 1;
+            double critical = degreesOfFreedom <= T_95.length ? T_95[(int) Math.max(0, degreesOfFreedom - 1)] : Z_95;
+            double halfWidth = count > 1 ? critical * Math.sqrt(m2 / degreesOfFreedom / count) : 0;
+            return new Estimate(count, mean, Math.max(0, mean - halfWidth), mean + halfWidth);
+        }
+    }
+
+    public static final class Estimate {
+        private final long samples;
+        private final double value;
+        private final double low;
+        private final double high;
+
+        Estimate(long samples, double value, double low, double high) {
+            this.samples = samples;
+            this.value = round(value);
+            this.low = round(low);
+            this.high = round(high);
+        }
+
+        /**
+         * Wilson score interval - stays inside [0, 1] and behaves for small samples and rates near 0 or 1.
+         */
+        static Estimate proportion(long successes, long trials) {
+            if (trials == 0) {
+                return new Estimate(0, 0, 0, 0);
+            }
+            double p = successes / (double) trials;
+            double z2 = Z_95 * Z_95;
+            double denominator = 1 + z2 / trials;
+            double centre = (p + z2 / (2.0 * trials)) / denominator;
+            double halfWidth = Z_95 * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials)) / denominator;
+            return new Estimate(trials, p, Math.max(0, centre - halfWidth), Math.min(1, centre + halfWidth));
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 10_000) / 10_000.0;
+        }
+
+        public long getSamples() { return samples; }
+        public double getValue() { return value; }
+        public double getLow() { return low; }
+        public double getHigh() { return high; }
+    }
+
+    public static final class Summary {
+        private final long calls;
+        private final long failures;
+        private final Estimate latencyMillis;
+        private final Estimate outputTokens;
+        private final Estimate retries;
+        private final Estimate parseSuccessRate;
+        private final Estimate failureRate;
+
+        Summary(long calls, long failures, Estimate latencyMillis, Estimate outputTokens, Estimate retries,
+                Estimate parseSuccessRate, Estimate failureRate) {
+            this.calls = calls;
+            this.failures = failures;
+            this.latencyMillis = latencyMillis;
+            this.outputTokens = outputTokens;
+            this.retries = retries;
+            this.parseSuccessRate = parseSuccessRate;
+            this.failureRate = failureRate;
+        }
+
+        public long getCalls() { return calls; }
+        public long getFailures() { return failures; }
+        public Estimate getLatencyMillis() { return latencyMillis; }
+        public Estimate getOutputTokens() { return outputTokens; }
+        public Estimate getRetries() { return retries; }
+        public Estimate getParseSuccessRate() { return parseSuccessRate; }
+        public Estimate getFailureRate() { return failureRate; }
+    }
+}
@@ -0,0 +1,108 @@
+package com.caloriecounter.monitoring;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Starts and stops a single on-demand JDK Flight Recorder recording.
+ * Recordings are bounded in both duration and size, so a forgotten recording
+ * cannot fill the disk; it stops on its own and waits to be collected.
+ */
+@Component
+public class FlightRecorderControl {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderControl.class);
+
+    private final String settings;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+    private Recording recording;
+
+    public FlightRecorderControl(@Value("${profiling.jfr.settings:profile}") String settings,
+                                 @Value("${profiling.jfr.max-duration-seconds:300}") long maxDurationSeconds,
+                                 @Value("${profiling.jfr.max-size-mb:64}") long maxSizeMb) {
+        this.settings = settings;
+        this.maxDuration = Duration.ofSeconds(maxDurationSeconds);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    /**
+     * Starts a recording, capped at the configured maximum duration.
+     *
+     * @param requested How long to record; null or longer than the maximum means the maximum
+     * @return The duration actually used
+     */
+    public synchronized Duration start(Duration requested) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A flight recording is already running");
+        }
+        closeRecording();
+
+        Duration duration = requested == null || requested.isNegative() || requested.isZero()
+                || requested.compareTo(maxDuration) > 0 ? maxDuration : requested;
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException("Failed to load JFR settings '" + settings + "': " + e.getMessage(), e);
+        }
+        recording.setName("calorie-counter-on-demand");
+        recording.setToDisk(true);
+        recording.setMaxSize(maxSizeBytes);
+        recording.setDuration(duration);
+        recording.enable(GeminiCallEvent.class);
+        recording.enable(ResponseParseEvent.class);
+        recording.start();
+        log.info("Started flight recording for up to {}s ({} settings)", duration.toSeconds(), settings);
+        return duration;
+    }
+
+    /**
+     * Stops the recording (if still running) and dumps it to a temporary file.
+     * The caller owns the file and should delete it once it has been sent.
+     *
+     * @return Path of the .jfr file
+     */
+    public synchronized Path stopAndDump() {
+        if (recording == null) {
+            throw new IllegalStateException("No flight recording has been started");
+        }
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            Path file = Files.createTempFile("calorie-counter-", ".jfr");
+            recording.dump(file);
+            log.info("Dumped flight recording ({} bytes)", Files.size(file));
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to dump flight recording: " + e.getMessage(), e);
+        } finally {
+            closeRecording();
+        }
+    }
+
+    /**
+     * @return The current recording state, or "NONE" when nothing has been started
+     */
+    public synchronized String getState() {
+        return recording != null ? recording.getState().name() : "NONE";
+    }
+
+    private void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
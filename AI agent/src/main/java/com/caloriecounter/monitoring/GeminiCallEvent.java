@@ -0,0 +1,57 @@
+package com.caloriecounter.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * JFR event for one Gemini API attempt. The event duration is the attempt's latency.
+ * Fields are only filled in while a recording has the event enabled.
+ */
+@Name("com.caloriecounter.GeminiCall")
+@Label("Gemini Call")
+@Category({"Calorie Counter", "AI"})
+@Description("One attempt at calling the Gemini generateContent API")
+@StackTrace(false)
+public class GeminiCallEvent extends Event {
+
+    @Label("API Key Hash")
+    @Description("Truncated SHA-256 of the API key - identifies a key without exposing it")
+    public String keyHash;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Prompt Size")
+    @DataAmount
+    public long promptBytes;
+
+    @Label("Status")
+    @Description("ok, rate_limited, rejected, quota or other")
+    public String status;
+
+    @Label("HTTP Status")
+    public int httpStatus;
+
+    @Label("Retry Reason")
+    @Description("Why another attempt follows this one, if it does")
+    public String retryReason;
+
+    public static String hashKey(String apiKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            return "unavailable";
+        }
+    }
+}
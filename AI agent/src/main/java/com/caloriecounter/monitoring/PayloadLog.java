@@ -0,0 +1,90 @@
+package com.caloriecounter.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps large request/response bodies (prompts, raw AI responses) out of the log stream.
+ * Bodies are held by reference in a fixed-size ring and can be fetched by trace id on demand;
+ * the log only ever gets the trace id and size, plus the full body for a sampled fraction.
+ */
+@Component
+public class PayloadLog {
+
+    public static final String TRACE_ID = "traceId";
+
+    private static final Logger log = LoggerFactory.getLogger(PayloadLog.class);
+
+    private final double sampleRate;
+    private final AtomicReferenceArray<Payload> ring;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public PayloadLog(@Value("${logging.payload.sample-rate:0.0}") double sampleRate,
+                      @Value("${logging.payload.capacity:256}") int capacity) {
+        this.sampleRate = sampleRate;
+        this.ring = new AtomicReferenceArray<>(Math.max(1, capacity));
+    }
+
+    /**
+     * Records a payload for the current trace.
+     *
+     * @param kind What the payload is, e.g. "prompt" or "ai_response"
+     * @param body The payload text
+     */
+    public void record(String kind, String body) {
+        String traceId = MDC.get(TRACE_ID);
+        int size = body != null ? body.length() : 0;
+        if (ring.length() > 0) {
+            ring.set((int) (sequence.getAndIncrement() % ring.length()), new Payload(traceId, kind, body));
+        }
+
+        if (log.isDebugEnabled()) {
+            if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                log.debug("payload kind={} chars={} body={}", kind, size, body);
+            } else {
+                log.debug("payload kind={} chars={} (fetch by trace id)", kind, size);
+            }
+        }
+    }
+
+    /**
+     * @param traceId The trace id from the log line or X-Trace-Id response header
+     * @return Payloads still held in the ring for that trace, oldest first
+     */
+    public List<Payload> findByTraceId(String traceId) {
+        List<Payload> matches = new ArrayList<>();
+        long end = sequence.get();
+        for (long i = Math.max(0, end - ring.length()); i < end; i++) {
+            Payload payload = ring.get((int) (i % ring.length()));
+            if (payload != null && traceId.equals(payload.getTraceId())) {
+                matches.add(payload);
+            }
+        }
+        return matches;
+    }
+
+    public static final class Payload {
+        private final String traceId;
+        private final String kind;
+        private final String body;
+
+        private Payload(String traceId, String kind, String body) {
+            this.traceId = traceId;
+            this.kind = kind;
+            this.body = body;
+        }
+
+        public String getTraceId() { return traceId; }
+        public String getKind() { return kind; }
+        public String getBody() { return body; }
+    }
+}
@@ -0,0 +1,37 @@
+package com.caloriecounter.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Measures view rendering: the time between the handler returning and request completion.
+ */
+public class RenderTimingInterceptor implements HandlerInterceptor {
+
+    private static final String RENDER_START_ATTRIBUTE = RenderTimingInterceptor.class.getName() + ".start";
+
+    private final AnalysisMetrics metrics;
+
+    public RenderTimingInterceptor(AnalysisMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        // Only requests that render a view - REST responses are written inside the handler
+        if (modelAndView != null && modelAndView.hasView()) {
+            request.setAttribute(RENDER_START_ATTRIBUTE, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(RENDER_START_ATTRIBUTE);
+        if (start instanceof Long) {
+            metrics.recordStage(AnalysisMetrics.RENDER, System.nanoTime() - (Long) start);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.caloriecounter.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-request timing breakdown, carried on the request thread (and handed to fan-out child tasks).
+ * Stages recorded through {@link AnalysisMetrics} are also accumulated here, so one request's
+ * time can be attributed to rate-limit sleep, backoff, network, parsing or rendering.
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+    private long promptTokens;
+    private long responseTokens;
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public static void attach(RequestTiming timing) {
+        if (timing != null) {
+            CURRENT.set(timing);
+        }
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    public synchronized void add(String stage, long durationNanos) {
+        stageNanos.merge(stage, durationNanos, Long::sum);
+    }
+
+    public synchronized void addTokens(int prompt, int response) {
+        promptTokens += prompt;
+        responseTokens += response;
+    }
+
+    public synchronized long getPromptTokens() {
+        return promptTokens;
+    }
+
+    public synchronized long getResponseTokens() {
+        return responseTokens;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return Stage durations in milliseconds, in the order stages were first recorded
+     */
+    public synchronized Map<String, Double> stageMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        stageNanos.forEach((stage, nanos) -> millis.put(stage, nanos / 1_000_000.0));
+        return millis;
+    }
+
+    /**
+     * @return The breakdown formatted as a Server-Timing header value, including a total
+     *         and the Gemini token counts if any call was made
+     */
+    public String toServerTimingHeader() {
+        StringBuilder header = new StringBuilder();
+        stageMillis().forEach((stage, millis) -> appendMetric(header, stage, millis));
+        appendMetric(header, "total", elapsedNanos() / 1_000_000.0);
+        synchronized (this) {
+            if (promptTokens > 0 || responseTokens > 0) {
+                header.append(", gemini_tokens;desc=\"in=").append(promptTokens)
+                        .append(" out=").append(responseTokens).append('"');
+            }
+        }
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, double millis) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(Math.round(millis * 10) / 10.0);
+    }
+}
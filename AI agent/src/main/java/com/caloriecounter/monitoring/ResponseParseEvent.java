@@ -0,0 +1,29 @@
+package com.caloriecounter.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one {@code AIResponseParser.parseAIResponse} invocation.
+ */
+@Name("com.caloriecounter.ResponseParse")
+@Label("AI Response Parse")
+@Category({"Calorie Counter", "AI"})
+@Description("Parsing a raw AI response into a food recommendation")
+@StackTrace(false)
+public class ResponseParseEvent extends Event {
+
+    @Label("Response Length")
+    @Description("Characters in the raw AI response")
+    public int responseLength;
+
+    @Label("Suitability")
+    public String suitability;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
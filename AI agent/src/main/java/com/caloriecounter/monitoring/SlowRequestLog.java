@@ -0,0 +1,86 @@
+package com.caloriecounter.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded ring buffer of requests that exceeded the slow-request threshold.
+ * Oldest entries are overwritten, so memory use is fixed regardless of traffic.
+ */
+@Component
+public class SlowRequestLog {
+
+    private final long thresholdMillis;
+    private final Entry[] ring;
+    private long written;
+
+    public SlowRequestLog(@Value("${timing.slow-request.threshold-ms:2000}") long thresholdMillis,
+                          @Value("${timing.slow-request.capacity:100}") int capacity) {
+        this.thresholdMillis = thresholdMillis;
+        this.ring = new Entry[Math.max(1, capacity)];
+    }
+
+    /**
+     * Records the request if it took at least the configured threshold.
+     *
+     * @return true if the request was recorded as slow
+     */
+    public boolean recordIfSlow(String traceId, String method, String uri, int status, RequestTiming timing) {
+        double totalMillis = timing.elapsedNanos() / 1_000_000.0;
+        if (totalMillis < thresholdMillis) {
+            return false;
+        }
+        Entry entry = new Entry(Instant.now(), traceId, method, uri, status, totalMillis, timing.stageMillis());
+        synchronized (ring) {
+            ring[(int) (written++ % ring.length)] = entry;
+        }
+        return true;
+    }
+
+    /**
+     * @return Recorded slow requests, newest first
+     */
+    public List<Entry> getEntries() {
+        List<Entry> entries = new ArrayList<>();
+        synchronized (ring) {
+            for (long i = written - 1; i >= Math.max(0, written - ring.length); i--) {
+                entries.add(ring[(int) (i % ring.length)]);
+            }
+        }
+        return entries;
+    }
+
+    public static final class Entry {
+        private final Instant timestamp;
+        private final String traceId;
+        private final String method;
+        private final String uri;
+        private final int status;
+        private final double totalMillis;
+        private final Map<String, Double> stageMillis;
+
+        private Entry(Instant timestamp, String traceId, String method, String uri, int status,
+                      double totalMillis, Map<String, Double> stageMillis) {
+            this.timestamp = timestamp;
+            this.traceId = traceId;
+            this.method = method;
+            this.uri = uri;
+            this.status = status;
+            this.totalMillis = totalMillis;
+            this.stageMillis = stageMillis;
+        }
+
+        public Instant getTimestamp() { return timestamp; }
+        public String getTraceId() { return traceId; }
+        public String getMethod() { return method; }
+        public String getUri() { return uri; }
+        public int getStatus() { return status; }
+        public double getTotalMillis() { return totalMillis; }
+        public Map<String, Double> getStageMillis() { return stageMillis; }
+    }
+}
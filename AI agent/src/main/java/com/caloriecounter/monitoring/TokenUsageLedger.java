@@ -0,0 +1,115 @@
+package com.caloriecounter.monitoring;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of Gemini token usage per user and per prompt variant.
+ * Micrometer tags cannot carry user ids, so per-user accounting lives here; per-variant totals
+ * are kept alongside so the variants can be compared on the same traffic.
+ */
+@Component
+public class TokenUsageLedger {
+
+    private final Map<Long, Usage> byUser = new ConcurrentHashMap<>();
+    private final Map<String, Usage> byVariant = new ConcurrentHashMap<>();
+
+    public void record(Long userId, String variant, int promptTokens, int responseTokens,
+                       boolean reported, long latencyNanos) {
+        if (userId != null) {
+            byUser.computeIfAbsent(userId, id -> new Usage()).add(promptTokens, responseTokens, reported, latencyNanos);
+        }
+        byVariant.computeIfAbsent(variant, v -> new Usage()).add(promptTokens, responseTokens, reported, latencyNanos);
+    }
+
+    public Snapshot forUser(Long userId) {
+        Usage usage = byUser.get(userId);
+        return usage != null ? usage.snapshot() : new Usage().snapshot();
+    }
+
+    public Map<Long, Snapshot> byUser() {
+        Map<Long, Snapshot> snapshots = new TreeMap<>();
+        byUser.forEach((userId, usage) -> snapshots.put(userId, usage.snapshot()));
+        return snapshots;
+    }
+
+    public Map<String, Snapshot> byVariant() {
+        Map<String, Snapshot> snapshots = new TreeMap<>();
+        byVariant.forEach((variant, usage) -> snapshots.put(variant, usage.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Relative change of the per-call averages of {@code candidate} against {@code baseline},
+     * e.g. -0.6 for 60% fewer prompt tokens. Empty until both variants have calls.
+     */
+    public Map<String, Double> compare(String baseline, String candidate) {
+        Usage base = byVariant.get(baseline);
+        Usage other = byVariant.get(candidate);
+        Map<String, Double> deltas = new TreeMap<>();
+        if (base == null || other == null) {
+            return deltas;
+        }
+        Snapshot b = base.snapshot();
+        Snapshot c = other.snapshot();
+        deltas.put("promptTokens", relativeChange(b.getAvgPromptTokens(), c.getAvgPromptTokens()));
+        deltas.put("responseTokens", relativeChange(b.getAvgResponseTokens(), c.getAvgResponseTokens()));
+        deltas.put("latencyMillis", relativeChange(b.getAvgLatencyMillis(), c.getAvgLatencyMillis()));
+        return deltas;
+    }
+
+    private static double relativeChange(double from, double to) {
+        return from == 0 ? 0 : Math.round((to - from) / from * 1000) / 1000.0;
+    }
+
+    private static final class Usage {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder reportedCalls = new LongAdder();
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder responseTokens = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+
+        void add(int prompt, int response, boolean reported, long latency) {
+            calls.increment();
+            if (reported) {
+                reportedCalls.increment();
+            }
+            promptTokens.add(prompt);
+            responseTokens.add(response);
+            latencyNanos.add(latency);
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(calls.sum(), reportedCalls.sum(), promptTokens.sum(), responseTokens.sum(), latencyNanos.sum());
+        }
+    }
+
+    public static final class Snapshot {
+        private final long calls;
+        private final long reportedCalls;
+        private final long promptTokens;
+        private final long responseTokens;
+        private final double avgLatencyMillis;
+
+        Snapshot(long calls, long reportedCalls, long promptTokens, long responseTokens, long latencyNanos) {
+            this.calls = calls;
+            this.reportedCalls = reportedCalls;
+            this.promptTokens = promptTokens;
+            this.responseTokens = responseTokens;
+            this.avgLatencyMillis = calls == 0 ? 0 : latencyNanos / (double) calls / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        public long getCalls() { return calls; }
+        public long getReportedCalls() { return reportedCalls; }
+        public long getPromptTokens() { return promptTokens; }
+        public long getResponseTokens() { return responseTokens; }
+        public double getAvgPromptTokens() { return calls == 0 ? 0 : promptTokens / (double) calls; }
+        public double getAvgResponseTokens() { return calls == 0 ? 0 : responseTokens / (double) calls; }
+        public double getAvgLatencyMillis() { return avgLatencyMillis; }
+    }
+}
@@ -20,6 +20,7 @@ public class UserRepository {
             user.setCreatedAt(LocalDateTime.now());
         }
         user.setUpdatedAt(LocalDateTime.now());
+        user.setVersion(user.getVersion() + 1);
         users.put(user.getId(), user);
         return user;
     }
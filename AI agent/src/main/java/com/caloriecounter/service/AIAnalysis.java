@@ -0,0 +1,41 @@
+package com.caloriecounter.service;
+
+/**
+ * Raw AI response for one food, plus the portion it was actually produced for when a cached
+ * analysis of a nearby portion was reused instead of calling the AI for the requested one,
+ * and which service produced it.
+ */
+public class AIAnalysis {
+
+    public static final String GEMINI = "gemini";
+
+    private final String text;
+    private final Double scaledFromPortion;
+    private final String source;
+
+    public AIAnalysis(String text) {
+        this(text, null);
+    }
+
+    public AIAnalysis(String text, Double scaledFromPortion) {
+        this(text, scaledFromPortion, GEMINI);
+    }
+
+    public AIAnalysis(String text, Double scaledFromPortion, String source) {
+        this.text = text;
+        this.scaledFromPortion = scaledFromPortion;
+        this.source = source;
+    }
+
+    public String getText() { return text; }
+
+    /**
+     * @return What produced the response, e.g. {@code gemini} or {@code local} for the rule-based estimate
+     */
+    public String getSource() { return source; }
+
+    /**
+     * @return The portion the reused analysis was produced for, or null if it was produced for the requested portion
+     */
+    public Double getScaledFromPortion() { return scaledFromPortion; }
+}
@@ -2,12 +2,14 @@ package com.caloriecounter.service;
 
 import com.caloriecounter.dto.FoodRecommendation;
 import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import com.caloriecounter.monitoring.ResponseParseEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Utility class for parsing AI responses into structured recommendations.
@@ -15,6 +17,23 @@ import java.util.regex.Pattern;
  */
 @Component
 public class AIResponseParser {
+
+    private static final Logger log = LoggerFactory.getLogger(AIResponseParser.class);
+
+    // Labels the prompt asks the AI to answer with, indexed by the constants below
+    static final String[] LABELS = {"SUITABILITY:", "RECOMMENDED_PORTION:", "BENEFITS:", "WARNINGS:", "REASONING:"};
+    private static final int SUITABILITY = 0;
+    private static final int RECOMMENDED_PORTION = 1;
+    private static final int BENEFITS = 2;
+    private static final int WARNINGS = 3;
+    private static final int REASONING = 4;
+    private static final String[] SUITABILITY_LEVELS = {"EXCELLENT", "GOOD", "MODERATE", "POOR", "AVOID"};
+
+    private final AnalysisMetrics metrics;
+
+    public AIResponseParser(AnalysisMetrics metrics) {
+        this.metrics = metrics;
+    }
     
     /**
      * Parses AI response text into a structured FoodRecommendation object.
@@ -24,23 +43,25 @@ public class AIResponseParser {
      * @param user The user for calculating daily calorie percentage
      */
     public void parseAIResponse(String response, FoodRecommendation recommendation, User user) {
+        long start = System.nanoTime();
+        ResponseParseEvent event = new ResponseParseEvent();
+        event.begin();
         try {
-            System.out.println("DEBUG: Parsing AI response: " + (response != null ? response.substring(0, Math.min(200, response.length())) : "null"));
-            
             if (response == null || response.trim().isEmpty()) {
-                System.out.println("DEBUG: AI response is null or empty");
+                log.debug("AI response is null or empty");
                 throw new RuntimeException("AI service returned empty response");
             }
             
-            // Parse structured response from AI
-            String suitability = extractValue(response, "SUITABILITY:", "EXCELLENT|GOOD|MODERATE|POOR|AVOID");
-            String portionStr = extractValue(response, "RECOMMENDED_PORTION:", "\\d+");
-            String benefits = extractValue(response, "BENEFITS:", ".*?(?=\\n[A-Z_]+:|$)");
-            String warnings = extractValue(response, "WARNINGS:", ".*?(?=\\n[A-Z_]+:|$)");
-            String reasoning = extractValue(response, "REASONING:", ".*?(?=\\n[A-Z_]+:|$)");
+            // Parse structured response from AI in a single pass
+            String[] values = extractValues(response);
+            String suitability = values[SUITABILITY];
+            String portionStr = values[RECOMMENDED_PORTION];
+            String benefits = values[BENEFITS];
+            String warnings = values[WARNINGS];
+            String reasoning = values[REASONING];
             
-            System.out.println("DEBUG: Parsed values - Suitability: " + suitability + ", Portion: " + portionStr + 
-                             ", Benefits: " + benefits + ", Warnings: " + warnings + ", Reasoning: " + reasoning);
+            log.debug("Parsed values - suitability={} portion={} benefitsChars={} warningsChars={} reasoningChars={}",
+                    suitability, portionStr, length(benefits), length(warnings), length(reasoning));
             
             // Set suitability
             setSuitability(recommendation, suitability);
@@ -59,18 +80,75 @@ public class AIResponseParser {
             
             // Calculate percentage of daily calories (estimate from AI response)
             calculateDailyCaloriePercentage(recommendation, user);
+            event.succeeded = true;
             
         } catch (Exception e) {
-            System.err.println("DEBUG: Error parsing AI response: " + e.getMessage());
-            System.err.println("DEBUG: Raw AI response was: " + (response != null ? response : "null"));
+            metrics.recordParseFailure();
+            // Raw response is already captured by trace id - don't dump it into the log
+            log.warn("Error parsing AI response ({} chars): {}", length(response), e.getMessage());
             
             // Don't use fallback - throw error with actual response for debugging
             throw new RuntimeException("Failed to parse AI response. Raw response: " + 
                 (response != null ? response.substring(0, Math.min(500, response.length())) : "null") + 
                 ". Error: " + e.getMessage(), e);
+        } finally {
+            metrics.recordStage(AnalysisMetrics.PARSE, System.nanoTime() - start);
+            if (event.shouldCommit()) {
+                event.responseLength = length(response);
+                event.suitability = recommendation.getSuitabilityScore();
+                event.commit();
+            }
         }
     }
     
+    /**
+     * Whether the response answers every label the prompt asks for, with a known suitability level
+     * and a numeric portion. {@link #parseAIResponse} still accepts responses that fail this and
+     * fills in defaults; this is the stricter measure prompt variants are compared on.
+     *
+     * @param response The raw AI response text
+     * @return true if nothing had to be defaulted
+     */
+    public boolean isWellFormed(String response) {
+        if (response == null || response.isBlank()) {
+            return false;
+        }
+        String[] values = extractValues(response);
+        for (String value : values) {
+            if (value == null || value.isEmpty()) {
+                return false;
+            }
+        }
+        if (!Arrays.asList(SUITABILITY_LEVELS).contains(values[SUITABILITY])) {
+            return false;
+        }
+        try {
+            Double.parseDouble(values[RECOMMENDED_PORTION]);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return The RECOMMENDED_PORTION of the response in grams, or null if it is missing or not a number
+     */
+    Double recommendedPortion(String response) {
+        if (response == null || response.isBlank()) {
+            return null;
+        }
+        String portion = extractValues(response)[RECOMMENDED_PORTION];
+        try {
+            return portion != null ? Double.parseDouble(portion) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int length(String text) {
+        return text != null ? text.length() : 0;
+    }
+
     private void setSuitability(FoodRecommendation recommendation, String suitability) {
         if (suitability != null) {
             recommendation.setSuitabilityScore(suitability);
@@ -121,44 +199,155 @@ public class AIResponseParser {
         recommendation.setPercentageOfDailyCalories(percentageOfDailyCalories);
     }
     
-    private String extractValue(String text, String label, String pattern) {
-        try {
-            if (text == null || text.trim().isEmpty()) {
-                System.err.println("Error extracting " + label + ": Input text is null or empty");
-                return null;
-            }
-            
-            // Look for the label followed by the pattern
-            Pattern regex = Pattern.compile(label + "\\s*(.+?)(?=\\n[A-Z_]+:|$)", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
-            Matcher matcher = regex.matcher(text);
-            
-            if (matcher.find()) {
-                String value = matcher.group(1).trim();
-                
-                // For suitability, extract only the valid values
-                if (label.contains("SUITABILITY")) {
-                    Pattern suitabilityPattern = Pattern.compile("(EXCELLENT|GOOD|MODERATE|POOR|AVOID)", Pattern.CASE_INSENSITIVE);
-                    Matcher suitabilityMatcher = suitabilityPattern.matcher(value);
-                    if (suitabilityMatcher.find()) {
-                        return suitabilityMatcher.group(1).toUpperCase();
+    /**
+     * Finds every label and its value in one linear pass, without regular expressions.
+     * Keeps the semantics of the original per-label regex {@code LABEL:\\s*(.+?)(?=\\n[A-Z_]+:|$)}
+     * (DOTALL, CASE_INSENSITIVE): the first occurrence of each label anywhere in the text, a value
+     * that starts after whitespace and ends before the next line starting with {@code WORD:}
+     * or at the end of the text.
+     *
+     * @return Trimmed values indexed like {@link #LABELS}; null where a label is missing
+     */
+    String[] extractValues(String text) {
+        int length = text.length();
+        int[] labelEnds = new int[LABELS.length];
+        Arrays.fill(labelEnds, -1);
+        int labelsFound = 0;
+        int[] boundaries = new int[8]; // positions of '\n' that start a "WORD:" line
+        int boundaryCount = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                if (startsLabelLine(text, i + 1)) {
+                    if (boundaryCount == boundaries.length) {
+                        boundaries = Arrays.copyOf(boundaries, boundaryCount * 2);
                     }
+                    boundaries[boundaryCount++] = i;
                 }
-                
-                // For portion, extract only numbers
-                if (label.contains("PORTION")) {
-                    Pattern numberPattern = Pattern.compile("(\\d+)");
-                    Matcher numberMatcher = numberPattern.matcher(value);
-                    if (numberMatcher.find()) {
-                        return numberMatcher.group(1);
+            } else if (labelsFound < LABELS.length) {
+                for (int label = 0; label < LABELS.length; label++) {
+                    if (labelEnds[label] < 0 && regionMatchesAscii(text, i, LABELS[label])) {
+                        labelEnds[label] = i + LABELS[label].length();
+                        labelsFound++;
+                        break;
                     }
                 }
-                
-                return value;
             }
-        } catch (Exception e) {
-            System.err.println("Error extracting " + label + ": " + e.getMessage());
         }
-        
+
+        String[] values = new String[LABELS.length];
+        for (int label = 0; label < LABELS.length; label++) {
+            if (labelEnds[label] >= 0) {
+                values[label] = valueAt(text, label, labelEnds[label], boundaries, boundaryCount);
+            }
+        }
+        return values;
+    }
+
+    private String valueAt(String text, int label, int labelEnd, int[] boundaries, int boundaryCount) {
+        int length = text.length();
+        if (labelEnd == length) {
+            return null; // nothing after the label - the regex needs at least one character
+        }
+
+        int start = labelEnd;
+        while (start < length && isRegexWhitespace(text.charAt(start))) {
+            start++;
+        }
+        if (start == length) {
+            return ""; // whitespace only
+        }
+
+        int end = length;
+        int next = Arrays.binarySearch(boundaries, 0, boundaryCount, start + 1);
+        next = next >= 0 ? next : -next - 1;
+        if (next < boundaryCount) {
+            end = boundaries[next];
+        } else if (end - 1 > start && isLineTerminator(text.charAt(end - 1))) {
+            end--; // '$' also matches before a final line terminator
+        }
+
+        // Same bounds String.trim() would produce
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        if (label == SUITABILITY) {
+            String level = findSuitabilityLevel(text, start, end);
+            if (level != null) {
+                return level;
+            }
+        } else if (label == RECOMMENDED_PORTION) {
+            int digits = start;
+            while (digits < end && !isDigit(text.charAt(digits))) {
+                digits++;
+            }
+            if (digits < end) {
+                int digitsEnd = digits;
+                while (digitsEnd < end && isDigit(text.charAt(digitsEnd))) {
+                    digitsEnd++;
+                }
+                return text.substring(digits, digitsEnd);
+            }
+        }
+        return text.substring(start, end);
+    }
+
+    private static String findSuitabilityLevel(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            for (String level : SUITABILITY_LEVELS) {
+                if (i + level.length() <= end && regionMatchesAscii(text, i, level)) {
+                    return level;
+                }
+            }
+        }
         return null;
     }
+
+    private static boolean startsLabelLine(String text, int from) {
+        int i = from;
+        while (i < text.length() && (isAsciiLetter(text.charAt(i)) || text.charAt(i) == '_')) {
+            i++;
+        }
+        return i > from && i < text.length() && text.charAt(i) == ':';
+    }
+
+    /**
+     * ASCII-only case-insensitive match, as the regex did without UNICODE_CASE.
+     */
+    private static boolean regionMatchesAscii(String text, int offset, String upperCaseToken) {
+        if (offset + upperCaseToken.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < upperCaseToken.length(); i++) {
+            char c = text.charAt(offset + i);
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            if (c != upperCaseToken.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
 }
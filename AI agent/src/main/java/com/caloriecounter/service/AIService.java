@@ -17,4 +17,17 @@ public interface AIService {
      * @return AI analysis response as structured text
      */
     String analyzeFood(User user, String foodName, double portionSize);
+
+    /**
+     * Same as {@link #analyzeFood}, additionally telling whether the response was produced for a
+     * different portion and reused for this one.
+     *
+     * @param user The user with health profile information
+     * @param foodName The name of the food to analyze
+     * @param portionSize The portion size in grams
+     * @return AI analysis response with the portion it was produced for
+     */
+    default AIAnalysis analyze(User user, String foodName, double portionSize) {
+        return new AIAnalysis(analyzeFood(user, foodName, portionSize));
+    }
 }
@@ -0,0 +1,280 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.config.AiProviderProperties;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The AI endpoints analyses can be sent to, each with a moving estimate of its latency and error rate
+ * and its remaining per-minute and per-day quota. {@link #candidates(String, long)} orders them by
+ * expected cost for {@link AiProviderRouter}.
+ */
+@Component
+public class AiProviderRegistry {
+
+    public static final String DEFAULT_PROVIDER = "gemini";
+
+    private final List<Provider> providers;
+    private final AiProviderProperties.Routing routing;
+
+    public AiProviderRegistry(AiProviderProperties properties,
+                              @Value("${gemini.api.url}") String geminiUrl,
+                              @Value("${gemini.model}") String geminiModel,
+                              AnalysisMetrics metrics) {
+        this.routing = properties.getRouting();
+        if (routing.getEwmaAlpha() <= 0 || routing.getEwmaAlpha() > 1) {
+            throw new IllegalArgumentException("ai.routing.ewma-alpha must be in (0, 1]");
+        }
+
+        List<Provider> configured = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (AiProviderProperties.Provider p : properties.getProviders()) {
+            if (!p.isEnabled()) {
+                continue;
+            }
+            if (isBlank(p.getName()) || isBlank(p.getUrl())) {
+                throw new IllegalArgumentException("Every ai.providers entry needs a name and a url");
+            }
+            if (!names.add(p.getName())) {
+                throw new IllegalArgumentException("Duplicate AI provider name: " + p.getName());
+            }
+            configured.add(new Provider(p.getName(), p.getType(), p.getUrl().trim(), p.getModel(), p.getApiKey(),
+                    p.getRequestsPerMinute(), p.getRequestsPerDay()));
+        }
+        if (configured.isEmpty()) {
+            configured.add(new Provider(DEFAULT_PROVIDER, AiProviderProperties.Type.GEMINI, geminiUrl, geminiModel,
+                    null, 0, 0));
+        }
+        this.providers = List.copyOf(configured);
+
+        for (Provider provider : providers) {
+            metrics.registerProviderGauges(provider.getName(), provider,
+                    Provider::latencyMs, Provider::errorRate, p -> p.remainingQuotaFraction(System.currentTimeMillis()));
+        }
+    }
+
+    public List<Provider> getProviders() {
+        return providers;
+    }
+
+    public AiProviderProperties.Routing getRouting() {
+        return routing;
+    }
+
+    /**
+     * Providers that can take a request now - not cooling down, quota left, and an API key available
+     * (their own, or the user's for Gemini) - cheapest expected cost first.
+     */
+    public List<Provider> candidates(String userApiKey, long nowMillis) {
+        boolean userHasKey = !isBlank(userApiKey);
+        List<Provider> usable = new ArrayList<>();
+        for (Provider provider : providers) {
+            if (provider.hasCredentials(userHasKey) && provider.isAvailable(nowMillis)) {
+                usable.add(provider);
+            }
+        }
+        // Cost is computed once per provider so concurrent updates cannot break the comparator
+        Map<Provider, Double> cost = new LinkedHashMap<>();
+        for (Provider provider : usable) {
+            cost.put(provider, provider.expectedCostMs(routing.getErrorPenaltyMs(), nowMillis));
+        }
+        usable.sort(Comparator.comparingDouble(cost::get));
+        return usable;
+    }
+
+    /**
+     * True if some provider can only be used with the requesting user's own Gemini key.
+     */
+    public boolean needsUserKey() {
+        return providers.stream().anyMatch(p -> !p.hasCredentials(false));
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Provider provider : providers) {
+            result.add(provider.snapshot(routing.getErrorPenaltyMs(), now));
+        }
+        return result;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * One endpoint and its routing state. Quota is counted in fixed UTC minute and day windows.
+     */
+    public static final class Provider {
+
+        private static final long MINUTE_MS = 60_000;
+        private static final long DAY_MS = 86_400_000;
+
+        private final String name;
+        private final AiProviderProperties.Type type;
+        private final String url;
+        private final String model;
+        private final String apiKey;
+        private final int requestsPerMinute;
+        private final int requestsPerDay;
+
+        // guarded by this
+        private double ewmaLatencyMs = -1; // no sample yet
+        private double ewmaErrorRate;
+        private long calls;
+        private long failures;
+        private long minuteWindow;
+        private int minuteCount;
+        private long dayWindow;
+        private int dayCount;
+        private long cooldownUntil;
+
+        Provider(String name, AiProviderProperties.Type type, String url, String model, String apiKey,
+                 int requestsPerMinute, int requestsPerDay) {
+            this.name = name;
+            this.type = type;
+            this.url = url;
+            this.model = model;
+            this.apiKey = isBlank(apiKey) ? null : apiKey.trim();
+            this.requestsPerMinute = Math.max(0, requestsPerMinute);
+            this.requestsPerDay = Math.max(0, requestsPerDay);
+        }
+
+        public String getName() { return name; }
+        public AiProviderProperties.Type getType() { return type; }
+        public String getUrl() { return url; }
+        public String getModel() { return model; }
+
+        /**
+         * The key to send: the provider's own, otherwise the user's for Gemini. A user's Gemini key is never
+         * sent to an OpenAI-compatible server; without a key of its own the request goes unauthenticated.
+         */
+        public String apiKeyFor(String userApiKey) {
+            if (apiKey != null) {
+                return apiKey;
+            }
+            return type == AiProviderProperties.Type.GEMINI ? userApiKey : null;
+        }
+
+        boolean hasOwnKey() {
+            return apiKey != null;
+        }
+
+        /**
+         * True for a Gemini provider without a key of its own, which sends each user's key.
+         */
+        boolean usesUserKey() {
+            return apiKey == null && type == AiProviderProperties.Type.GEMINI;
+        }
+
+        boolean hasCredentials(boolean userHasKey) {
+            // OpenAI-compatible local servers usually need no key; Gemini always does
+            return apiKey != null || userHasKey || type == AiProviderProperties.Type.OPENAI;
+        }
+
+        synchronized boolean isAvailable(long now) {
+            rollWindows(now);
+            return now >= cooldownUntil
+                    && (requestsPerMinute == 0 || minuteCount < requestsPerMinute)
+                    && (requestsPerDay == 0 || dayCount < requestsPerDay);
+        }
+
+        /**
+         * Counts one request against the quota, unless it is used up or the provider is cooling down.
+         */
+        synchronized boolean tryAcquire(long now) {
+            if (!isAvailable(now)) {
+                return false;
+            }
+            minuteCount++;
+            dayCount++;
+            return true;
+        }
+
+        synchronized void recordSuccess(double latencyMs, double alpha) {
+            calls++;
+            ewmaLatencyMs = ewmaLatencyMs < 0 ? latencyMs : alpha * latencyMs + (1 - alpha) * ewmaLatencyMs;
+            ewmaErrorRate = (1 - alpha) * ewmaErrorRate;
+        }
+
+        /**
+         * @param cooldownMs Time to skip the provider, 0 if the failure says nothing about its capacity
+         */
+        synchronized void recordFailure(double alpha, long cooldownMs, long now) {
+            calls++;
+            failures++;
+            ewmaErrorRate = alpha + (1 - alpha) * ewmaErrorRate;
+            if (cooldownMs > 0) {
+                cooldownUntil = Math.max(cooldownUntil, now + cooldownMs);
+            }
+        }
+
+        /**
+         * Expected latency plus the error rate times the cost of a failed call, inflated as the quota runs out.
+         * A provider without latency samples yet costs nothing, so it gets tried.
+         */
+        synchronized double expectedCostMs(long errorPenaltyMs, long now) {
+            double latency = Math.max(0, ewmaLatencyMs);
+            return (latency + ewmaErrorRate * errorPenaltyMs) / Math.max(0.1, remainingQuotaFraction(now));
+        }
+
+        synchronized double remainingQuotaFraction(long now) {
+            rollWindows(now);
+            double fraction = 1.0;
+            if (requestsPerMinute > 0) {
+                fraction = Math.min(fraction, 1.0 - (double) minuteCount / requestsPerMinute);
+            }
+            if (requestsPerDay > 0) {
+                fraction = Math.min(fraction, 1.0 - (double) dayCount / requestsPerDay);
+            }
+            return Math.max(0, fraction);
+        }
+
+        synchronized double latencyMs() {
+            return Math.max(0, ewmaLatencyMs);
+        }
+
+        synchronized double errorRate() {
+            return ewmaErrorRate;
+        }
+
+        synchronized Map<String, Object> snapshot(long errorPenaltyMs, long now) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("name", name);
+            result.put("type", type.name().toLowerCase(Locale.ROOT));
+            result.put("url", url);
+            result.put("model", model);
+            result.put("ewmaLatencyMs", Math.round(latencyMs()));
+            result.put("ewmaErrorRate", Math.round(ewmaErrorRate * 1000) / 1000.0);
+            result.put("calls", calls);
+            result.put("failures", failures);
+            result.put("remainingQuota", Math.round(remainingQuotaFraction(now) * 1000) / 1000.0);
+            result.put("coolingDownMs", Math.max(0, cooldownUntil - now));
+            result.put("expectedCostMs", Math.round(expectedCostMs(errorPenaltyMs, now)));
+            return result;
+        }
+
+        private void rollWindows(long now) {
+            long minute = now / MINUTE_MS;
+            if (minute != minuteWindow) {
+                minuteWindow = minute;
+                minuteCount = 0;
+            }
+            long day = now / DAY_MS;
+            if (day != dayWindow) {
+                dayWindow = day;
+                dayCount = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.config.AiProviderProperties;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Sends a prompt to the cheapest available provider from {@link AiProviderRegistry} and fails over
+ * to the next one when it fails. A rate-limited or out-of-quota provider is skipped for
+ * {@code ai.routing.cooldown-ms}. Failures of a provider that runs on the requesting user's key are
+ * not held against it: that limit or error is the user's, and other users' keys still work.
+ * With a single provider this behaves like a direct {@link GeminiService} call, rate-limit retries included.
+ */
+@Service
+public class AiProviderRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(AiProviderRouter.class);
+
+    private static final int SINGLE_PROVIDER_ATTEMPTS = 3;
+
+    enum Outcome { FAILURE, RATE_LIMITED, REJECTED_KEY }
+
+    private final AiProviderRegistry registry;
+    private final GeminiService geminiService;
+    private final OpenAICompatibleService openAIService;
+    private final AnalysisMetrics metrics;
+
+    public AiProviderRouter(AiProviderRegistry registry, GeminiService geminiService,
+                            OpenAICompatibleService openAIService, AnalysisMetrics metrics) {
+        this.registry = registry;
+        this.geminiService = geminiService;
+        this.openAIService = openAIService;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param prompt The formatted prompt
+     * @param userApiKey The requesting user's Gemini key, used by Gemini providers without a key of their own
+     * @return The response of the first provider that answered
+     */
+    public GeminiCallResult call(String prompt, String userApiKey) {
+        AiProviderProperties.Routing routing = registry.getRouting();
+        List<AiProviderRegistry.Provider> candidates = registry.candidates(userApiKey, System.currentTimeMillis());
+        if (candidates.isEmpty()) {
+            if ((userApiKey == null || userApiKey.trim().isEmpty()) && registry.needsUserKey()) {
+                metrics.recordApiKeyFailure("missing");
+                throw new RuntimeException("Gemini API key not provided. Please enter your API key during registration.");
+            }
+            throw new RuntimeException("No AI provider available: all are rate limited or out of quota. Please wait and try again.");
+        }
+
+        int limit = Math.min(candidates.size(), Math.max(1, routing.getMaxProvidersPerRequest()));
+        AiProviderRegistry.Provider previous = null;
+        RuntimeException lastFailure = null;
+        for (int i = 0; i < limit; i++) {
+            AiProviderRegistry.Provider provider = candidates.get(i);
+            if (!provider.tryAcquire(System.currentTimeMillis())) {
+                continue; // quota taken by concurrent requests since the candidates were ranked
+            }
+            if (previous != null) {
+                metrics.recordFailover(previous.getName(), provider.getName());
+            }
+            previous = provider;
+
+            // Back off and retry within the provider only when there is nowhere left to fail over to
+            int attempts = i == limit - 1 ? SINGLE_PROVIDER_ATTEMPTS : 1;
+            long start = System.nanoTime();
+            try {
+                GeminiCallResult result = invoke(provider, prompt, userApiKey, attempts);
+                long elapsed = System.nanoTime() - start;
+                provider.recordSuccess(elapsed / 1_000_000.0, routing.getEwmaAlpha());
+                metrics.recordProviderCall(provider.getName(), "success", elapsed);
+                return result;
+            } catch (RuntimeException e) {
+                Outcome outcome = classify(e);
+                if (!provider.usesUserKey()) {
+                    // A user's rate limit or bad key says nothing about the provider's health; shared credentials do
+                    provider.recordFailure(routing.getEwmaAlpha(),
+                            outcome == Outcome.RATE_LIMITED ? routing.getCooldownMs() : 0, System.currentTimeMillis());
+                }
+                metrics.recordProviderCall(provider.getName(), outcome.name().toLowerCase(Locale.ROOT),
+                        System.nanoTime() - start);
+                log.warn("AI provider {} failed ({}): {}", provider.getName(), outcome, e.getMessage());
+                lastFailure = e;
+            }
+        }
+
+        if (lastFailure != null) {
+            throw lastFailure;
+        }
+        throw new RuntimeException("No AI provider available: all are rate limited or out of quota. Please wait and try again.");
+    }
+
+    private GeminiCallResult invoke(AiProviderRegistry.Provider provider, String prompt, String userApiKey, int attempts) {
+        String apiKey = provider.apiKeyFor(userApiKey);
+        if (provider.getType() == AiProviderProperties.Type.OPENAI) {
+            return openAIService.call(provider.getUrl(), provider.getModel(), prompt, apiKey);
+        }
+        return geminiService.callGemini(provider.getUrl(), prompt, apiKey, attempts);
+    }
+
+    static Outcome classify(RuntimeException e) {
+        String message = e.getMessage() != null ? e.getMessage() : "";
+        if (message.contains("rate limit") || message.contains("quota")) {
+            return Outcome.RATE_LIMITED;
+        }
+        if (message.contains("API key")) {
+            return Outcome.REJECTED_KEY;
+        }
+        return Outcome.FAILURE;
+    }
+}
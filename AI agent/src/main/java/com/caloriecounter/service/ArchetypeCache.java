@@ -0,0 +1,475 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Shares raw AI analyses between users whose profiles fall into the same archetype:
+ * age band, BMR band, activity level and normalized health-condition set, for the same food,
+ * portion and prompt variant. Only the response text is shared - it is re-parsed for each user,
+ * so per-user figures such as the share of daily calories stay exact.
+ * Users with a bypass condition or without an API key never read or write shared entries.
+ * A response is only shared if it is well formed and does not mention the requesting user's name.
+ * Demand per key is counted so {@link PrecomputeService} can fill popular entries ahead of time.
+ * Without an entry for the exact portion, the nearest cached portion of the same food and archetype
+ * is reused if the two are within {@code analysis.portion-scaling.max-ratio} of each other and on the
+ * same side of the response's RECOMMENDED_PORTION, so the verdict does not hinge on the difference.
+ * Mentions of the cached portion in the text are rewritten to the requested one, and the
+ * portion-dependent figures are recomputed for the requested portion when the response is parsed.
+ */
+@Component
+public class ArchetypeCache {
+
+    private final boolean enabled;
+    private final int ageBandYears;
+    private final int bmrBandKcal;
+    private final Set<String> bypassConditions;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final int maxTrackedKeys;
+    private final boolean portionScaling;
+    private final double maxPortionRatio;
+    private final AnalysisMetrics metrics;
+    private final AIResponseParser responseParser;
+
+    // Insertion ordered, so the eldest entry is always the next one to expire
+    private final LinkedHashMap<String, Entry> entries;
+    // Cached portions per food and archetype; guarded by entries, like the map it indexes
+    private final Map<String, NavigableSet<Double>> portions = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder scaledHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+
+    private final Map<String, Demand> demand = new ConcurrentHashMap<>();
+    private final AtomicLong lastLookupNanos = new AtomicLong(System.nanoTime() - Long.MAX_VALUE / 2);
+
+    public ArchetypeCache(@Value("${analysis.archetype-cache.enabled:true}") boolean enabled,
+                          @Value("${analysis.archetype-cache.age-band-years:10}") int ageBandYears,
+                          @Value("${analysis.archetype-cache.bmr-band-kcal:100}") int bmrBandKcal,
+                          @Value("${analysis.archetype-cache.bypass-conditions:}") List<String> bypassConditions,
+                          @Value("${analysis.archetype-cache.ttl-ms:3600000}") long ttlMillis,
+                          @Value("${analysis.archetype-cache.max-entries:10000}") int maxEntries,
+                          @Value("${analysis.archetype-cache.max-tracked-keys:5000}") int maxTrackedKeys,
+                          @Value("${analysis.portion-scaling.enabled:true}") boolean portionScaling,
+                          @Value("${analysis.portion-scaling.max-ratio:1.5}") double maxPortionRatio,
+                          AnalysisMetrics metrics, AIResponseParser responseParser) {
+        this.enabled = enabled;
+        this.ageBandYears = Math.max(1, ageBandYears);
+        this.bmrBandKcal = Math.max(1, bmrBandKcal);
+        this.bypassConditions = normalizeConditions(bypassConditions);
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxEntries = maxEntries;
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.portionScaling = portionScaling;
+        this.maxPortionRatio = Math.max(1.0, maxPortionRatio);
+        this.metrics = metrics;
+        this.responseParser = responseParser;
+        this.entries = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > ArchetypeCache.this.maxEntries) {
+                    unindex(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the shared analysis for the user's archetype, or runs {@code analysis} and shares its result.
+     *
+     * @param user The requesting user
+     * @param foodName The food to analyze
+     * @param portionSize The portion size in grams
+     * @param variant The prompt variant the analysis is produced with
+     * @param analysis Produces the raw AI response on a miss
+     * @return The raw AI response, with the portion it was produced for if that differs
+     */
+    public AIAnalysis getOrCompute(User user, String foodName, double portionSize, PromptVariant variant,
+                                   Supplier<String> analysis) {
+        String baseKey = baseKeyFor(user, foodName, variant);
+        if (baseKey == null) {
+            bypasses.increment();
+            metrics.recordCacheLookup("archetype", "bypass");
+            return new AIAnalysis(analysis.get());
+        }
+
+        long now = System.nanoTime();
+        lastLookupNanos.set(now);
+        recordDemand(baseKey, portionSize, user, foodName, variant);
+        synchronized (entries) {
+            evictExpired(now);
+            Entry entry = entries.get(key(baseKey, portionSize));
+            if (entry != null && entry.isLive(now)) {
+                hits.increment();
+                metrics.recordCacheLookup("archetype", "hit");
+                return new AIAnalysis(entry.response);
+            }
+            Entry nearest = portionScaling ? nearestPortion(baseKey, portionSize, now) : null;
+            if (nearest != null) {
+                scaledHits.increment();
+                metrics.recordCacheLookup("archetype", "scaled");
+                return new AIAnalysis(withPortion(nearest.response, nearest.portion, portionSize), nearest.portion);
+            }
+        }
+
+        misses.increment();
+        metrics.recordCacheLookup("archetype", "miss");
+        String response = analysis.get();
+        if (responseParser.isWellFormed(response) && !mentionsUser(response, user)) {
+            store(baseKey, portionSize, response, now + ttlNanos);
+        }
+        return new AIAnalysis(response);
+    }
+
+    /**
+     * Stores a response produced ahead of demand, e.g. by the off-peak pre-computation.
+     *
+     * @param demand The key the response was produced for
+     * @param response The raw AI response
+     * @param ttlMillis How long the entry stays valid
+     * @return true if the response was well formed and stored
+     */
+    public boolean prefill(Demand demand, String response, long ttlMillis) {
+        if (!responseParser.isWellFormed(response)) {
+            return false;
+        }
+        store(demand.baseKey, demand.portionSize, response, System.nanoTime() + ttlMillis * 1_000_000L);
+        return true;
+    }
+
+    /**
+     * Most requested keys that are not cached, or whose entry expires within {@code refreshWithinMillis}.
+     *
+     * @param limit Maximum number of candidates
+     * @param minRequests Keys requested fewer times are ignored
+     * @param refreshWithinMillis Entries expiring sooner than this are candidates again
+     * @return Candidates, most requested first
+     */
+    public List<Demand> precomputeCandidates(int limit, long minRequests, long refreshWithinMillis) {
+        long horizon = System.nanoTime() + refreshWithinMillis * 1_000_000L;
+        List<Demand> candidates = new ArrayList<>();
+        for (Demand d : demand.values()) {
+            if (d.getRequests() < minRequests) {
+                continue;
+            }
+            synchronized (entries) {
+                Entry entry = entries.get(d.getKey());
+                if (entry != null && entry.expiresAtNanos - horizon > 0) {
+                    continue;
+                }
+            }
+            candidates.add(d);
+        }
+        candidates.sort(Comparator.comparingLong(Demand::getRequests).reversed());
+        return candidates.size() > limit ? new ArrayList<>(candidates.subList(0, limit)) : candidates;
+    }
+
+    /**
+     * Halves every demand count and forgets keys that drop to zero, so popularity follows recent traffic.
+     */
+    public void decayDemand() {
+        demand.values().removeIf(d -> d.decay() == 0);
+    }
+
+    /**
+     * @return true if a live (non-bypassed) lookup happened within the given time
+     */
+    public boolean hadLookupWithin(long millis) {
+        return System.nanoTime() - lastLookupNanos.get() < millis * 1_000_000L;
+    }
+
+    private void recordDemand(String baseKey, double portionSize, User user, String foodName, PromptVariant variant) {
+        String key = key(baseKey, portionSize);
+        Demand d = demand.get(key);
+        if (d == null) {
+            if (demand.size() >= maxTrackedKeys) {
+                return;
+            }
+            d = demand.computeIfAbsent(key, k -> new Demand(baseKey, portionSize, representative(user), foodName.trim(), variant));
+        }
+        d.requests.increment();
+    }
+
+    /**
+     * The live entry whose portion is closest, by ratio, to the requested one and within the limit.
+     * Entries whose portion is on the other side of their recommended portion than the requested one
+     * are skipped: the verdict of such a response depends on the portion that differs.
+     * Must be called holding the entries lock.
+     */
+    private Entry nearestPortion(String baseKey, double portionSize, long now) {
+        NavigableSet<Double> cached = portions.get(baseKey);
+        if (cached == null || portionSize <= 0) {
+            return null;
+        }
+        Entry best = null;
+        double bestRatio = maxPortionRatio;
+        for (Double candidate : new Double[]{cached.floor(portionSize), cached.ceiling(portionSize)}) {
+            if (candidate == null || candidate <= 0) {
+                continue;
+            }
+            double ratio = Math.max(candidate / portionSize, portionSize / candidate);
+            Entry entry = entries.get(key(baseKey, candidate));
+            if (ratio <= bestRatio && entry != null && entry.isLive(now) && entry.coversPortion(portionSize)) {
+                best = entry;
+                bestRatio = ratio;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Profile copy that stands in for the archetype: same figures, no identity or credentials.
+     */
+    private static User representative(User user) {
+        User copy = new User();
+        copy.setName("Member");
+        copy.setAge(user.getAge());
+        copy.setGender(user.getGender());
+        copy.setWeight(user.getWeight());
+        copy.setHeight(user.getHeight());
+        copy.setActivityLevel(user.getActivityLevel());
+        copy.setHealthConditions(user.getHealthConditions() != null ? List.copyOf(user.getHealthConditions()) : List.of());
+        return copy;
+    }
+
+    private void store(String baseKey, double portionSize, String response, long expiresAtNanos) {
+        String key = key(baseKey, portionSize);
+        synchronized (entries) {
+            entries.remove(key); // re-insert at the tail so the eldest entry stays first
+            entries.put(key, new Entry(baseKey, portionSize, expiresAtNanos, response, responseParser.recommendedPortion(response)));
+            portions.computeIfAbsent(baseKey, k -> new TreeSet<>()).add(portionSize);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        NavigableSet<Double> cached = portions.get(entry.baseKey);
+        if (cached != null) {
+            cached.remove(entry.portion);
+            if (cached.isEmpty()) {
+                portions.remove(entry.baseKey);
+            }
+        }
+    }
+
+    /**
+     * Rewrites mentions of the portion a response was produced for, such as "100g", "100 g" or
+     * "100 grams", to the requested portion.
+     */
+    static String withPortion(String response, double fromPortion, double toPortion) {
+        Pattern mention = Pattern.compile("(?<![\\d.])" + Pattern.quote(formatPortion(fromPortion))
+                + "(?:\\.0+)?(?=\\s?(?:g|grams?)\\b)", Pattern.CASE_INSENSITIVE);
+        return mention.matcher(response).replaceAll(Matcher.quoteReplacement(formatPortion(toPortion)));
+    }
+
+    private static String formatPortion(double portion) {
+        return BigDecimal.valueOf(portion).stripTrailingZeros().toPlainString();
+    }
+
+    String keyFor(User user, String foodName, double portionSize, PromptVariant variant) {
+        String baseKey = baseKeyFor(user, foodName, variant);
+        return baseKey != null ? key(baseKey, portionSize) : null;
+    }
+
+    private static String key(String baseKey, double portionSize) {
+        return baseKey + "|p" + portionSize;
+    }
+
+    /**
+     * @return The archetype key for this food without the portion, or null if this user must not share analyses
+     */
+    private String baseKeyFor(User user, String foodName, PromptVariant variant) {
+        if (!enabled || user.getGeminiApiKey() == null || user.getGeminiApiKey().isBlank()
+                || user.getAge() == null || user.getActivityLevel() == null
+                || user.getWeight() == null || user.getHeight() == null) {
+            return null;
+        }
+        Set<String> conditions = normalizeConditions(user.getHealthConditions());
+        for (String condition : conditions) {
+            if (bypassConditions.contains(condition)) {
+                return null;
+            }
+        }
+        return variant.tag()
+                + '|' + normalizeFood(foodName)
+                + "|a" + user.getAge() / ageBandYears
+                + "|b" + (long) Math.floor(user.calculateBMR() / bmrBandKcal)
+                + '|' + user.getActivityLevel()
+                + '|' + String.join(",", conditions);
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long scaledCount = scaledHits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + scaledCount + missCount;
+        return Map.of(
+                "enabled", enabled,
+                "entries", size(),
+                "hits", hitCount,
+                "scaledHits", scaledCount,
+                "misses", missCount,
+                "bypasses", bypasses.sum(),
+                "trackedKeys", demand.size(),
+                "hitRatio", lookups == 0 ? 0.0 : Math.round((hitCount + scaledCount) * 10_000.0 / lookups) / 10_000.0);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    static String normalizeFood(String foodName) {
+        return foodName == null ? "" : foodName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Lowercased, whitespace-collapsed, de-duplicated and sorted; blank and "none" entries dropped.
+     */
+    static Set<String> normalizeConditions(List<String> conditions) {
+        if (conditions == null) {
+            return new TreeSet<>();
+        }
+        return conditions.stream()
+                .map(ArchetypeCache::normalizeFood)
+                .filter(condition -> !condition.isEmpty() && !"none".equals(condition))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * True if the response contains, as a whole word, the user's full name (two or more letters)
+     * or any part of it of three or more letters.
+     */
+    static boolean mentionsUser(String response, User user) {
+        String name = user.getName();
+        if (name == null || name.isBlank()) {
+            return false;
+        }
+        String text = response.toLowerCase(Locale.ROOT);
+        String fullName = name.trim().toLowerCase(Locale.ROOT);
+        if (fullName.length() >= 2 && containsWord(text, fullName)) {
+            return true;
+        }
+        return Arrays.stream(fullName.split("[^\\p{L}]+"))
+                .filter(part -> part.length() >= 3)
+                .anyMatch(part -> containsWord(text, part));
+    }
+
+    private static boolean containsWord(String text, String word) {
+        int from = 0;
+        int index;
+        while ((index = text.indexOf(word, from)) >= 0) {
+            int end = index + word.length();
+            boolean startsWord = index == 0 || !Character.isLetter(text.charAt(index - 1));
+            boolean endsWord = end == text.length() || !Character.isLetter(text.charAt(end));
+            if (startsWord && endsWord) {
+                return true;
+            }
+            from = index + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Entries can have different lifetimes (pre-computed ones live longer), so this stops at the
+     * first live entry; expired entries behind it are skipped on lookup and dropped later.
+     */
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.isLive(now)) {
+                break;
+            }
+            iterator.remove();
+            unindex(entry);
+        }
+    }
+
+    private static final class Entry {
+        private final String baseKey;
+        private final double portion;
+        private final long expiresAtNanos;
+        private final String response;
+        private final Double recommendedPortion;
+
+        private Entry(String baseKey, double portion, long expiresAtNanos, String response, Double recommendedPortion) {
+            this.baseKey = baseKey;
+            this.portion = portion;
+            this.expiresAtNanos = expiresAtNanos;
+            this.response = response;
+            this.recommendedPortion = recommendedPortion;
+        }
+
+        private boolean isLive(long now) {
+            return expiresAtNanos - now > 0;
+        }
+
+        /**
+         * True if the requested portion is within the recommended portion exactly when this entry's is.
+         */
+        private boolean coversPortion(double portionSize) {
+            return recommendedPortion != null && (portion <= recommendedPortion) == (portionSize <= recommendedPortion);
+        }
+    }
+
+    /**
+     * How often one archetype key was looked up, with what is needed to compute it without a live request.
+     */
+    public static final class Demand {
+        private final String baseKey;
+        private final double portionSize;
+        private final User representative;
+        private final String foodName;
+        private final PromptVariant variant;
+        private final LongAdder requests = new LongAdder();
+
+        private Demand(String baseKey, double portionSize, User representative, String foodName, PromptVariant variant) {
+            this.baseKey = baseKey;
+            this.portionSize = portionSize;
+            this.representative = representative;
+            this.foodName = foodName;
+            this.variant = variant;
+        }
+
+        private synchronized long decay() {
+            long halved = requests.sumThenReset() / 2;
+            requests.add(halved);
+            return halved;
+        }
+
+        public String getKey() { return key(baseKey, portionSize); }
+        public User getRepresentative() { return representative; }
+        public String getFoodName() { return foodName; }
+        public double getPortionSize() { return portionSize; }
+        public PromptVariant getVariant() { return variant; }
+        public long getRequests() { return requests.sum(); }
+    }
+}
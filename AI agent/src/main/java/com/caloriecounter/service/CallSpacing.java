@@ -0,0 +1,37 @@
+package com.caloriecounter.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spaces outgoing calls: on average one per interval, with up to {@code burst} calls sent back to back.
+ * Each caller reserves its own send time with a CAS on the next free slot (generic cell rate algorithm),
+ * so concurrent callers get distinct slots instead of all passing the check, or all sleeping the same
+ * amount and then firing together.
+ */
+final class CallSpacing {
+
+    // Theoretical send time of the next call if calls were spaced exactly one interval apart
+    private final AtomicLong nextSlotNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * Reserves a send slot.
+     *
+     * @param intervalNanos Average time between calls; 0 or less disables spacing
+     * @param burst Calls that may be sent back to back before the spacing applies
+     * @param now Current {@link System#nanoTime()}
+     * @return Nanoseconds the caller must wait before sending, 0 to send now
+     */
+    long reserve(long intervalNanos, int burst, long now) {
+        if (intervalNanos <= 0) {
+            return 0;
+        }
+        long toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        while (true) {
+            long current = nextSlotNanos.get();
+            long base = current - now > 0 ? current : now;
+            if (nextSlotNanos.compareAndSet(current, base + intervalNanos)) {
+                return Math.max(0, current - toleranceNanos - now);
+            }
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.caloriecounter.service;
 
 import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import com.caloriecounter.monitoring.TokenUsageLedger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -11,24 +15,70 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class GeminiAIService implements AIService {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiAIService.class);
     
-    private final GeminiService geminiService;
+    private final AiProviderRouter providerRouter;
     private final PromptBuilder promptBuilder;
+    private final AnalysisMetrics metrics;
+    private final TokenUsageLedger tokenUsage;
+    private final PromptExperiment promptExperiment;
+    private final AIResponseParser responseParser;
+    private final ArchetypeCache archetypeCache;
+    private final UserAnalysisCache userAnalysisCache;
     
     @Autowired
-    public GeminiAIService(GeminiService geminiService, PromptBuilder promptBuilder) {
-        this.geminiService = geminiService;
+    public GeminiAIService(AiProviderRouter providerRouter, PromptBuilder promptBuilder, AnalysisMetrics metrics,
+                           TokenUsageLedger tokenUsage, PromptExperiment promptExperiment, AIResponseParser responseParser,
+                           ArchetypeCache archetypeCache, UserAnalysisCache userAnalysisCache) {
+        this.providerRouter = providerRouter;
         this.promptBuilder = promptBuilder;
+        this.metrics = metrics;
+        this.tokenUsage = tokenUsage;
+        this.promptExperiment = promptExperiment;
+        this.responseParser = responseParser;
+        this.archetypeCache = archetypeCache;
+        this.userAnalysisCache = userAnalysisCache;
     }
     
     @Override
     public String analyzeFood(User user, String foodName, double portionSize) {
-        System.out.println("DEBUG: Using Gemini AI for food analysis: " + foodName);
+        return analyze(user, foodName, portionSize).getText();
+    }
+
+    @Override
+    public AIAnalysis analyze(User user, String foodName, double portionSize) {
+        log.debug("Using Gemini AI for food analysis: {}", foodName);
+
+        // A user's own earlier analysis is reused while the profile attributes it depended on are unchanged;
+        // otherwise users with the same profile archetype share one analysis of the same food and (nearby) portion
+        PromptVariant promptVariant = promptExperiment.assign(user.getId());
+        return userAnalysisCache.getOrCompute(user, foodName, portionSize, promptVariant,
+                () -> archetypeCache.getOrCompute(user, foodName, portionSize, promptVariant,
+                        () -> callGemini(user, foodName, portionSize, promptVariant)));
+    }
+
+    private String callGemini(User user, String foodName, double portionSize, PromptVariant promptVariant) {
+        // Build the prompt using the dedicated prompt builder, in the template this user is assigned to
+        String prompt = metrics.timeStage(AnalysisMetrics.PROMPT_BUILD,
+                () -> promptBuilder.buildNutritionPrompt(user, foodName, portionSize, promptVariant));
 
-        // Build the prompt using the dedicated prompt builder
-        String prompt = promptBuilder.buildNutritionPrompt(user, foodName, portionSize);
+        // Delegate to the provider router: the cheapest available endpoint, with the user's key for Gemini
+        GeminiCallResult result;
+        try {
+            result = providerRouter.call(prompt, user.getGeminiApiKey());
+        } catch (RuntimeException e) {
+            promptExperiment.recordFailure(promptVariant);
+            throw e;
+        }
+        promptExperiment.recordCall(promptVariant, result);
+        promptExperiment.recordParse(promptVariant, responseParser.isWellFormed(result.getText()));
 
-        // Delegate to Gemini service for API call with user's API key
-        return geminiService.callGeminiAPI(prompt, user.getGeminiApiKey());
+        String variant = promptVariant.tag();
+        metrics.recordGeminiCall(variant, result.getPromptTokens(), result.getResponseTokens(),
+                result.isReported(), result.getLatencyNanos());
+        tokenUsage.record(user.getId(), variant, result.getPromptTokens(), result.getResponseTokens(),
+                result.isReported(), result.getLatencyNanos());
+        return result.getText();
     }
 }
@@ -0,0 +1,37 @@
+package com.caloriecounter.service;
+
+/**
+ * Text of a successful Gemini call together with its token counts, round-trip latency
+ * and the number of attempts it took.
+ * Token counts come from the response's {@code usageMetadata} when present ({@link #isReported()}),
+ * otherwise from {@link TokenEstimator}.
+ */
+public class GeminiCallResult {
+
+    private final String text;
+    private final int promptTokens;
+    private final int responseTokens;
+    private final int estimatedPromptTokens;
+    private final boolean reported;
+    private final long latencyNanos;
+    private final int attempts;
+
+    public GeminiCallResult(String text, int promptTokens, int responseTokens, int estimatedPromptTokens,
+                            boolean reported, long latencyNanos, int attempts) {
+        this.text = text;
+        this.promptTokens = promptTokens;
+        this.responseTokens = responseTokens;
+        this.estimatedPromptTokens = estimatedPromptTokens;
+        this.reported = reported;
+        this.latencyNanos = latencyNanos;
+        this.attempts = attempts;
+    }
+
+    public String getText() { return text; }
+    public int getPromptTokens() { return promptTokens; }
+    public int getResponseTokens() { return responseTokens; }
+    public int getEstimatedPromptTokens() { return estimatedPromptTokens; }
+    public boolean isReported() { return reported; }
+    public long getLatencyNanos() { return latencyNanos; }
+    public int getAttempts() { return attempts; }
+}
@@ -1,23 +1,45 @@
 package com.caloriecounter.service;
 
 import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import com.caloriecounter.monitoring.GeminiCallEvent;
+import com.caloriecounter.monitoring.PayloadLog;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class GeminiService {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiService.class);
     
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
-    private long lastCallTime = 0;
-    private static final long MIN_CALL_INTERVAL = 1000; // 1 second between calls (Gemini has better limits)
+    private final AnalysisMetrics metrics;
+    private final PayloadLog payloadLog;
+    private final CallSpacing callSpacing = new CallSpacing();
+
+    @Value("${gemini.min-call-interval-ms:1000}")
+    private long minCallInterval = 1000; // 1 second between calls (Gemini has better limits)
+
+    @Value("${gemini.call-burst:6}")
+    private int callBurst = 6; // calls sent back to back before the interval applies, e.g. a meal's items
     
     // API key is now provided per user, not from properties
 
@@ -27,9 +49,11 @@ public class GeminiService {
     @Value("${gemini.model}")
     private String model;
     
-    public GeminiService() {
-        this.webClient = WebClient.builder().build();
+    public GeminiService(@Qualifier("geminiWebClient") WebClient webClient, AnalysisMetrics metrics, PayloadLog payloadLog) {
+        this.webClient = webClient; // pooled, HTTP/2-capable client from GeminiClientConfig
         this.objectMapper = new ObjectMapper();
+        this.metrics = metrics;
+        this.payloadLog = payloadLog;
     }
     
     /**
@@ -41,41 +65,118 @@ public class GeminiService {
      * @return The AI response as a string
      */
     public String callGeminiAPI(String prompt, String userApiKey) {
-        System.out.println("DEBUG: User Gemini API key present: " + (userApiKey != null && !userApiKey.trim().isEmpty()));
+        return callGemini(prompt, userApiKey).getText();
+    }
 
+    /**
+     * Same call as {@link #callGeminiAPI(String, String)}, additionally returning token usage
+     * and the latency of the successful attempt.
+     *
+     * @param prompt The formatted prompt to send to Gemini
+     * @param userApiKey The user's personal Gemini API key
+     * @return The AI response with its token counts
+     */
+    public GeminiCallResult callGemini(String prompt, String userApiKey) {
+        return callGemini(apiUrl, prompt, userApiKey, 3);
+    }
+
+    /**
+     * Same call against another generateContent endpoint, e.g. a different model, as used by {@link AiProviderRouter}.
+     *
+     * @param url The generateContent URL
+     * @param prompt The formatted prompt to send to Gemini
+     * @param userApiKey The Gemini API key to use
+     * @param maxAttempts Attempts including rate-limit retries; 1 when the caller fails over to another provider instead
+     * @return The AI response with its token counts
+     */
+    public GeminiCallResult callGemini(String url, String prompt, String userApiKey, int maxAttempts) {
+        return callGemini(url, prompt, userApiKey, maxAttempts, true);
+    }
+
+    /**
+     * Same call for background work that paces itself, e.g. {@link PrecomputeService}. It takes no slot
+     * from the spacing of live calls, so it never delays a user's analysis.
+     *
+     * @param prompt The formatted prompt to send to Gemini
+     * @param apiKey The Gemini API key to use
+     * @return The AI response with its token counts
+     */
+    public GeminiCallResult callGeminiInBackground(String prompt, String apiKey) {
+        return callGemini(apiUrl, prompt, apiKey, 3, false);
+    }
+
+    private GeminiCallResult callGemini(String url, String prompt, String userApiKey, int maxAttempts, boolean live) {
         if (userApiKey == null || userApiKey.trim().isEmpty()) {
+            metrics.recordApiKeyFailure("missing");
             throw new RuntimeException("Gemini API key not provided. Please enter your API key during registration.");
         }
 
         // Validate Gemini API key format
         if (!userApiKey.startsWith("AIza")) {
+            metrics.recordApiKeyFailure("invalid_format");
             throw new RuntimeException("Invalid Gemini API key format. Gemini API keys should start with 'AIza'. Get one from https://makersuite.google.com/app/apikey");
         }
 
-        // Log the API key format for debugging (first 10 characters only)
-        System.out.println("DEBUG: API key format: " + userApiKey.substring(0, Math.min(10, userApiKey.length())) + "...");
-
-        return callGeminiWithRetry(prompt, userApiKey, 3);
+        return callGeminiWithRetry(url, prompt, userApiKey, Math.max(1, maxAttempts), live);
     }
     
-    private String callGeminiWithRetry(String prompt, String userApiKey, int maxRetries) {
-        // Rate limiting
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastCallTime < MIN_CALL_INTERVAL) {
-            long waitTime = MIN_CALL_INTERVAL - (currentTime - lastCallTime);
-            System.out.println("DEBUG: Rate limiting - waiting " + waitTime + "ms");
+    /**
+     * Opens pooled connections to the configured Gemini endpoint ahead of the first real call,
+     * so DNS, TCP and TLS setup are not paid by a user request. Any HTTP response counts as a connected
+     * round trip - endpoints typically answer the keyless HEAD with 4xx - and nothing is counted
+     * against a user's quota.
+     *
+     * @param connections How many connections to open concurrently
+     * @param timeout Upper bound for the whole attempt
+     * @return Number of requests that completed a round trip
+     */
+    public int preconnect(int connections, Duration timeout) {
+        if (connections <= 0 || timeout.isZero() || timeout.isNegative()) {
+            return 0;
+        }
+        Long completed = Flux.range(0, connections)
+                .flatMap(i -> webClient.head()
+                        .uri(apiUrl)
+                        .exchangeToMono(response -> {
+                            log.debug("Pre-connected to Gemini (HTTP {})", response.statusCode().value());
+                            return response.releaseBody().thenReturn(i);
+                        })
+                        .onErrorResume(e -> {
+                            log.debug("Pre-connect to Gemini failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .count()
+                .block(timeout);
+        return completed != null ? completed.intValue() : 0;
+    }
+
+    private GeminiCallResult callGeminiWithRetry(String url, String prompt, String userApiKey, int maxRetries, boolean live) {
+        // Rate limiting: each live call reserves its own slot, so concurrent callers are spaced rather than bunched
+        long waitStart = System.nanoTime();
+        long waitNanos = live ? callSpacing.reserve(TimeUnit.MILLISECONDS.toNanos(minCallInterval), callBurst, waitStart) : 0;
+        if (waitNanos > 0) {
+            log.debug("Rate limiting - waiting {}ms", TimeUnit.NANOSECONDS.toMillis(waitNanos));
             try {
-                Thread.sleep(waitTime);
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
+            metrics.recordStage(AnalysisMetrics.RATE_LIMIT_WAIT, System.nanoTime() - waitStart);
         }
-        lastCallTime = System.currentTimeMillis();
         
         // Prompt is now passed in, no need to build it here
+        payloadLog.record("prompt", prompt);
         
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            System.out.println("DEBUG: Calling Gemini API (attempt " + attempt + "/" + maxRetries + ")...");
+            log.debug("Calling Gemini API (attempt {}/{})", attempt, maxRetries);
+
+            GeminiCallEvent event = new GeminiCallEvent();
+            if (event.isEnabled()) {
+                event.keyHash = GeminiCallEvent.hashKey(userApiKey);
+                event.attempt = attempt;
+                event.promptBytes = prompt.getBytes(StandardCharsets.UTF_8).length;
+            }
+            event.begin();
             
             try {
                 // Build Gemini request body according to API spec
@@ -91,52 +192,125 @@ public class GeminiService {
 
                 requestBody.put("contents", List.of(content));
 
-                System.out.println("DEBUG: Gemini request body: " + requestBody);
-
-                String response = webClient.post()
-                        .uri(apiUrl)
-                        .header("Content-Type", "application/json")
-                        .header("X-goog-api-key", userApiKey)
-                        .bodyValue(requestBody)
-                        .retrieve()
-                        .bodyToMono(String.class)
-                        .block();
+                // Failed round trips (429s, 5xx, timeouts) are timed too, so the percentiles show what users wait
+                long roundTripStart = System.nanoTime();
+                long roundTripNanos;
+                String roundTripOutcome = "io_error";
+                String response;
+                try {
+                    response = webClient.post()
+                            .uri(url)
+                            .header("Content-Type", "application/json")
+                            .header("X-goog-api-key", userApiKey)
+                            .bodyValue(requestBody)
+                            .retrieve()
+                            .bodyToMono(String.class)
+                            .block();
+                    roundTripOutcome = "success";
+                } catch (RuntimeException e) {
+                    roundTripOutcome = roundTripOutcome(e);
+                    throw e;
+                } finally {
+                    roundTripNanos = System.nanoTime() - roundTripStart;
+                    metrics.recordStage(AnalysisMetrics.GEMINI_ROUND_TRIP, roundTripOutcome, roundTripNanos);
+                }
                 
                 JsonNode jsonResponse = objectMapper.readTree(response);
                 String result = jsonResponse.get("candidates").get(0)
                         .get("content").get("parts").get(0).get("text").asText();
+                GeminiCallResult callResult = withTokenCounts(result, prompt, jsonResponse.get("usageMetadata"), roundTripNanos, attempt);
                 
-                System.out.println("DEBUG: Gemini API call successful, response length: " + result.length());
-                return result;
+                event.end();
+                event.status = "ok";
+                event.httpStatus = 200;
+                event.commit();
+
+                payloadLog.record("ai_response", result);
+                log.debug("Gemini API call successful, response length: {}, tokens in={} out={} reported={}",
+                        result.length(), callResult.getPromptTokens(), callResult.getResponseTokens(), callResult.isReported());
+                return callResult;
                 
             } catch (Exception e) {
-                System.err.println("DEBUG: Gemini API call failed (attempt " + attempt + "): " + e.getMessage());
+                // Netty timeouts (ReadTimeoutException) carry no message
+                String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                log.warn("Gemini API call failed (attempt {}): {}", attempt, message);
+                event.end();
+                if (e instanceof WebClientResponseException responseException) {
+                    event.httpStatus = responseException.getStatusCode().value();
+                }
                 
                 // Handle rate limiting with retry
-                if (e.getMessage().contains("429") || e.getMessage().contains("Too Many Requests")) {
+                if (message.contains("429") || message.contains("Too Many Requests")) {
+                    event.status = "rate_limited";
                     if (attempt < maxRetries) {
+                        event.retryReason = "rate_limited";
+                        event.commit();
+                        metrics.recordRetry("rate_limited");
                         long waitTime = (long) Math.pow(2, attempt) * 1000; // Exponential backoff
-                        System.out.println("DEBUG: Rate limited, waiting " + waitTime + "ms before retry...");
+                        log.info("Rate limited, waiting {}ms before retry", waitTime);
+                        long backoffStart = System.nanoTime();
                         try {
                             Thread.sleep(waitTime);
                         } catch (InterruptedException ie) {
                             Thread.currentThread().interrupt();
                             throw new RuntimeException("Request interrupted", ie);
+                        } finally {
+                            metrics.recordStage(AnalysisMetrics.RETRY_BACKOFF, System.nanoTime() - backoffStart);
                         }
                         continue; // Retry
                     } else {
+                        event.commit();
+                        metrics.recordGeminiFailure("rate_limited");
                         throw new RuntimeException("Gemini API rate limit exceeded after " + maxRetries + " attempts. Please wait and try again.", e);
                     }
-                } else if (e.getMessage().contains("403") || e.getMessage().contains("API_KEY_INVALID")) {
+                } else if (message.contains("403") || message.contains("API_KEY_INVALID")) {
+                    commitFailure(event, "rejected");
+                    metrics.recordApiKeyFailure("rejected");
                     throw new RuntimeException("Invalid Gemini API key. Please check your API key in application.properties.", e);
-                } else if (e.getMessage().contains("quota")) {
+                } else if (message.contains("quota")) {
+                    commitFailure(event, "quota");
+                    metrics.recordGeminiFailure("quota");
                     throw new RuntimeException("Gemini API quota exceeded. Please check your Google Cloud account.", e);
                 } else {
-                    throw new RuntimeException("Gemini API call failed: " + e.getMessage(), e);
+                    commitFailure(event, "other");
+                    metrics.recordGeminiFailure("other");
+                    throw new RuntimeException("Gemini API call failed: " + message, e);
                 }
             }
         }
         
         throw new RuntimeException("Gemini API call failed after " + maxRetries + " attempts");
     }
+
+    /**
+     * Prefers the token counts Gemini reports in {@code usageMetadata}; falls back to the local estimate.
+     */
+    private static GeminiCallResult withTokenCounts(String text, String prompt, JsonNode usage, long latencyNanos, int attempt) {
+        int estimatedPromptTokens = TokenEstimator.estimate(prompt);
+        if (usage != null && usage.hasNonNull("promptTokenCount")) {
+            return new GeminiCallResult(text, usage.get("promptTokenCount").asInt(),
+                    usage.path("candidatesTokenCount").asInt(TokenEstimator.estimate(text)),
+                    estimatedPromptTokens, true, latencyNanos, attempt);
+        }
+        return new GeminiCallResult(text, estimatedPromptTokens, TokenEstimator.estimate(text),
+                estimatedPromptTokens, false, latencyNanos, attempt);
+    }
+
+    private static String roundTripOutcome(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 ? "rate_limited" : status >= 500 ? "server_error" : "client_error";
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause.getClass().getSimpleName().contains("Timeout")) {
+                return "timeout"; // Netty's ReadTimeoutException, Reactor's TimeoutException
+            }
+        }
+        return "io_error";
+    }
+
+    private static void commitFailure(GeminiCallEvent event, String status) {
+        event.status = status;
+        event.commit();
+    }
 }
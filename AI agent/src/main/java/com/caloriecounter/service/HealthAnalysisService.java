@@ -1,18 +1,39 @@
 package com.caloriecounter.service;
 
+import com.caloriecounter.dto.FoodAnalysisRequest;
 import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.dto.MealAnalysisResult;
+import com.caloriecounter.dto.RecipeAnalysisResult;
 import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import com.caloriecounter.monitoring.RequestTiming;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Service
 public class HealthAnalysisService {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthAnalysisService.class);
     
     @Autowired
     private UserService userService;
@@ -23,29 +44,164 @@ public class HealthAnalysisService {
     @Autowired
     private AIResponseParser responseParser; // Follows SRP - dedicated response parsing
     
+    @Autowired
+    @Qualifier("analysisExecutor")
+    private ExecutorService analysisExecutor;
+
+    @Autowired
+    private AnalysisMetrics metrics;
+
+    @Autowired
+    private RecipeParser recipeParser;
+
+    @Autowired
+    private RecipeComposer recipeComposer;
+
+    @Value("${analysis.fanout.deadline-ms:30000}")
+    private long fanOutDeadlineMs;
+
     public FoodRecommendation analyzeFoodForUser(Long userId, String foodName, Double portionSizeInGrams) {
         try {
             // Get user information
             User user = userService.findById(userId);
             
             // Get AI analysis directly with food name and portion
-            String aiAnalysis = aiService.analyzeFood(user, foodName, portionSizeInGrams);
+            AIAnalysis aiAnalysis = aiService.analyze(user, foodName, portionSizeInGrams);
             
             // Create recommendation from AI analysis
             FoodRecommendation recommendation = new FoodRecommendation();
             recommendation.setFoodName(foodName);
             recommendation.setPortionSize(portionSizeInGrams);
+            recommendation.setScaledFromPortion(aiAnalysis.getScaledFromPortion());
+            recommendation.setSource(aiAnalysis.getSource());
             
-            // Parse AI response using dedicated parser - follows SRP
-            responseParser.parseAIResponse(aiAnalysis, recommendation, user);
+            // Parse AI response using dedicated parser - follows SRP; portion-dependent
+            // figures are computed for the requested portion even if the analysis was reused
+            responseParser.parseAIResponse(aiAnalysis.getText(), recommendation, user);
             
-            System.out.println("AI Analysis: " + aiAnalysis); // Debug log
+            log.debug("Analyzed food={} portion={}g suitability={}", foodName, portionSizeInGrams, recommendation.getSuitabilityScore());
             return recommendation;
             
         } catch (Exception e) {
-            System.err.println("Error in food analysis: " + e.getMessage());
+            log.warn("Food analysis failed for food={}: {}", foodName, e.getMessage());
             throw new RuntimeException("Failed to analyze food: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Analyzes several food items for one user concurrently.
+     * Every item runs as a child task under a single request deadline. The first failure or the
+     * deadline cancels the remaining siblings; items that already finished are still returned.
+     *
+     * @param userId The user to analyze for
+     * @param items The food items and portions to analyze
+     * @return Recommendations for the finished items (in submission order) plus per-item errors
+     */
+    public MealAnalysisResult analyzeFoodsForUser(Long userId, List<FoodAnalysisRequest> items) {
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(fanOutDeadlineMs);
+
+        // Fail once up front instead of once per child task
+        userService.findById(userId);
+
+        MealAnalysisResult result = new MealAnalysisResult();
+        FoodRecommendation[] finished = new FoodRecommendation[items.size()];
+        CompletionService<FoodRecommendation> completionService = new ExecutorCompletionService<>(analysisExecutor);
+        Map<Future<FoodRecommendation>, Integer> pending = new IdentityHashMap<>();
+        Map<String, String> logContext = MDC.getCopyOfContextMap(); // child tasks keep the request's trace id
+        RequestTiming timing = RequestTiming.current(); // and report stage timings into the parent request
+
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                FoodAnalysisRequest item = items.get(i);
+                long submittedAt = System.nanoTime();
+                pending.put(completionService.submit(() -> {
+                    if (logContext != null) {
+                        MDC.setContextMap(logContext);
+                    }
+                    RequestTiming.attach(timing);
+                    try {
+                        metrics.recordStage(AnalysisMetrics.QUEUE_WAIT, System.nanoTime() - submittedAt);
+                        return analyzeFoodForUser(userId, item.getFoodName(), item.getPortionSizeInGrams());
+                    } finally {
+                        RequestTiming.detach();
+                        MDC.clear();
+                    }
+                }), i);
+            }
+
+            while (!pending.isEmpty()) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                Future<FoodRecommendation> done = remainingNanos > 0
+                        ? completionService.poll(remainingNanos, TimeUnit.NANOSECONDS)
+                        : null;
+                if (done == null) {
+                    result.setTimedOut(true);
+                    break;
+                }
+
+                int index = pending.remove(done);
+                try {
+                    finished[index] = done.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    result.getErrors().add(items.get(index).getFoodName() + ": " + cause.getMessage());
+                    break;
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            result.getErrors().add("Analysis capacity exceeded: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.getErrors().add("Analysis interrupted");
+        } finally {
+            cancelPendingSiblings(pending, items, finished, result);
+        }
+
+        for (FoodRecommendation recommendation : finished) {
+            if (recommendation != null) {
+                result.getRecommendations().add(recommendation);
+            }
+        }
+        result.setComplete(result.getRecommendations().size() == items.size());
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return result;
+    }
+
+    /**
+     * Analyzes a free-text recipe ingredient by ingredient through the cached single-food path and
+     * composes the recipe-level recommendation locally, so recipes sharing ingredients share analyses.
+     *
+     * @param userId The user to analyze for
+     * @param recipe The recipe text, e.g. "200g pasta with 2 tbsp pesto and 150g chicken"
+     * @return The composed recommendation plus the per-ingredient ones
+     * @throws IllegalArgumentException if the recipe has no recognizable ingredients or too many
+     */
+    public RecipeAnalysisResult analyzeRecipeForUser(Long userId, String recipe) {
+        List<FoodAnalysisRequest> ingredients = recipeParser.parse(recipe);
+        log.debug("Recipe split into {} ingredients", ingredients.size());
+        return recipeComposer.compose(recipe, analyzeFoodsForUser(userId, ingredients));
+    }
+
+    private void cancelPendingSiblings(Map<Future<FoodRecommendation>, Integer> pending, List<FoodAnalysisRequest> items,
+                                       FoodRecommendation[] finished, MealAnalysisResult result) {
+        for (Map.Entry<Future<FoodRecommendation>, Integer> entry : pending.entrySet()) {
+            Future<FoodRecommendation> future = entry.getKey();
+            String foodName = items.get(entry.getValue()).getFoodName();
+
+            // A sibling may have completed between the last poll and cancellation - keep its result
+            if (!future.cancel(true) && future.isDone()) {
+                try {
+                    finished[entry.getValue()] = future.get();
+                    continue;
+                } catch (Exception e) {
+                    result.getErrors().add(foodName + ": " + e.getMessage());
+                    continue;
+                }
+            }
+            result.getErrors().add(foodName + ": " + (result.isTimedOut() ? "timed out" : "cancelled"));
+        }
+        pending.clear();
+    }
+
 }
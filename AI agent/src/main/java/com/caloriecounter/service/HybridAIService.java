@@ -0,0 +1,84 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+
+/**
+ * The AIService the application uses; routes each analysis per {@code ai.mode}:
+ * <ul>
+ *   <li>{@code gemini} (default) - always Gemini, failures reach the user</li>
+ *   <li>{@code local} - always the rule-based {@link LocalNutritionAIService}; foods it does not know fail</li>
+ *   <li>{@code hybrid} - the local estimate if its confidence reaches {@code ai.local.min-confidence},
+ *       otherwise Gemini, falling back to the local estimate if Gemini fails</li>
+ * </ul>
+ * {@code hybrid} and {@code local} are opt-in: their answers come from a nutrient table rather than Gemini.
+ */
+@Primary
+@Service
+public class HybridAIService implements AIService {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridAIService.class);
+
+    enum Mode { GEMINI, LOCAL, HYBRID }
+
+    private final Mode mode;
+    private final double minConfidence;
+    private final GeminiAIService gemini;
+    private final LocalNutritionAIService local;
+    private final AnalysisMetrics metrics;
+
+    public HybridAIService(@Value("${ai.mode:gemini}") String mode,
+                           @Value("${ai.local.min-confidence:1.0}") double minConfidence,
+                           GeminiAIService gemini, LocalNutritionAIService local, AnalysisMetrics metrics) {
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.minConfidence = minConfidence;
+        this.gemini = gemini;
+        this.local = local;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String analyzeFood(User user, String foodName, double portionSize) {
+        return analyze(user, foodName, portionSize).getText();
+    }
+
+    @Override
+    public AIAnalysis analyze(User user, String foodName, double portionSize) {
+        if (mode == Mode.GEMINI) {
+            metrics.recordRoute("ai");
+            return gemini.analyze(user, foodName, portionSize);
+        }
+
+        LocalNutritionAIService.Estimate estimate = local.estimate(user, foodName, portionSize);
+        if (mode == Mode.LOCAL || (estimate != null && estimate.getConfidence() >= minConfidence)) {
+            if (estimate == null) {
+                metrics.recordRoute("unavailable");
+                throw new RuntimeException("No local nutrient data for " + foodName);
+            }
+            metrics.recordRoute("local");
+            return new AIAnalysis(estimate.getText(), null, LocalNutritionAIService.SOURCE);
+        }
+
+        try {
+            AIAnalysis analysis = gemini.analyze(user, foodName, portionSize);
+            metrics.recordRoute("ai");
+            return analysis;
+        } catch (RuntimeException e) {
+            if (estimate == null) {
+                metrics.recordRoute("unavailable");
+                throw e;
+            }
+            log.warn("Gemini failed for food={}, serving local estimate (confidence {}): {}",
+                    foodName, estimate.getConfidence(), e.getMessage());
+            metrics.recordRoute("fallback");
+            return new AIAnalysis(estimate.getText(), null, LocalNutritionAIService.SOURCE);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.dto.FoodRecommendation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses duplicate analysis submissions onto a single upstream call.
+ * A duplicate key within the window attaches to the original in-flight or finished result
+ * instead of starting new work, provided it carries the same payload - a key reused for another
+ * food or portion is rejected rather than answered with the earlier analysis.
+ * Failed attempts are forgotten so the user can retry.
+ * The store is bounded in size and entries expire after a fixed time-to-live.
+ */
+@Service
+public class IdempotencyService {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long waitTimeoutMillis;
+
+    // Insertion ordered, so the eldest entry is always the next one to expire
+    private final LinkedHashMap<String, Entry> entries;
+
+    public IdempotencyService(@Value("${analysis.idempotency.ttl-ms:120000}") long ttlMillis,
+                              @Value("${analysis.idempotency.max-entries:10000}") int maxEntries,
+                              @Value("${analysis.idempotency.wait-timeout-ms:60000}") long waitTimeoutMillis) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxEntries = maxEntries;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyService.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Runs the analysis once per key within the idempotency window.
+     *
+     * @param key The idempotency key, already scoped to the caller
+     * @param fingerprint The submitted payload, see {@link #fingerprint(Long, String, Double)}
+     * @param analysis The analysis to run if no attempt for this key exists
+     * @return The result of the original (or this) attempt
+     * @throws KeyReusedException if the key was already used for a different payload
+     */
+    public FoodRecommendation execute(String key, String fingerprint, Supplier<FoodRecommendation> analysis) {
+        Entry entry;
+        boolean owner = false;
+        long now = System.nanoTime();
+
+        synchronized (entries) {
+            evictExpired(now);
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(now, fingerprint);
+                entries.put(key, entry);
+                owner = true;
+            }
+        }
+
+        if (!entry.fingerprint.equals(fingerprint)) {
+            throw new KeyReusedException();
+        }
+
+        if (owner) {
+            try {
+                FoodRecommendation recommendation = analysis.get();
+                entry.result.complete(recommendation);
+                return recommendation;
+            } catch (Throwable t) {
+                // Errors too - otherwise waiters attached to this entry would never be released
+                entry.result.completeExceptionally(t);
+                synchronized (entries) {
+                    entries.remove(key, entry);
+                }
+                throw t;
+            }
+        }
+
+        try {
+            // copy() so a timed-out waiter does not complete the shared future for everyone else
+            return entry.result.copy().orTimeout(waitTimeoutMillis, TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new RuntimeException("Timed out waiting for the original analysis of this submission", e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Original analysis of this submission failed", e.getCause());
+        }
+    }
+
+    /**
+     * Identifies what a key was first used for: the user and the normalized food and portion.
+     */
+    public String fingerprint(Long userId, String foodName, Double portionSize) {
+        return userId + ":" + (foodName != null ? foodName.trim().toLowerCase(Locale.ROOT) : "") + ":" + portionSize;
+    }
+
+    /**
+     * Builds a scoped idempotency key. Uses the client's key when one is supplied,
+     * otherwise derives one from the submission itself.
+     *
+     * @param scope The caller scope, e.g. a session or user
+     * @param clientKey The client-supplied key or form token, may be null
+     * @param foodName The submitted food name
+     * @param portionSize The submitted portion size in grams
+     * @return The scoped key
+     */
+    public String keyFor(String scope, String clientKey, String foodName, Double portionSize) {
+        if (clientKey != null && !clientKey.trim().isEmpty()) {
+            return scope + ":" + clientKey.trim();
+        }
+        return scope + ":" + (foodName != null ? foodName.trim().toLowerCase(Locale.ROOT) : "") + ":" + portionSize;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().createdAtNanos < ttlNanos) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static final class Entry {
+        private final long createdAtNanos;
+        private final String fingerprint;
+        private final CompletableFuture<FoodRecommendation> result = new CompletableFuture<>();
+
+        private Entry(long createdAtNanos, String fingerprint) {
+            this.createdAtNanos = createdAtNanos;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * An idempotency key was reused for a different food, portion or user.
+     */
+    public static class KeyReusedException extends RuntimeException {
+        public KeyReusedException() {
+            super("Idempotency key was already used for a different submission");
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rule-based implementation of AIService that answers in microseconds without any network call.
+ * Looks the food up in a per-100g nutrient table ({@code ai.local.nutrient-table}) and applies
+ * health-condition rules - sugar and carbohydrates for diabetes, sodium for hypertension, saturated
+ * fat for cholesterol, gluten for celiac disease and so on - to the general nutrient profile.
+ * Answers in the same structured format as the AI, so {@link AIResponseParser} builds the recommendation.
+ * Every estimate carries a confidence: how exactly the food name matched the table, lowered if the
+ * user has a health condition no rule covers.
+ */
+@Service
+public class LocalNutritionAIService implements AIService {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalNutritionAIService.class);
+
+    public static final String SOURCE = "local";
+
+    static final double EXACT_MATCH = 1.0;
+    static final double PARTIAL_MATCH = 0.8;
+    static final double UNCOVERED_CONDITION_FACTOR = 0.7;
+
+    private static final String[] LEVELS = {"AVOID", "POOR", "MODERATE", "GOOD", "EXCELLENT"};
+    private static final int AVOID = 0;
+    private static final int POOR = 1;
+    private static final int MODERATE = 2;
+    private static final int GOOD = 3;
+    private static final int EXCELLENT = 4;
+
+    private final Map<String, Nutrients> byName = new HashMap<>();
+
+    public LocalNutritionAIService(@Value("${ai.local.nutrient-table:classpath:nutrition/nutrients.csv}") Resource table) {
+        load(table);
+        log.info("Loaded local nutrient data for {} names from {}", byName.size(), table.getDescription());
+    }
+
+    @Override
+    public String analyzeFood(User user, String foodName, double portionSize) {
+        Estimate estimate = estimate(user, foodName, portionSize);
+        if (estimate == null) {
+            throw new RuntimeException("No local nutrient data for " + foodName);
+        }
+        return estimate.getText();
+    }
+
+    @Override
+    public AIAnalysis analyze(User user, String foodName, double portionSize) {
+        return new AIAnalysis(analyzeFood(user, foodName, portionSize), null, SOURCE);
+    }
+
+    /**
+     * @return The rule-based analysis with its confidence, or null if the food is not in the table
+     */
+    public Estimate estimate(User user, String foodName, double portionSize) {
+        String food = ArchetypeCache.normalizeFood(foodName);
+        Nutrients nutrients = byName.get(food);
+        double confidence = EXACT_MATCH;
+        if (nutrients == null) {
+            nutrients = longestContainedName(food);
+            confidence = PARTIAL_MATCH;
+        }
+        if (nutrients == null) {
+            return null;
+        }
+
+        Assessment assessment = new Assessment(nutrients);
+        boolean allCovered = true;
+        for (String condition : ArchetypeCache.normalizeConditions(user.getHealthConditions())) {
+            allCovered &= applyConditionRules(condition, nutrients, assessment);
+        }
+        if (!allCovered) {
+            confidence *= UNCOVERED_CONDITION_FACTOR;
+        }
+        return new Estimate(render(foodName, portionSize, nutrients, assessment), confidence);
+    }
+
+    /**
+     * The table entry whose name or alias is contained, as whole words, in the food; the longest one wins,
+     * so "grilled chicken breast" matches "chicken breast" rather than "chicken".
+     */
+    private Nutrients longestContainedName(String food) {
+        String padded = " " + food.replaceAll("[^\\p{L}\\p{N}]+", " ") + " ";
+        Nutrients best = null;
+        int bestLength = 0;
+        for (Map.Entry<String, Nutrients> entry : byName.entrySet()) {
+            String name = entry.getKey();
+            if (name.length() > bestLength && padded.contains(" " + name + " ")) {
+                best = entry.getValue();
+                bestLength = name.length();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return false if no rule knows this condition
+     */
+    private static boolean applyConditionRules(String condition, Nutrients n, Assessment a) {
+        boolean covered = false;
+        if (condition.contains("diabet") || condition.contains("insulin") || condition.contains("blood sugar")) {
+            covered = true;
+            if (n.sugar >= 20) {
+                a.limit(POOR, "High in sugar (" + grams(n.sugar) + "g per 100g), which raises blood glucose");
+            } else if (n.sugar >= 10 || n.carbs >= 40) {
+                a.limit(MODERATE, "Notable sugar or carbohydrate load; watch blood glucose");
+            }
+            if (n.fiber >= 3) {
+                a.benefit("Fiber slows the rise in blood sugar");
+            }
+        }
+        if (condition.contains("hypertension") || condition.contains("blood pressure")) {
+            covered = true;
+            if (n.sodiumMg >= 1500) {
+                a.limit(AVOID, "Very high in sodium (" + Math.round(n.sodiumMg) + "mg per 100g)");
+            } else if (n.sodiumMg >= 400) {
+                a.limit(POOR, "High in sodium (" + Math.round(n.sodiumMg) + "mg per 100g), which raises blood pressure");
+            } else if (n.sodiumMg < 120) {
+                a.benefit("Low in sodium");
+            }
+        }
+        if (condition.contains("cholesterol") || condition.contains("heart")) {
+            covered = true;
+            if (n.saturatedFat >= 10) {
+                a.limit(POOR, "High in saturated fat (" + grams(n.saturatedFat) + "g per 100g)");
+            } else if (n.saturatedFat >= 5) {
+                a.limit(MODERATE, "Moderate saturated fat; keep portions small");
+            }
+            if (n.sodiumMg >= 600) {
+                a.limit(MODERATE, "High in sodium, which strains the heart");
+            }
+        }
+        if (condition.contains("kidney") || condition.contains("renal")) {
+            covered = true;
+            if (n.sodiumMg >= 400) {
+                a.limit(POOR, "High in sodium, which the kidneys must clear");
+            }
+            if (n.protein >= 20) {
+                a.limit(MODERATE, "High in protein; follow your prescribed protein intake");
+            }
+        }
+        if (condition.contains("celiac") || condition.contains("coeliac") || condition.contains("gluten")) {
+            covered = true;
+            if (n.flags.contains("gluten")) {
+                a.limit(AVOID, "Usually contains gluten");
+            }
+        }
+        if (condition.contains("lactose") || condition.contains("dairy")) {
+            covered = true;
+            if (n.flags.contains("lactose")) {
+                a.limit(POOR, "Contains lactose");
+            }
+        }
+        if (condition.contains("nut allerg") || condition.contains("peanut")) {
+            covered = true;
+            if (n.flags.contains("nuts")) {
+                a.limit(AVOID, "Contains nuts");
+            }
+        }
+        if (condition.contains("shellfish")) {
+            covered = true;
+            if (n.flags.contains("shellfish")) {
+                a.limit(AVOID, "Contains shellfish");
+            }
+        }
+        if (condition.contains("gout")) {
+            covered = true;
+            if (n.flags.contains("purine")) {
+                a.limit(POOR, "Rich in purines, which can trigger gout");
+            }
+        }
+        if (condition.contains("obes") || condition.contains("overweight") || condition.contains("weight loss")) {
+            covered = true;
+            if (n.kcal >= 400) {
+                a.limit(POOR, "Very calorie dense (" + Math.round(n.kcal) + " kcal per 100g)");
+            } else if (n.kcal >= 250) {
+                a.limit(MODERATE, "Calorie dense; keep portions small");
+            }
+        }
+        return covered;
+    }
+
+    private static String render(String foodName, double portionSize, Nutrients n, Assessment a) {
+        double factor = a.level >= GOOD ? 1.0 : a.level == MODERATE ? 0.75 : a.level == POOR ? 0.5 : 0.0;
+        long recommendedPortion = Math.round(n.portionGrams * factor);
+        return "SUITABILITY: " + LEVELS[a.level]
+                + "\nRECOMMENDED_PORTION: " + recommendedPortion
+                + "\nBENEFITS: " + (a.benefits.isEmpty() ? "Provides energy" : String.join("; ", a.benefits))
+                + "\nWARNINGS: " + (a.allWarnings().isEmpty() ? "None" : String.join("; ", a.allWarnings()))
+                + "\nREASONING: Estimated from nutrient data for " + n.name + " (per 100g: " + Math.round(n.kcal)
+                + " kcal, " + grams(n.protein) + "g protein, " + grams(n.carbs) + "g carbohydrates of which "
+                + grams(n.sugar) + "g sugar, " + grams(n.fat) + "g fat, " + Math.round(n.sodiumMg) + "mg sodium). "
+                + "Your " + Math.round(portionSize) + "g portion has about " + Math.round(n.kcal * portionSize / 100)
+                + " kcal; a typical portion is " + Math.round(n.portionGrams) + "g.";
+    }
+
+    private static String grams(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private void load(Resource table) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(table.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split(",", -1);
+                if (columns.length != 12) {
+                    throw new IllegalStateException("Invalid nutrient table line " + lineNumber + ": expected 12 columns");
+                }
+                Nutrients nutrients = new Nutrients(columns);
+                byName.put(nutrients.name, nutrients);
+                for (String alias : columns[1].split("\\|")) {
+                    if (!alias.isBlank()) {
+                        byName.putIfAbsent(ArchetypeCache.normalizeFood(alias), nutrients);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read nutrient table " + table.getDescription(), e);
+        }
+    }
+
+    /**
+     * Rule-based analysis text and how confident the match is, from 0 to 1.
+     */
+    public static final class Estimate {
+        private final String text;
+        private final double confidence;
+
+        Estimate(String text, double confidence) {
+            this.text = text;
+            this.confidence = confidence;
+        }
+
+        public String getText() { return text; }
+        public double getConfidence() { return confidence; }
+    }
+
+    private static final class Nutrients {
+        private final String name;
+        private final double kcal;
+        private final double protein;
+        private final double carbs;
+        private final double sugar;
+        private final double fat;
+        private final double saturatedFat;
+        private final double fiber;
+        private final double sodiumMg;
+        private final double portionGrams;
+        private final Set<String> flags;
+
+        private Nutrients(String[] columns) {
+            this.name = ArchetypeCache.normalizeFood(columns[0]);
+            this.kcal = Double.parseDouble(columns[2]);
+            this.protein = Double.parseDouble(columns[3]);
+            this.carbs = Double.parseDouble(columns[4]);
+            this.sugar = Double.parseDouble(columns[5]);
+            this.fat = Double.parseDouble(columns[6]);
+            this.saturatedFat = Double.parseDouble(columns[7]);
+            this.fiber = Double.parseDouble(columns[8]);
+            this.sodiumMg = Double.parseDouble(columns[9]);
+            this.portionGrams = Double.parseDouble(columns[10]);
+            this.flags = columns[11].isBlank() ? Set.of() : Set.of(columns[11].trim().split("\\|"));
+        }
+    }
+
+    /**
+     * Starts from the general nutrient profile; condition rules can only lower the level.
+     */
+    private static final class Assessment {
+        private int level;
+        private final List<String> benefits = new ArrayList<>();
+        private final List<String> warnings = new ArrayList<>();
+        // Nutrient -> warning for anyone; left out if a condition rule already warned about that nutrient
+        private final Map<String, String> generalWarnings = new LinkedHashMap<>();
+
+        private Assessment(Nutrients n) {
+            if (n.kcal >= 450 || n.saturatedFat >= 10 || n.sugar >= 30 || n.sodiumMg >= 1000) {
+                level = MODERATE;
+            } else if (n.fiber >= 2.5 && n.sugar < 12 && n.saturatedFat < 3 && n.sodiumMg < 400) {
+                level = EXCELLENT;
+            } else {
+                level = GOOD;
+            }
+            if (n.protein >= 15) {
+                benefits.add("High in protein");
+            }
+            if (n.fiber >= 3) {
+                benefits.add("Good source of fiber");
+            }
+            if (n.kcal < 100) {
+                benefits.add("Low in calories");
+            }
+            if (n.saturatedFat >= 10) {
+                generalWarnings.put("saturated fat", "High in saturated fat");
+            }
+            if (n.sugar >= 30) {
+                generalWarnings.put("sugar", "Very high in sugar");
+            }
+            if (n.sodiumMg >= 1000) {
+                generalWarnings.put("sodium", "Very high in sodium");
+            }
+        }
+
+        private void limit(int maxLevel, String warning) {
+            level = Math.min(level, maxLevel);
+            if (!warnings.contains(warning)) {
+                warnings.add(warning);
+            }
+        }
+
+        private List<String> allWarnings() {
+            List<String> all = new ArrayList<>(warnings);
+            generalWarnings.forEach((nutrient, warning) -> {
+                if (warnings.stream().noneMatch(w -> w.contains(nutrient))) {
+                    all.add(warning);
+                }
+            });
+            return all;
+        }
+
+        private void benefit(String benefit) {
+            if (!benefits.contains(benefit)) {
+                benefits.add(benefit);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.monitoring.PayloadLog;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calls an OpenAI-compatible chat completions endpoint (OpenAI, or local servers such as
+ * llama.cpp, Ollama or vLLM) with the same prompt Gemini gets. One attempt per call -
+ * retrying elsewhere is {@link AiProviderRouter}'s job.
+ */
+@Service
+public class OpenAICompatibleService {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenAICompatibleService.class);
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PayloadLog payloadLog;
+
+    public OpenAICompatibleService(@Qualifier("aiProviderWebClient") WebClient webClient, PayloadLog payloadLog) {
+        this.webClient = webClient;
+        this.payloadLog = payloadLog;
+    }
+
+    /**
+     * @param url The chat completions URL, e.g. {@code http://localhost:11434/v1/chat/completions}
+     * @param model Model name sent in the request body
+     * @param prompt The formatted prompt
+     * @param apiKey Bearer token, or null for servers that need none
+     * @return The response text with its token counts
+     */
+    public GeminiCallResult call(String url, String model, String prompt, String apiKey) {
+        Map<String, Object> requestBody = new LinkedHashMap<>();
+        if (model != null && !model.isBlank()) {
+            requestBody.put("model", model);
+        }
+        requestBody.put("messages", List.of(Map.of("role", "user", "content", prompt)));
+
+        payloadLog.record("prompt", prompt);
+        long start = System.nanoTime();
+        try {
+            String response = webClient.post()
+                    .uri(url)
+                    .header("Content-Type", "application/json")
+                    .headers(headers -> {
+                        if (apiKey != null && !apiKey.isBlank()) {
+                            headers.setBearerAuth(apiKey);
+                        }
+                    })
+                    .bodyValue(requestBody)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .block();
+            long latencyNanos = System.nanoTime() - start;
+
+            JsonNode json = objectMapper.readTree(response);
+            String text = json.get("choices").get(0).get("message").get("content").asText();
+            payloadLog.record("ai_response", text);
+            return withTokenCounts(text, prompt, json.get("usage"), latencyNanos);
+        } catch (WebClientResponseException e) {
+            int status = e.getStatusCode().value();
+            if (status == 429) {
+                throw new RuntimeException("AI provider rate limit exceeded (429 Too Many Requests)", e);
+            }
+            if (status == 401 || status == 403) {
+                throw new RuntimeException("AI provider rejected the API key (" + status + ")", e);
+            }
+            throw new RuntimeException("AI provider call failed: " + e.getMessage(), e);
+        } catch (Exception e) {
+            // Netty timeouts (ReadTimeoutException) carry no message
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            log.debug("OpenAI-compatible call to {} failed: {}", url, message);
+            throw new RuntimeException("AI provider call failed: " + message, e);
+        }
+    }
+
+    /**
+     * Prefers the counts reported in {@code usage}; falls back to the local estimate.
+     */
+    private static GeminiCallResult withTokenCounts(String text, String prompt, JsonNode usage, long latencyNanos) {
+        int estimatedPromptTokens = TokenEstimator.estimate(prompt);
+        if (usage != null && usage.hasNonNull("prompt_tokens")) {
+            return new GeminiCallResult(text, usage.get("prompt_tokens").asInt(),
+                    usage.path("completion_tokens").asInt(TokenEstimator.estimate(text)),
+                    estimatedPromptTokens, true, latencyNanos, 1);
+        }
+        return new GeminiCallResult(text, estimatedPromptTokens, TokenEstimator.estimate(text),
+                estimatedPromptTokens, false, latencyNanos, 1);
+    }
+}
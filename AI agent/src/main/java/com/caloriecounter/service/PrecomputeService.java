@@ -0,0 +1,270 @@
+package com.caloriecounter.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the {@link ArchetypeCache} with the most requested food/archetype combinations ahead of demand.
+ * Runs only inside the configured low-traffic windows, on a single minimum-priority thread, spends at
+ * most a fixed number of calls per configured API key per day, and backs off as soon as live lookups
+ * appear. Calls are made with deployment-owned keys from {@code precompute.api-keys}, never with a
+ * user's personal key; with no keys configured nothing runs. Calls are spaced by
+ * {@code precompute.call-spacing-ms} and take no slots from the spacing of live Gemini calls.
+ */
+@Service
+public class PrecomputeService {
+
+    private static final Logger log = LoggerFactory.getLogger(PrecomputeService.class);
+
+    private final ArchetypeCache archetypeCache;
+    private final PromptBuilder promptBuilder;
+    private final GeminiService geminiService;
+    private final ScheduledExecutorService executor;
+    private final boolean enabled;
+    private final List<TimeWindow> windows;
+    private final ZoneId zone;
+    private final List<String> apiKeys;
+    private final int maxCallsPerKey;
+    private final int batchSize;
+    private final long minRequests;
+    private final long entryTtlMillis;
+    private final long intervalMillis;
+    private final long liveIdleMillis;
+    private final long callSpacingMillis;
+
+    private final Map<String, Integer> callsToday = new ConcurrentHashMap<>();
+    private LocalDate budgetDay;
+    private volatile RunSummary lastRun;
+
+    public PrecomputeService(ArchetypeCache archetypeCache, PromptBuilder promptBuilder, GeminiService geminiService,
+                             @Qualifier("precomputeExecutor") ScheduledExecutorService executor,
+                             @Value("${precompute.enabled:false}") boolean enabled,
+                             @Value("${precompute.windows:02:00-05:00}") List<String> windows,
+                             @Value("${precompute.zone:}") String zone,
+                             @Value("${precompute.api-keys:}") List<String> apiKeys,
+                             @Value("${precompute.max-calls-per-key:200}") int maxCallsPerKey,
+                             @Value("${precompute.batch-size:50}") int batchSize,
+                             @Value("${precompute.min-requests:2}") long minRequests,
+                             @Value("${precompute.entry-ttl-ms:28800000}") long entryTtlMillis,
+                             @Value("${precompute.interval-ms:300000}") long intervalMillis,
+                             @Value("${precompute.live-idle-ms:5000}") long liveIdleMillis,
+                             @Value("${precompute.call-spacing-ms:2000}") long callSpacingMillis) {
+        this.archetypeCache = archetypeCache;
+        this.promptBuilder = promptBuilder;
+        this.geminiService = geminiService;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.windows = windows.stream().filter(w -> !w.isBlank()).map(TimeWindow::parse).toList();
+        this.zone = zone == null || zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone.trim());
+        this.apiKeys = apiKeys.stream().map(String::trim).filter(k -> !k.isEmpty()).toList();
+        this.maxCallsPerKey = maxCallsPerKey;
+        this.batchSize = batchSize;
+        this.minRequests = minRequests;
+        this.entryTtlMillis = entryTtlMillis;
+        this.intervalMillis = intervalMillis;
+        this.liveIdleMillis = liveIdleMillis;
+        this.callSpacingMillis = callSpacingMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void schedule() {
+        if (!enabled || apiKeys.isEmpty()) {
+            log.info("Background pre-computation disabled (enabled={}, api keys={})", enabled, apiKeys.size());
+            return;
+        }
+        executor.scheduleWithFixedDelay(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Background pre-computation scheduled every {}ms in windows {} ({})", intervalMillis, windows, zone);
+    }
+
+    private void tick() {
+        try {
+            runOnce(ZonedDateTime.now(zone));
+        } catch (RuntimeException e) {
+            log.warn("Background pre-computation failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One pre-computation pass at the given time.
+     *
+     * @return Summary of the pass; empty if outside every window or out of budget
+     */
+    synchronized RunSummary runOnce(ZonedDateTime now) {
+        if (!inWindow(now.toLocalTime())) {
+            return RunSummary.skipped("outside window");
+        }
+        LocalDate today = now.toLocalDate();
+        if (!today.equals(budgetDay)) {
+            if (budgetDay != null) {
+                archetypeCache.decayDemand(); // yesterday's demand counts half
+            }
+            budgetDay = today;
+            callsToday.clear();
+        }
+
+        List<ArchetypeCache.Demand> candidates =
+                archetypeCache.precomputeCandidates(batchSize, minRequests, entryTtlMillis / 2);
+        int filled = 0;
+        int failed = 0;
+        String stopReason = candidates.isEmpty() ? "nothing to do" : "batch done";
+        for (ArchetypeCache.Demand candidate : candidates) {
+            if (archetypeCache.hadLookupWithin(liveIdleMillis)) {
+                stopReason = "live traffic";
+                break;
+            }
+            String apiKey = nextKeyWithBudget();
+            if (apiKey == null) {
+                stopReason = "budget exhausted";
+                break;
+            }
+            callsToday.merge(apiKey, 1, Integer::sum);
+            try {
+                String prompt = promptBuilder.buildNutritionPrompt(candidate.getRepresentative(),
+                        candidate.getFoodName(), candidate.getPortionSize(), candidate.getVariant());
+                // Paced by call-spacing-ms below, not by the live call spacing it would otherwise push back
+                String response = geminiService.callGeminiInBackground(prompt, apiKey).getText();
+                if (archetypeCache.prefill(candidate, response, entryTtlMillis)) {
+                    filled++;
+                } else {
+                    failed++;
+                }
+            } catch (RuntimeException e) {
+                failed++;
+                log.debug("Pre-computation of {} failed: {}", candidate.getKey(), e.getMessage());
+            }
+            if (!pause(callSpacingMillis)) {
+                stopReason = "interrupted";
+                break;
+            }
+        }
+
+        RunSummary summary = new RunSummary(now.toString(), candidates.size(), filled, failed, stopReason);
+        lastRun = summary;
+        if (filled + failed > 0) {
+            log.info("Pre-computation pass: {} candidates, {} filled, {} failed ({})", candidates.size(), filled, failed, stopReason);
+        }
+        return summary;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled && !apiKeys.isEmpty());
+        status.put("windows", windows.stream().map(TimeWindow::toString).toList());
+        status.put("zone", zone.getId());
+        status.put("maxCallsPerKey", maxCallsPerKey);
+        status.put("callsToday", new ArrayList<>(callsToday.values())); // per key, without exposing the keys
+        status.put("lastRun", lastRun);
+        return status;
+    }
+
+    boolean inWindow(LocalTime time) {
+        for (TimeWindow window : windows) {
+            if (window.contains(time)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String nextKeyWithBudget() {
+        String best = null;
+        int fewest = maxCallsPerKey;
+        for (String key : apiKeys) {
+            int used = callsToday.getOrDefault(key, 0);
+            if (used < fewest) {
+                best = key;
+                fewest = used;
+            }
+        }
+        return best;
+    }
+
+    private static boolean pause(long millis) {
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Daily time window such as {@code 02:00-05:00}; may wrap past midnight ({@code 23:00-01:30}).
+     */
+    static final class TimeWindow {
+        private final LocalTime start;
+        private final LocalTime end;
+
+        private TimeWindow(LocalTime start, LocalTime end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        static TimeWindow parse(String window) {
+            String[] parts = window.trim().split("-");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Pre-computation window must look like HH:mm-HH:mm: " + window);
+            }
+            return new TimeWindow(LocalTime.parse(parts[0].trim()), LocalTime.parse(parts[1].trim()));
+        }
+
+        boolean contains(LocalTime time) {
+            if (start.isBefore(end)) {
+                return !time.isBefore(start) && time.isBefore(end);
+            }
+            return !time.isBefore(start) || time.isBefore(end);
+        }
+
+        @Override
+        public String toString() {
+            return start + "-" + end;
+        }
+    }
+
+    public static final class RunSummary {
+        private final String at;
+        private final int candidates;
+        private final int filled;
+        private final int failed;
+        private final String stopReason;
+
+        RunSummary(String at, int candidates, int filled, int failed, String stopReason) {
+            this.at = at;
+            this.candidates = candidates;
+            this.filled = filled;
+            this.failed = failed;
+            this.stopReason = stopReason;
+        }
+
+        static RunSummary skipped(String reason) {
+            return new RunSummary(null, 0, 0, 0, reason);
+        }
+
+        public String getAt() { return at; }
+        public int getCandidates() { return candidates; }
+        public int getFilled() { return filled; }
+        public int getFailed() { return failed; }
+        public String getStopReason() { return stopReason; }
+    }
+}
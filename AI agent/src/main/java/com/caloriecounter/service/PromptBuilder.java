@@ -1,15 +1,55 @@
 package com.caloriecounter.service;
 
 import com.caloriecounter.model.User;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Utility class for building AI prompts.
  * Follows Single Responsibility Principle (SRP) - only responsible for prompt construction.
+ * The instruction header and response format are constants; the rendered profile block is
+ * cached per user, version and {@link PromptVariant}, so a prompt is a concatenation of cached
+ * segments and the food line.
  */
 @Component
 public class PromptBuilder {
 
+    static final String HEADER =
+            "You are a professional nutritionist AI. Analyze this food for the user and provide personalized recommendations.\n\n";
+
+    static final String RESPONSE_FORMAT =
+            "\nPLEASE PROVIDE YOUR ANALYSIS IN THIS EXACT FORMAT:\n"
+            + "SUITABILITY: [EXCELLENT/GOOD/MODERATE/POOR/AVOID]\n"
+            + "RECOMMENDED_PORTION: [number in grams]\n"
+            + "BENEFITS: [list benefits separated by semicolons]\n"
+            + "WARNINGS: [list warnings separated by semicolons, or 'None' if no warnings]\n"
+            + "REASONING: [detailed explanation of your recommendation considering the user's profile]\n";
+
+    static final String COMPACT_HEADER = "As a nutritionist, rate this food for this user.\n";
+
+    static final String COMPACT_RESPONSE_FORMAT =
+            "Reply exactly:\n"
+            + "SUITABILITY: EXCELLENT|GOOD|MODERATE|POOR|AVOID\n"
+            + "RECOMMENDED_PORTION: <grams>\n"
+            + "BENEFITS: <semicolon-separated>\n"
+            + "WARNINGS: <semicolon-separated or None>\n"
+            + "REASONING: <2-3 sentences tied to the profile>\n";
+
+    private static final int MAX_CACHED_PROFILES = 10_000;
+
+    private final Map<PromptVariant, Map<Long, ProfileSegment>> profileSegments = new EnumMap<>(PromptVariant.class);
+
+    public PromptBuilder() {
+        for (PromptVariant variant : PromptVariant.values()) {
+            profileSegments.put(variant, new ConcurrentHashMap<>());
+        }
+    }
+
     /**
      * Builds a nutrition analysis prompt for AI services.
      *
@@ -19,24 +59,95 @@ public class PromptBuilder {
      * @return Formatted prompt string for AI analysis
      */
     public String buildNutritionPrompt(User user, String foodName, double portionSize) {
-        StringBuilder prompt = new StringBuilder();
+        return buildNutritionPrompt(user, foodName, portionSize, PromptVariant.STANDARD);
+    }
 
-        // System instruction
-        prompt.append("You are a professional nutritionist AI. Analyze this food for the user and provide personalized recommendations.\n\n");
+    /**
+     * Builds a nutrition analysis prompt using the given template.
+     *
+     * @param user The user with health profile information
+     * @param foodName The name of the food to analyze
+     * @param portionSize The portion size in grams
+     * @param variant The prompt template to use
+     * @return Formatted prompt string for AI analysis
+     */
+    public String buildNutritionPrompt(User user, String foodName, double portionSize, PromptVariant variant) {
+        String profile = profileSegment(user, variant);
+        if (variant == PromptVariant.COMPACT) {
+            return COMPACT_HEADER + profile + "Food: " + foodName + ", " + portionSize + " g\n" + COMPACT_RESPONSE_FORMAT;
+        }
 
-        // User profile section
-        appendUserProfile(prompt, user);
+        StringBuilder prompt = new StringBuilder(HEADER.length() + profile.length() + RESPONSE_FORMAT.length()
+                + foodName.length() + 160);
 
-        // Food information section
+        prompt.append(HEADER);
+        prompt.append(profile);
         appendFoodInformation(prompt, foodName, portionSize);
-
-        // Response format instructions
-        appendResponseFormat(prompt);
+        prompt.append(RESPONSE_FORMAT);
 
         return prompt.toString();
     }
 
-    private void appendUserProfile(StringBuilder prompt, User user) {
+    /**
+     * Drops the cached profile block when a user's profile changes. The version check in
+     * {@link #profileSegment(User, PromptVariant)} also catches a block rendered concurrently with the update.
+     */
+    @EventListener
+    public void onProfileUpdated(UserProfileUpdatedEvent event) {
+        if (event.getUserId() != null) {
+            profileSegments.values().forEach(segments -> segments.remove(event.getUserId()));
+        }
+    }
+
+    int cachedProfileCount() {
+        return profileSegments.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private String profileSegment(User user, PromptVariant variant) {
+        Long userId = user.getId();
+        if (userId == null) {
+            return render(user, variant); // not persisted yet - nothing stable to key on
+        }
+
+        Map<Long, ProfileSegment> segments = profileSegments.get(variant);
+        long version = user.getVersion();
+        ProfileSegment cached = segments.get(userId);
+        if (cached != null && cached.version == version) {
+            return cached.text;
+        }
+
+        String text = render(user, variant);
+        if (segments.size() >= MAX_CACHED_PROFILES) {
+            segments.clear();
+        }
+        segments.put(userId, new ProfileSegment(version, text));
+        return text;
+    }
+
+    private String render(User user, PromptVariant variant) {
+        return variant == PromptVariant.COMPACT ? renderCompactProfile(user) : renderUserProfile(user);
+    }
+
+    /**
+     * One line with the numbers the analysis depends on; the name is left out.
+     */
+    private String renderCompactProfile(User user) {
+        StringBuilder profile = new StringBuilder(128);
+        profile.append("User: ").append(user.getAge()).append("y ")
+                .append(String.valueOf(user.getGender()).toLowerCase(Locale.ROOT)).append(", ")
+                .append(user.getWeight()).append("kg, ")
+                .append(user.getHeight()).append("cm, ")
+                .append(user.getActivityLevel().name().toLowerCase(Locale.ROOT).replace('_', ' ')).append(", ")
+                .append(String.format("%.0f", user.calculateDailyCalorieNeeds())).append(" kcal/day");
+
+        if (user.getHealthConditions() != null && !user.getHealthConditions().isEmpty()) {
+            profile.append(", conditions: ").append(String.join(", ", user.getHealthConditions()));
+        }
+        return profile.append('\n').toString();
+    }
+
+    private String renderUserProfile(User user) {
+        StringBuilder prompt = new StringBuilder(256);
         prompt.append("USER PROFILE:\n");
         prompt.append("- Name: ").append(user.getName()).append("\n");
         prompt.append("- Age: ").append(user.getAge()).append(" years\n");
@@ -49,6 +160,7 @@ public class PromptBuilder {
         if (user.getHealthConditions() != null && !user.getHealthConditions().isEmpty()) {
             prompt.append("- Health Conditions: ").append(String.join(", ", user.getHealthConditions())).append("\n");
         }
+        return prompt.toString();
     }
 
     private void appendFoodInformation(StringBuilder prompt, String foodName, double portionSize) {
@@ -58,12 +170,13 @@ public class PromptBuilder {
         prompt.append("- Please analyze the nutritional content of this food and provide recommendations\n");
     }
 
-    private void appendResponseFormat(StringBuilder prompt) {
-        prompt.append("\nPLEASE PROVIDE YOUR ANALYSIS IN THIS EXACT FORMAT:\n");
-        prompt.append("SUITABILITY: [EXCELLENT/GOOD/MODERATE/POOR/AVOID]\n");
-        prompt.append("RECOMMENDED_PORTION: [number in grams]\n");
-        prompt.append("BENEFITS: [list benefits separated by semicolons]\n");
-        prompt.append("WARNINGS: [list warnings separated by semicolons, or 'None' if no warnings]\n");
-        prompt.append("REASONING: [detailed explanation of your recommendation considering the user's profile]\n");
+    private static final class ProfileSegment {
+        private final long version;
+        private final String text;
+
+        private ProfileSegment(long version, String text) {
+            this.version = version;
+            this.text = text;
+        }
     }
 }
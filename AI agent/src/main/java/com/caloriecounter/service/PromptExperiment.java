@@ -0,0 +1,128 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.monitoring.ExperimentStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Splits Gemini traffic across {@link PromptVariant}s and collects per-variant outcomes.
+ * Assignment hashes the user id with the experiment name, so a user always sees the same variant
+ * for the lifetime of an experiment, and renaming the experiment reshuffles everyone.
+ * With the experiment disabled every user gets {@code prompt.variant}.
+ */
+@Component
+public class PromptExperiment {
+
+    private final boolean enabled;
+    private final String name;
+    private final long salt;
+    private final PromptVariant defaultVariant;
+    private final Map<PromptVariant, Integer> allocation;
+    private final PromptVariant[] buckets;
+    private final ExperimentStats stats = new ExperimentStats();
+
+    public PromptExperiment(@Value("${prompt.experiment.enabled:false}") boolean enabled,
+                            @Value("${prompt.experiment.name:prompt-experiment}") String name,
+                            @Value("${prompt.experiment.variants:standard:50,compact:50}") String variants,
+                            @Value("${prompt.variant:standard}") String defaultVariant) {
+        this.enabled = enabled;
+        this.name = name;
+        this.salt = fnv1a(name);
+        this.defaultVariant = PromptVariant.fromTag(defaultVariant);
+        this.allocation = parseAllocation(variants);
+        this.buckets = toBuckets(allocation);
+    }
+
+    /**
+     * @return The variant this user is assigned to; stable across calls and restarts
+     */
+    public PromptVariant assign(Long userId) {
+        if (!enabled || userId == null || buckets.length == 0) {
+            return defaultVariant;
+        }
+        return buckets[(int) Long.remainderUnsigned(mix(userId ^ salt), buckets.length)];
+    }
+
+    public void recordCall(PromptVariant variant, GeminiCallResult result) {
+        stats.recordCall(variant.tag(), result.getLatencyNanos(), result.getResponseTokens(), result.getAttempts() - 1);
+    }
+
+    public void recordFailure(PromptVariant variant) {
+        stats.recordFailure(variant.tag());
+    }
+
+    public void recordParse(PromptVariant variant, boolean succeeded) {
+        stats.recordParse(variant.tag(), succeeded);
+    }
+
+    public Map<String, Object> summary() {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        allocation.forEach((variant, weight) -> weights.put(variant.tag(), weight));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("experiment", name);
+        summary.put("enabled", enabled);
+        summary.put("allocation", enabled ? weights : Map.of(defaultVariant.tag(), 100));
+        summary.put("variants", stats.summarize());
+        return summary;
+    }
+
+    public void reset() {
+        stats.reset();
+    }
+
+    Map<PromptVariant, Integer> getAllocation() {
+        return Collections.unmodifiableMap(allocation);
+    }
+
+    private static Map<PromptVariant, Integer> parseAllocation(String variants) {
+        Map<PromptVariant, Integer> allocation = new LinkedHashMap<>();
+        for (String entry : variants.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for prompt variant " + parts[0]);
+            }
+            allocation.merge(PromptVariant.fromTag(parts[0]), weight, Integer::sum);
+        }
+        return allocation;
+    }
+
+    private static PromptVariant[] toBuckets(Map<PromptVariant, Integer> allocation) {
+        int total = allocation.values().stream().mapToInt(Integer::intValue).sum();
+        PromptVariant[] buckets = new PromptVariant[total];
+        int next = 0;
+        for (Map.Entry<PromptVariant, Integer> entry : allocation.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                buckets[next++] = entry.getKey();
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * SplitMix64 finalizer: consecutive user ids land in unrelated buckets.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long fnv1a(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,30 @@
+package com.caloriecounter.service;
+
+import java.util.Locale;
+
+/**
+ * Prompt templates understood by {@link PromptBuilder}. Both ask for the same response format;
+ * COMPACT drops the persona text, the user's name and the verbose labels to cut input tokens.
+ */
+public enum PromptVariant {
+    STANDARD,
+    COMPACT;
+
+    /**
+     * @return The lowercase name used in properties, metric tags and reports
+     */
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static PromptVariant fromTag(String value) {
+        if (value == null || value.isBlank()) {
+            return STANDARD;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown prompt variant: " + value);
+        }
+    }
+}
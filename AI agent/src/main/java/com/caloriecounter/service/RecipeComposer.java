@@ -0,0 +1,118 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.dto.MealAnalysisResult;
+import com.caloriecounter.dto.RecipeAnalysisResult;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Combines per-ingredient recommendations into one recipe-level recommendation without another AI call.
+ * The score is the portion-weighted mean of the ingredient scores, capped at POOR if any ingredient is
+ * AVOID; the recommended portion shrinks the whole recipe until no ingredient exceeds its own
+ * recommended portion; calorie shares add up.
+ */
+@Component
+public class RecipeComposer {
+
+    private static final List<String> SCORES = List.of("AVOID", "POOR", "MODERATE", "GOOD", "EXCELLENT");
+    private static final int MODERATE = SCORES.indexOf("MODERATE");
+    private static final int POOR = SCORES.indexOf("POOR");
+
+    /**
+     * @param recipe The recipe text as submitted
+     * @param meal The per-ingredient results, in ingredient order
+     * @return The composed recommendation; without a score if no ingredient could be analyzed
+     */
+    public RecipeAnalysisResult compose(String recipe, MealAnalysisResult meal) {
+        RecipeAnalysisResult result = new RecipeAnalysisResult();
+        result.setRecipe(recipe);
+        result.setIngredients(meal.getRecommendations());
+        result.setErrors(meal.getErrors());
+        result.setComplete(meal.isComplete());
+        result.setTimedOut(meal.isTimedOut());
+        result.setElapsedMillis(meal.getElapsedMillis());
+
+        List<FoodRecommendation> ingredients = meal.getRecommendations();
+        if (ingredients.isEmpty()) {
+            result.setReasoning("No ingredient could be analyzed.");
+            return result;
+        }
+
+        double total = 0;
+        double weightedScore = 0;
+        boolean anyAvoid = false;
+        double portionFactor = 1.0;
+        FoodRecommendation limiting = null;
+        double caloriePercentage = 0;
+        Set<String> warnings = new LinkedHashSet<>();
+        Set<String> benefits = new LinkedHashSet<>();
+
+        for (FoodRecommendation ingredient : ingredients) {
+            double portion = ingredient.getPortionSize() != null ? ingredient.getPortionSize() : 0;
+            int score = scoreOf(ingredient.getSuitabilityScore());
+            total += portion;
+            weightedScore += score * portion;
+            anyAvoid |= score == 0;
+            caloriePercentage += ingredient.getPercentageOfDailyCalories();
+
+            if (portion > 0 && ingredient.getRecommendedPortionSize() > 0
+                    && ingredient.getRecommendedPortionSize() / portion < portionFactor) {
+                portionFactor = ingredient.getRecommendedPortionSize() / portion;
+                limiting = ingredient;
+            }
+            addAll(warnings, ingredient.getWarnings(), ingredient.getFoodName() + ": ");
+            addAll(benefits, ingredient.getBenefits(), "");
+        }
+
+        int score = total > 0 ? (int) Math.round(weightedScore / total) : MODERATE;
+        if (anyAvoid) {
+            score = Math.min(score, POOR);
+        }
+        String suitability = SCORES.get(score);
+
+        result.setTotalPortionSize(total);
+        result.setSuitabilityScore(suitability);
+        result.setSuitable(score > POOR);
+        result.setPercentageOfDailyCalories(caloriePercentage);
+        result.setRecommendedPortionSize(Math.round(total * portionFactor));
+        result.setWarnings(List.copyOf(warnings));
+        result.setBenefits(List.copyOf(benefits));
+
+        StringBuilder reasoning = new StringBuilder()
+                .append("Composed from ").append(ingredients.size()).append(" analyzed ingredient")
+                .append(ingredients.size() == 1 ? "" : "s").append(", weighted by portion: ")
+                .append(suitability.toLowerCase(Locale.ROOT)).append(" overall.");
+        if (limiting != null) {
+            result.setLimitingIngredient(limiting.getFoodName());
+            reasoning.append(" The recommended portion is limited by ").append(limiting.getFoodName())
+                    .append(" (").append(Math.round(limiting.getRecommendedPortionSize())).append("g of ")
+                    .append(Math.round(limiting.getPortionSize())).append("g).");
+        }
+        if (!meal.isComplete()) {
+            reasoning.append(" Some ingredients could not be analyzed and are not included.");
+        }
+        result.setReasoning(reasoning.toString());
+        return result;
+    }
+
+    private static int scoreOf(String suitability) {
+        int index = suitability != null ? SCORES.indexOf(suitability.trim().toUpperCase(Locale.ROOT)) : -1;
+        return index >= 0 ? index : MODERATE;
+    }
+
+    private static void addAll(Set<String> target, List<String> items, String prefix) {
+        if (items == null) {
+            return;
+        }
+        for (String item : items) {
+            if (item != null && !item.isBlank() && !"none".equalsIgnoreCase(item.trim())) {
+                target.add(prefix + item.trim());
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.dto.FoodAnalysisRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits free-text recipes ("200g pasta with 2 tbsp pesto and chicken") into ingredient/portion pairs.
+ * Ingredients are separated by new lines, commas, semicolons, "+", "&", "and" and "with". An amount may
+ * lead or trail the ingredient and a unit alone counts once ("a pinch of salt"). Units are converted to
+ * grams (ml counted as grams), a bare count uses {@code recipe.item-grams} per item and a missing amount
+ * {@code recipe.default-portion-grams}.
+ * Names are normalized like cache keys and repeated ingredients are merged, so equal ingredients
+ * of different recipes hit the same cached single-food analyses.
+ */
+@Component
+public class RecipeParser {
+
+    static final double MIN_PORTION_GRAMS = 1.0;
+    static final double MAX_PORTION_GRAMS = 2000.0;
+
+    private static final Pattern SEPARATORS = Pattern.compile("\\r?\\n|[,;+&]|\\band\\b|\\bwith\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BULLET = Pattern.compile("^(?:[-*•]|\\d+\\))\\s*");
+    private static final String AMOUNT = "(\\d+(?:\\.\\d+)?(?:\\s*/\\s*\\d+)?|½|¼|¾)";
+    private static final String UNIT = "([a-z]+\\.?)";
+    private static final Pattern LEADING_AMOUNT = Pattern.compile("^" + AMOUNT + "\\s*" + UNIT + "?\\s+(.+)$");
+    private static final Pattern TRAILING_AMOUNT = Pattern.compile("^(.+?)\\s*\\(?\\s*" + AMOUNT + "\\s*" + UNIT + "\\s*\\)?$");
+    private static final Pattern LEADING_UNIT = Pattern.compile("^(?:a\\s+|an\\s+)?" + UNIT + "\\s+(.+)$");
+    private static final Pattern FILLER = Pattern.compile("^(?:of|a|an|some)\\s+");
+
+    private static final Map<String, Double> GRAMS_PER_UNIT = new LinkedHashMap<>();
+
+    static {
+        for (String unit : new String[]{"g", "gr", "gram", "grams", "ml"}) GRAMS_PER_UNIT.put(unit, 1.0);
+        for (String unit : new String[]{"kg", "kilogram", "kilograms", "l", "liter", "liters", "litre", "litres"}) GRAMS_PER_UNIT.put(unit, 1000.0);
+        for (String unit : new String[]{"oz", "ounce", "ounces"}) GRAMS_PER_UNIT.put(unit, 28.35);
+        for (String unit : new String[]{"lb", "lbs", "pound", "pounds"}) GRAMS_PER_UNIT.put(unit, 453.6);
+        for (String unit : new String[]{"tbsp", "tablespoon", "tablespoons"}) GRAMS_PER_UNIT.put(unit, 15.0);
+        for (String unit : new String[]{"tsp", "teaspoon", "teaspoons"}) GRAMS_PER_UNIT.put(unit, 5.0);
+        for (String unit : new String[]{"cup", "cups"}) GRAMS_PER_UNIT.put(unit, 240.0);
+        for (String unit : new String[]{"slice", "slices", "handful", "handfuls"}) GRAMS_PER_UNIT.put(unit, 30.0);
+        for (String unit : new String[]{"clove", "cloves"}) GRAMS_PER_UNIT.put(unit, 5.0);
+        for (String unit : new String[]{"pinch", "pinches", "dash"}) GRAMS_PER_UNIT.put(unit, 1.0);
+    }
+
+    private final int maxIngredients;
+    private final double defaultPortionGrams;
+    private final double itemGrams;
+
+    public RecipeParser(@Value("${recipe.max-ingredients:15}") int maxIngredients,
+                        @Value("${recipe.default-portion-grams:100}") double defaultPortionGrams,
+                        @Value("${recipe.item-grams:100}") double itemGrams) {
+        this.maxIngredients = maxIngredients;
+        this.defaultPortionGrams = defaultPortionGrams;
+        this.itemGrams = itemGrams;
+    }
+
+    /**
+     * @param recipe Free-text recipe or ingredient list
+     * @return One request per distinct ingredient, in order of first mention, without a user id
+     * @throws IllegalArgumentException if no ingredient is found or there are more than {@code recipe.max-ingredients}
+     */
+    public List<FoodAnalysisRequest> parse(String recipe) {
+        Map<String, Double> portions = new LinkedHashMap<>();
+        if (recipe != null) {
+            for (String fragment : SEPARATORS.split(recipe)) {
+                parseIngredient(fragment, portions);
+            }
+        }
+        if (portions.isEmpty()) {
+            throw new IllegalArgumentException("No ingredients found in recipe");
+        }
+        if (portions.size() > maxIngredients) {
+            throw new IllegalArgumentException("Recipe has " + portions.size() + " ingredients, at most "
+                    + maxIngredients + " are supported");
+        }
+
+        List<FoodAnalysisRequest> ingredients = new ArrayList<>(portions.size());
+        portions.forEach((name, grams) -> ingredients.add(new FoodAnalysisRequest(null, name,
+                Math.min(MAX_PORTION_GRAMS, Math.max(MIN_PORTION_GRAMS, Math.round(grams * 10) / 10.0)))));
+        return ingredients;
+    }
+
+    private void parseIngredient(String fragment, Map<String, Double> portions) {
+        String text = BULLET.matcher(ArchetypeCache.normalizeFood(fragment)).replaceFirst("");
+        if (text.isEmpty()) {
+            return;
+        }
+
+        String name = text;
+        double grams = defaultPortionGrams;
+        Matcher leading = LEADING_AMOUNT.matcher(text);
+        Matcher trailing = TRAILING_AMOUNT.matcher(text);
+        Matcher unitOnly = LEADING_UNIT.matcher(text);
+        if (leading.matches()) {
+            Double perUnit = gramsPerUnit(leading.group(2));
+            if (perUnit != null) {
+                name = leading.group(3);
+                grams = amount(leading.group(1)) * perUnit;
+            } else {
+                // Not a unit but the first word of the name, as in "2 eggs"
+                name = leading.group(2) != null ? leading.group(2) + " " + leading.group(3) : leading.group(3);
+                grams = amount(leading.group(1)) * itemGrams;
+            }
+        } else if (trailing.matches() && gramsPerUnit(trailing.group(3)) != null) {
+            name = trailing.group(1);
+            grams = amount(trailing.group(2)) * gramsPerUnit(trailing.group(3));
+        } else if (unitOnly.matches() && gramsPerUnit(unitOnly.group(1)) != null) {
+            // "a pinch of salt", "slice of bread"
+            name = unitOnly.group(2);
+            grams = gramsPerUnit(unitOnly.group(1));
+        }
+
+        name = FILLER.matcher(name.trim()).replaceFirst("").trim();
+        if (!name.isEmpty() && !name.chars().allMatch(c -> Character.isDigit(c) || c == '.' || c == ' ')) {
+            portions.merge(name, grams, Double::sum);
+        }
+    }
+
+    private static Double gramsPerUnit(String unit) {
+        if (unit == null) {
+            return null;
+        }
+        String normalized = unit.toLowerCase(Locale.ROOT);
+        return GRAMS_PER_UNIT.get(normalized.endsWith(".") ? normalized.substring(0, normalized.length() - 1) : normalized);
+    }
+
+    private static double amount(String amount) {
+        switch (amount) {
+            case "½": return 0.5;
+            case "¼": return 0.25;
+            case "¾": return 0.75;
+            default:
+                int slash = amount.indexOf('/');
+                if (slash > 0) {
+                    double denominator = Double.parseDouble(amount.substring(slash + 1).trim());
+                    return denominator == 0 ? 0 : Double.parseDouble(amount.substring(0, slash).trim()) / denominator;
+                }
+                return Double.parseDouble(amount);
+        }
+    }
+}
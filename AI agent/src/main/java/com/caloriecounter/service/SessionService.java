@@ -29,6 +29,11 @@ public class SessionService {
         return null;
     }
     
+    public String getCurrentSessionId() {
+        HttpSession session = getCurrentSession();
+        return session != null ? session.getId() : null;
+    }
+    
     public boolean isUserLoggedIn() {
         return getCurrentUserId() != null;
     }
@@ -0,0 +1,21 @@
+package com.caloriecounter.service;
+
+/**
+ * Local token estimate for Gemini models, used when a response carries no {@code usageMetadata}.
+ * Gemini averages about four characters per token for English text; this rounds up, so it errs
+ * towards over-counting.
+ */
+public final class TokenEstimator {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+}
@@ -0,0 +1,300 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import com.caloriecounter.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-user cache of analyses that survives profile updates which do not affect them.
+ * Every entry records the profile attributes it depended on: age band, BMR band, gender, activity level,
+ * the health conditions relevant to its food and, if the response mentions the user, the name.
+ * Every condition is relevant to every food, unless it is given keywords in
+ * {@code analysis.user-cache.condition-keywords}; then it is only relevant to foods matching one of them.
+ * None are configured by default: a keyword list that misses a food would serve an analysis that
+ * ignores the condition.
+ * On a profile update only that user's entries are re-checked, through a per-user index, and only
+ * those whose dependencies changed are dropped. Lookups re-check as well, so a missed event never
+ * serves a stale entry.
+ */
+@Component
+public class UserAnalysisCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAnalysisCache.class);
+
+    private final boolean enabled;
+    private final int ageBandYears;
+    private final int bmrBandKcal;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Set<String>> conditionKeywords;
+    private final UserRepository userRepository;
+    private final AnalysisMetrics metrics;
+    private final AIResponseParser responseParser;
+
+    // Insertion ordered, so the eldest entry is always the next one to expire
+    private final LinkedHashMap<String, Entry> entries;
+    // Keys of each user's entries; guarded by entries, like the map it indexes
+    private final Map<Long, Set<String>> byUser = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleOnLookup = new LongAdder();
+    private final LongAdder invalidated = new LongAdder();
+    private final LongAdder retained = new LongAdder();
+
+    public UserAnalysisCache(@Value("${analysis.user-cache.enabled:true}") boolean enabled,
+                             @Value("${analysis.archetype-cache.age-band-years:10}") int ageBandYears,
+                             @Value("${analysis.archetype-cache.bmr-band-kcal:100}") int bmrBandKcal,
+                             @Value("${analysis.user-cache.ttl-ms:3600000}") long ttlMillis,
+                             @Value("${analysis.user-cache.max-entries:10000}") int maxEntries,
+                             @Value("${analysis.user-cache.condition-keywords:}") List<String> conditionKeywords,
+                             UserRepository userRepository, AnalysisMetrics metrics, AIResponseParser responseParser) {
+        this.enabled = enabled;
+        this.ageBandYears = Math.max(1, ageBandYears);
+        this.bmrBandKcal = Math.max(1, bmrBandKcal);
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxEntries = maxEntries;
+        this.conditionKeywords = parseConditionKeywords(conditionKeywords);
+        this.userRepository = userRepository;
+        this.metrics = metrics;
+        this.responseParser = responseParser;
+        this.entries = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > UserAnalysisCache.this.maxEntries) {
+                    unindex(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns this user's cached analysis if its dependencies still match the profile, or runs {@code analysis}.
+     *
+     * @param user The requesting user
+     * @param foodName The food to analyze
+     * @param portionSize The portion size in grams
+     * @param variant The prompt variant the analysis is produced with
+     * @param analysis Produces the analysis on a miss
+     * @return The cached or freshly produced analysis
+     */
+    public AIAnalysis getOrCompute(User user, String foodName, double portionSize, PromptVariant variant,
+                                   Supplier<AIAnalysis> analysis) {
+        if (!enabled || user.getId() == null) {
+            return analysis.get();
+        }
+
+        String food = ArchetypeCache.normalizeFood(foodName);
+        String key = user.getId() + "|" + variant.tag() + '|' + food + "|p" + portionSize;
+        long now = System.nanoTime();
+        synchronized (entries) {
+            evictExpired(now);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.dependencies.equals(dependencies(user, food, entry.dependsOnName))) {
+                    hits.increment();
+                    metrics.recordCacheLookup("user", "hit");
+                    return entry.analysis;
+                }
+                remove(key, entry);
+                staleOnLookup.increment();
+            }
+        }
+
+        misses.increment();
+        metrics.recordCacheLookup("user", "miss");
+        AIAnalysis result = analysis.get();
+        if (responseParser.isWellFormed(result.getText())) {
+            boolean dependsOnName = ArchetypeCache.mentionsUser(result.getText(), user);
+            store(key, new Entry(user.getId(), food, dependsOnName, dependencies(user, food, dependsOnName),
+                    now + ttlNanos, result));
+        }
+        return result;
+    }
+
+    /**
+     * Re-checks the updated user's entries against the new profile and drops those whose
+     * dependencies changed; all of them if the user no longer exists.
+     */
+    @EventListener
+    public void onProfileUpdated(UserProfileUpdatedEvent event) {
+        Long userId = event.getUserId();
+        Optional<User> user = userRepository.findById(userId);
+        int dropped = 0;
+        int kept = 0;
+        synchronized (entries) {
+            Set<String> keys = byUser.get(userId);
+            if (keys == null) {
+                return;
+            }
+            for (String key : new ArrayList<>(keys)) {
+                Entry entry = entries.get(key);
+                if (user.isPresent() && entry.dependencies.equals(dependencies(user.get(), entry.food, entry.dependsOnName))) {
+                    kept++;
+                    continue;
+                }
+                remove(key, entry);
+                dropped++;
+            }
+        }
+        invalidated.add(dropped);
+        retained.add(kept);
+        log.debug("Profile update for user={} invalidated {} cached analyses and kept {}", userId, dropped, kept);
+    }
+
+    /**
+     * The profile attributes an analysis of {@code food} depends on, as one comparable string.
+     */
+    String dependencies(User user, String food, boolean dependsOnName) {
+        StringJoiner conditions = new StringJoiner(",");
+        for (String condition : ArchetypeCache.normalizeConditions(user.getHealthConditions())) {
+            if (isRelevant(condition, food)) {
+                conditions.add(condition);
+            }
+        }
+        return "a" + (user.getAge() != null ? user.getAge() / ageBandYears : "-")
+                + "|b" + (user.getWeight() != null && user.getHeight() != null && user.getAge() != null
+                        ? (long) Math.floor(user.calculateBMR() / bmrBandKcal) : "-")
+                + '|' + user.getGender()
+                + '|' + user.getActivityLevel()
+                + '|' + conditions
+                + (dependsOnName ? "|n" + ArchetypeCache.normalizeFood(user.getName()) : "");
+    }
+
+    private boolean isRelevant(String condition, String food) {
+        boolean known = false;
+        for (Map.Entry<String, Set<String>> keywords : conditionKeywords.entrySet()) {
+            if (!condition.contains(keywords.getKey())) {
+                continue;
+            }
+            known = true;
+            for (String keyword : keywords.getValue()) {
+                if (food.contains(keyword)) {
+                    return true;
+                }
+            }
+        }
+        return !known;
+    }
+
+    private void store(String key, Entry entry) {
+        synchronized (entries) {
+            Entry previous = entries.remove(key); // re-insert at the tail so the eldest entry stays first
+            if (previous != null) {
+                unindex(key, previous);
+            }
+            entries.put(key, entry);
+            byUser.computeIfAbsent(entry.userId, id -> new HashSet<>()).add(key);
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        unindex(key, entry);
+    }
+
+    private void unindex(String key, Entry entry) {
+        Set<String> keys = byUser.get(entry.userId);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                byUser.remove(entry.userId);
+            }
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getValue().expiresAtNanos - now > 0) {
+                break;
+            }
+            iterator.remove();
+            unindex(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "enabled", enabled,
+                "entries", size(),
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "staleOnLookup", staleOnLookup.sum(),
+                "invalidatedOnUpdate", invalidated.sum(),
+                "retainedOnUpdate", retained.sum());
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Parses {@code condition:keyword|keyword} items, e.g. {@code diabetes:sugar|rice}; names and keywords are normalized.
+     */
+    static Map<String, Set<String>> parseConditionKeywords(List<String> items) {
+        Map<String, Set<String>> keywords = new LinkedHashMap<>();
+        if (items == null) {
+            return keywords;
+        }
+        for (String item : items) {
+            if (item.isBlank()) {
+                continue;
+            }
+            int colon = item.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Invalid condition keywords '" + item + "', expected condition:keyword|keyword");
+            }
+            String condition = ArchetypeCache.normalizeFood(item.substring(0, colon));
+            for (String keyword : item.substring(colon + 1).split("\\|")) {
+                String normalized = ArchetypeCache.normalizeFood(keyword);
+                if (!normalized.isEmpty()) {
+                    keywords.computeIfAbsent(condition, c -> new HashSet<>()).add(normalized);
+                }
+            }
+        }
+        return keywords;
+    }
+
+    private static final class Entry {
+        private final Long userId;
+        private final String food;
+        private final boolean dependsOnName;
+        private final String dependencies;
+        private final long expiresAtNanos;
+        private final AIAnalysis analysis;
+
+        private Entry(Long userId, String food, boolean dependsOnName, String dependencies, long expiresAtNanos,
+                      AIAnalysis analysis) {
+            this.userId = userId;
+            this.food = food;
+            this.dependsOnName = dependsOnName;
+            this.dependencies = dependencies;
+            this.expiresAtNanos = expiresAtNanos;
+            this.analysis = analysis;
+        }
+    }
+}
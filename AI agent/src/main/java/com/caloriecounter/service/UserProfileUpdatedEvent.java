@@ -0,0 +1,18 @@
+package com.caloriecounter.service;
+
+/**
+ * Published by {@link UserService} after a user's profile was changed or the user was deleted,
+ * so that anything derived from the profile can be dropped.
+ */
+public class UserProfileUpdatedEvent {
+
+    private final Long userId;
+
+    public UserProfileUpdatedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -5,6 +5,7 @@ import com.caloriecounter.dto.UserRegistrationDto;
 import com.caloriecounter.model.User;
 import com.caloriecounter.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -17,6 +18,9 @@ public class UserService {
 
     @Autowired
     private SessionService sessionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     public UserProfileDto registerUser(UserRegistrationDto registrationDto) {
         // Check if user already exists
@@ -50,6 +54,19 @@ public class UserService {
                 .map(this::convertToProfileDto);
     }
     
+    /**
+     * Returns a strong ETag for the user's profile without building the profile DTO.
+     * Combines id, version and creation time so ids reused after a restart never match a stale tag.
+     *
+     * @param userId The user id
+     * @return Quoted ETag value, or empty if the user does not exist
+     */
+    public Optional<String> getProfileETag(Long userId) {
+        return userRepository.findById(userId)
+                .map(user -> "\"" + user.getId() + "-" + user.getVersion() + "-"
+                        + Integer.toHexString(user.getCreatedAt().hashCode()) + "\"");
+    }
+    
     public Optional<UserProfileDto> getUserByEmail(String email) {
         return userRepository.findByEmail(email)
                 .map(this::convertToProfileDto);
@@ -69,6 +86,7 @@ public class UserService {
         user.setHealthConditions(updateDto.getHealthConditions());
         
         User updatedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserProfileUpdatedEvent(userId));
         return convertToProfileDto(updatedUser);
     }
     
@@ -77,6 +95,7 @@ public class UserService {
             throw new RuntimeException("User not found with id: " + userId);
         }
         userRepository.deleteById(userId);
+        eventPublisher.publishEvent(new UserProfileUpdatedEvent(userId));
     }
     
     public double calculateBMR(User user) {
@@ -102,6 +121,7 @@ public class UserService {
         dto.setUpdatedAt(user.getUpdatedAt());
         dto.setBmr(user.calculateBMR());
         dto.setDailyCalorieNeeds(user.calculateDailyCalorieNeeds());
+        dto.setVersion(user.getVersion());
         return dto;
     }
 
@@ -0,0 +1,47 @@
+package com.caloriecounter.config;
+
+import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.dto.UserProfileDto;
+import com.caloriecounter.model.ActivityLevel;
+import com.caloriecounter.monitoring.ExperimentStats;
+import com.caloriecounter.monitoring.TokenUsageLedger;
+import com.caloriecounter.service.PrecomputeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NativeRuntimeHintsTest {
+
+    @Test
+    void testRegistersDtosTemplatesAndEnums() throws Exception {
+        // Given
+        RuntimeHints hints = new RuntimeHints();
+
+        // When
+        new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // Then
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(FoodRecommendation.class, "getSuitabilityScore").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(FoodRecommendation.class, "setBenefits").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(UserProfileDto.class, "getVersion").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(ActivityLevel.class.getMethod("getDescription")).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("templates/result.html").test(hints));
+    }
+
+    @Test
+    void testRegistersTypesNestedInAdminMaps() {
+        // Given
+        RuntimeHints hints = new RuntimeHints();
+
+        // When
+        new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // Then
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TokenUsageLedger.Snapshot.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(PrecomputeService.RunSummary.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(ExperimentStats.Summary.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(ExperimentStats.Estimate.class).test(hints)); // via Summary's getters
+    }
+}
@@ -0,0 +1,83 @@
+package com.caloriecounter.config;
+
+import com.caloriecounter.service.GeminiService;
+import com.caloriecounter.service.PromptBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.env.MockEnvironment;
+import org.thymeleaf.ITemplateEngine;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WarmupRunnerTest {
+
+    @Mock
+    private PromptBuilder promptBuilder;
+
+    @Mock
+    private GeminiService geminiService;
+
+    @Mock
+    private ObjectProvider<ITemplateEngine> templateEngine;
+
+    @Mock
+    private ObjectProvider<ObjectMapper> objectMapper;
+
+    @Mock
+    private ITemplateEngine engine;
+
+    @Test
+    void testWarmupPrimesParserTemplatesAndUpstream() {
+        // Given
+        when(templateEngine.getIfAvailable()).thenReturn(engine);
+        when(objectMapper.getIfAvailable()).thenReturn(new ObjectMapper());
+        WarmupRunner runner = runner(true);
+
+        // When
+        runner.run(null);
+
+        // Then
+        verify(promptBuilder, times(50)).buildNutritionPrompt(any(), anyString(), anyDouble());
+        verify(engine, times(3)).process(eq("result"), any());
+        verify(engine, times(3)).process(eq("profile"), any());
+        verify(geminiService).preconnect(eq(2), any(Duration.class));
+    }
+
+    @Test
+    void testDisabledWarmupDoesNothing() {
+        // When
+        runner(false).run(null);
+
+        // Then
+        verifyNoInteractions(promptBuilder, geminiService, templateEngine, objectMapper);
+    }
+
+    @Test
+    void testFailingStepDoesNotStopStartup() {
+        // Given
+        when(templateEngine.getIfAvailable()).thenReturn(engine);
+        when(engine.process(anyString(), any())).thenThrow(new IllegalStateException("template broken"));
+        WarmupRunner runner = runner(true);
+
+        // When
+        runner.run(null);
+
+        // Then - later steps still run
+        verify(geminiService).preconnect(eq(2), any(Duration.class));
+    }
+
+    private WarmupRunner runner(boolean enabled) {
+        // No local.server.port - page requests are skipped
+        return new WarmupRunner(promptBuilder, geminiService, templateEngine, objectMapper, new MockEnvironment(),
+                enabled, 50, 3, List.of("/"), 2, 10_000);
+    }
+}
@@ -0,0 +1,238 @@
+package com.caloriecounter.controller;
+
+import com.caloriecounter.dto.FoodAnalysisRequest;
+import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.dto.RecipeAnalysisRequest;
+import com.caloriecounter.dto.RecipeAnalysisResult;
+import com.caloriecounter.model.User;
+import com.caloriecounter.service.HealthAnalysisService;
+import com.caloriecounter.service.IdempotencyService;
+import com.caloriecounter.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// More recipe requests than the production burst allows for one client
+@WebMvcTest(value = AnalysisController.class, properties = "ratelimit.recipe.capacity=20")
+@Import(IdempotencyService.class)
+class AnalysisControllerTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private HealthAnalysisService healthAnalysisService;
+
+    @MockBean
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private FoodAnalysisRequest request;
+    private FoodRecommendation recommendation;
+
+    @BeforeEach
+    void setUp() {
+        request = new FoodAnalysisRequest(1L, "apple", 100.0);
+
+        recommendation = new FoodRecommendation();
+        recommendation.setFoodName("apple");
+        recommendation.setPortionSize(100.0);
+        recommendation.setSuitable(true);
+        recommendation.setSuitabilityScore("GOOD");
+        recommendation.setRecommendedPortionSize(80.0);
+        recommendation.setBenefits(Arrays.asList("Fiber", "Vitamin C"));
+        recommendation.setWarnings(Arrays.asList());
+        recommendation.setReasoning("Apple is a good choice.");
+    }
+
+    @Test
+    void testAnalyzeFood_Json() throws Exception {
+        when(userService.findById(1L)).thenReturn(new User());
+        when(healthAnalysisService.analyzeFoodForUser(1L, "apple", 100.0)).thenReturn(recommendation);
+
+        mockMvc.perform(post("/api/analysis")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.foodName").value("apple"))
+                .andExpect(jsonPath("$.suitabilityScore").value("GOOD"));
+    }
+
+    @Test
+    void testAnalyzeFood_Smile() throws Exception {
+        when(userService.findById(1L)).thenReturn(new User());
+        when(healthAnalysisService.analyzeFoodForUser(1L, "apple", 100.0)).thenReturn(recommendation);
+
+        MvcResult result = mockMvc.perform(post("/api/analysis")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(SMILE)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn();
+
+        byte[] body = result.getResponse().getContentAsByteArray();
+        FoodRecommendation decoded = new SmileMapper().readValue(body, FoodRecommendation.class);
+        assertEquals("apple", decoded.getFoodName());
+        assertEquals(80.0, decoded.getRecommendedPortionSize());
+        assertTrue(body.length < objectMapper.writeValueAsBytes(recommendation).length);
+    }
+
+    @Test
+    void testAnalyzeFood_CborRequestAndResponse() throws Exception {
+        CBORMapper cborMapper = new CBORMapper();
+        when(userService.findById(1L)).thenReturn(new User());
+        when(healthAnalysisService.analyzeFoodForUser(1L, "apple", 100.0)).thenReturn(recommendation);
+
+        MvcResult result = mockMvc.perform(post("/api/analysis")
+                .contentType(MediaType.parseMediaType("application/cbor"))
+                .accept(MediaType.parseMediaType("application/cbor"))
+                .content(cborMapper.writeValueAsBytes(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        FoodRecommendation decoded = cborMapper.readValue(result.getResponse().getContentAsByteArray(), FoodRecommendation.class);
+        assertEquals("GOOD", decoded.getSuitabilityScore());
+    }
+
+    @Test
+    void testAnalyzeFood_DuplicateIdempotencyKeyRunsOnce() throws Exception {
+        when(userService.findById(1L)).thenReturn(new User());
+        when(healthAnalysisService.analyzeFoodForUser(1L, "apple", 100.0)).thenReturn(recommendation);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/analysis")
+                    .header("Idempotency-Key", "meal-42")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.foodName").value("apple"));
+        }
+
+        verify(healthAnalysisService, times(1)).analyzeFoodForUser(1L, "apple", 100.0);
+    }
+
+    @Test
+    void testAnalyzeFood_IdempotencyKeyReusedForOtherFood() throws Exception {
+        when(userService.findById(1L)).thenReturn(new User());
+        when(healthAnalysisService.analyzeFoodForUser(1L, "apple", 100.0)).thenReturn(recommendation);
+
+        mockMvc.perform(post("/api/analysis")
+                .header("Idempotency-Key", "meal-43")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/analysis")
+                .header("Idempotency-Key", "meal-43")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new FoodAnalysisRequest(1L, "pizza", 100.0))))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(healthAnalysisService, never()).analyzeFoodForUser(1L, "pizza", 100.0);
+    }
+
+    @Test
+    void testAnalyzeFood_UserNotFound() throws Exception {
+        when(userService.findById(99L)).thenThrow(new RuntimeException("User not found with id: 99"));
+
+        mockMvc.perform(post("/api/analysis")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new FoodAnalysisRequest(99L, "apple", 100.0))))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("User not found with id: 99"));
+    }
+
+    @Test
+    void testAnalyzeFood_UpstreamFailure() throws Exception {
+        when(userService.findById(1L)).thenReturn(new User());
+        when(healthAnalysisService.analyzeFoodForUser(eq(1L), anyString(), anyDouble()))
+                .thenThrow(new RuntimeException("Failed to analyze food: Gemini API quota exceeded."));
+
+        // Distinct food so no earlier successful analysis is reused for this key
+        mockMvc.perform(post("/api/analysis")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new FoodAnalysisRequest(1L, "fried chicken", 200.0))))
+                .andExpect(status().isBadGateway())
+                .andExpect(jsonPath("$.error").value("Failed to analyze food: Gemini API quota exceeded."));
+    }
+
+    @Test
+    void testAnalyzeFood_ValidationError() throws Exception {
+        mockMvc.perform(post("/api/analysis")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new FoodAnalysisRequest(1L, "", 100.0))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testAnalyzeRecipe() throws Exception {
+        RecipeAnalysisResult result = new RecipeAnalysisResult();
+        result.setSuitabilityScore("GOOD");
+        result.setTotalPortionSize(100.0);
+        result.getIngredients().add(recommendation);
+        result.setComplete(true);
+        when(userService.findById(1L)).thenReturn(new User());
+        when(healthAnalysisService.analyzeRecipeForUser(1L, "100g apple")).thenReturn(result);
+
+        mockMvc.perform(post("/api/analysis/recipe")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RecipeAnalysisRequest(1L, "100g apple"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.suitabilityScore").value("GOOD"))
+                .andExpect(jsonPath("$.ingredients[0].foodName").value("apple"));
+    }
+
+    @Test
+    void testAnalyzeRecipe_NoIngredients() throws Exception {
+        when(userService.findById(1L)).thenReturn(new User());
+        when(healthAnalysisService.analyzeRecipeForUser(1L, "and, with"))
+                .thenThrow(new IllegalArgumentException("No ingredients found in recipe"));
+
+        mockMvc.perform(post("/api/analysis/recipe")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RecipeAnalysisRequest(1L, "and, with"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("No ingredients found in recipe"));
+    }
+
+    @Test
+    void testAnalyzeRecipe_AllIngredientsFailed() throws Exception {
+        RecipeAnalysisResult result = new RecipeAnalysisResult();
+        result.getErrors().add("apple: Gemini API quota exceeded.");
+        when(userService.findById(1L)).thenReturn(new User());
+        when(healthAnalysisService.analyzeRecipeForUser(1L, "apple")).thenReturn(result);
+
+        mockMvc.perform(post("/api/analysis/recipe")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RecipeAnalysisRequest(1L, "apple"))))
+                .andExpect(status().isBadGateway())
+                .andExpect(jsonPath("$.error").value("Recipe analysis failed: apple: Gemini API quota exceeded."));
+    }
+}
@@ -22,6 +22,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -136,6 +138,34 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.dailyCalorieNeeds").value(2555.56));
     }
 
+    @Test
+    void testGetUserProfile_ReturnsETag() throws Exception {
+        // Given
+        when(userService.getProfileETag(1L)).thenReturn(Optional.of("\"1-3-abc\""));
+        when(userService.getUserProfile(1L)).thenReturn(Optional.of(profileDto));
+
+        // When & Then
+        mockMvc.perform(get("/api/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3-abc\""))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    void testGetUserProfile_NotModified() throws Exception {
+        // Given
+        when(userService.getProfileETag(1L)).thenReturn(Optional.of("\"1-3-abc\""));
+
+        // When & Then
+        mockMvc.perform(get("/api/users/1").header("If-None-Match", "\"1-3-abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-3-abc\""))
+                .andExpect(content().string(""));
+
+        verify(userService, never()).getUserProfile(anyLong());
+    }
+
     @Test
     void testGetUserProfile_NotFound() throws Exception {
         // Given
@@ -0,0 +1,106 @@
+package com.caloriecounter.controller;
+
+import com.caloriecounter.repository.UserRepository;
+import com.caloriecounter.service.AiProviderRouter;
+import com.caloriecounter.service.GeminiAIService;
+import com.caloriecounter.service.GeminiService;
+import com.caloriecounter.service.HealthAnalysisService;
+import com.caloriecounter.service.IdempotencyService;
+import com.caloriecounter.service.PromptBuilder;
+import com.caloriecounter.service.SessionService;
+import com.caloriecounter.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(WebController.class)
+class WebControllerTest {
+
+    private static final String ANALYSIS = "SUITABILITY: GOOD\nRECOMMENDED_PORTION: 100\nBENEFITS: Fiber\n"
+            + "WARNINGS: None\nREASONING: A good snack for this profile.";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private GeminiService geminiService;
+
+    @MockBean
+    private PromptBuilder promptBuilder;
+
+    // Stands in for the cached analysis path: a warm archetype cache answers "apple, 100 g" without Gemini
+    @MockBean
+    private GeminiAIService geminiAIService;
+
+    // Would fail over, or answer from an OpenAI-compatible or deployment-keyed provider
+    @MockBean
+    private AiProviderRouter providerRouter;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private HealthAnalysisService healthAnalysisService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private SessionService sessionService;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        when(promptBuilder.buildNutritionPrompt(any(), eq("Apple"), eq(100.0))).thenReturn("apple prompt");
+        when(geminiAIService.analyzeFood(any(), anyString(), anyDouble())).thenReturn(ANALYSIS);
+    }
+
+    @Test
+    void testGemini_BogusKeyFailsEvenWithWarmCache() throws Exception {
+        // Given
+        when(geminiService.callGeminiAPI("apple prompt", "AIzaBogusKey"))
+                .thenThrow(new RuntimeException("Invalid Gemini API key. Please check your API key in application.properties."));
+
+        // When
+        String body = mockMvc.perform(get("/test-gemini").param("apiKey", "AIzaBogusKey"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        assertTrue(body.startsWith("ERROR: Invalid Gemini API key"), body);
+        verify(geminiService).callGeminiAPI("apple prompt", "AIzaBogusKey");
+        verifyNoInteractions(geminiAIService);
+    }
+
+    @Test
+    void testGemini_ChecksTheSubmittedKeyWithoutRouting() throws Exception {
+        // Given
+        when(geminiService.callGeminiAPI("apple prompt", "AIzaUserKey")).thenReturn(ANALYSIS);
+
+        // When
+        String body = mockMvc.perform(get("/test-gemini").param("apiKey", "AIzaUserKey"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then - only the configured Gemini endpoint with the user's key can vouch for the key
+        assertTrue(body.startsWith("SUCCESS"), body);
+        verify(geminiService).callGeminiAPI("apple prompt", "AIzaUserKey");
+        verifyNoInteractions(providerRouter);
+    }
+}
@@ -0,0 +1,113 @@
+package com.caloriecounter.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(true, 2, 6, 1, 2, 1, 1, 3, 60);
+
+    @Test
+    void testAnalyzeBudgetReturns429WithRetryAfter() throws Exception {
+        assertEquals(200, perform("POST", "/analyze", "10.0.0.1", null).getStatus());
+        assertEquals(200, perform("POST", "/analyze", "10.0.0.1", null).getStatus());
+
+        MockHttpServletResponse limited = perform("POST", "/analyze", "10.0.0.1", null);
+        assertEquals(429, limited.getStatus());
+        assertEquals("10", limited.getHeader("Retry-After"));
+        assertTrue(limited.getContentAsString().contains("Too many requests"));
+    }
+
+    @Test
+    void testRecipesHaveTheirOwnBudget() throws Exception {
+        assertEquals(200, perform("POST", "/api/analysis/recipe", "10.0.0.5", null).getStatus());
+
+        MockHttpServletResponse limited = perform("POST", "/api/analysis/recipe", "10.0.0.5", null);
+        assertEquals(429, limited.getStatus());
+        assertEquals("30", limited.getHeader("Retry-After"));
+        assertEquals(200, perform("POST", "/api/analysis", "10.0.0.5", null).getStatus());
+    }
+
+    @Test
+    void testBudgetsAreKeyedPerClient() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("currentUserId", 7L);
+
+        perform("GET", "/test-gemini", "10.0.0.2", null);
+        assertEquals(429, perform("GET", "/test-gemini", "10.0.0.2", null).getStatus());
+
+        // Another IP and a logged-in user each get their own budget
+        assertEquals(200, perform("GET", "/test-gemini", "10.0.0.3", null).getStatus());
+        assertEquals(200, perform("GET", "/test-gemini", "10.0.0.2", session).getStatus());
+    }
+
+    @Test
+    void testUnlimitedPathsAndAnalyzeFormAreNotLimited() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, perform("GET", "/analyze", "10.0.0.4", null).getStatus());
+            assertEquals(200, perform("GET", "/about", "10.0.0.4", null).getStatus());
+        }
+    }
+
+    @Test
+    void testBudgetRefillsOverTime() {
+        RateLimitFilter.Budget budget = new RateLimitFilter.Budget(1, 60);
+        long start = 0;
+
+        assertEquals(0, budget.tryAcquire("ip:1", start));
+        long retryAfter = budget.tryAcquire("ip:1", start);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), retryAfter);
+        assertEquals(0, budget.tryAcquire("ip:1", start + retryAfter));
+    }
+
+    @Test
+    void testFullBudgetSharesOneBucketUntilKeysGoIdle() {
+        RateLimitFilter.Budget budget = new RateLimitFilter.Budget(1, 60, 3);
+        long start = 0;
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, budget.tryAcquire("ip:" + i, start), "ip:" + i);
+        }
+        assertEquals(3, budget.trackedKeys());
+
+        // ip:3 was admitted through the shared overflow bucket, which is now used up for everyone untracked
+        assertTrue(budget.tryAcquire("ip:4", start) > 0);
+        assertTrue(budget.tryAcquire("ip:5", start + 1) > 0);
+        assertEquals(0, budget.tryAcquire("ip:0", start + TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(3, budget.trackedKeys());
+
+        // Once the tracked keys have replenished, the next sweep makes room again
+        long later = start + TimeUnit.SECONDS.toNanos(10);
+        assertEquals(0, budget.tryAcquire("ip:7", later));
+        assertEquals(1, budget.trackedKeys());
+    }
+
+    @Test
+    void testDisabledFilterPassesEverything() throws Exception {
+        RateLimitFilter disabled = new RateLimitFilter(false, 1, 1, 1, 1, 1, 1, 1, 1);
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/analysis");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            disabled.doFilter(request, response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String remoteAddr, MockHttpSession session) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        if (session != null) {
+            request.setSession(session);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,75 @@
+package com.caloriecounter.filter;
+
+import com.caloriecounter.monitoring.RequestTiming;
+import com.caloriecounter.monitoring.SlowRequestLog;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingFilterTest {
+
+    @Test
+    void testServerTimingHeaderIsWrittenBeforeBodyCommits() throws Exception {
+        // Given
+        ServerTimingFilter filter = new ServerTimingFilter(new SlowRequestLog(60_000, 10));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("POST", "/analyze"), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                RequestTiming.current().add("gemini_round_trip", TimeUnit.MILLISECONDS.toNanos(120));
+                RequestTiming.current().add("parse", TimeUnit.MICROSECONDS.toNanos(300));
+                resp.getWriter().write("ok");
+                resp.flushBuffer();
+            }
+        }));
+
+        // Then
+        String header = response.getHeader("Server-Timing");
+        assertNotNull(header);
+        assertTrue(header.startsWith("gemini_round_trip;dur=120.0, parse;dur=0.3, total;dur="), header);
+        assertNull(RequestTiming.current());
+    }
+
+    @Test
+    void testRequestsOverThresholdAreLoggedNewestFirst() throws Exception {
+        // Given
+        SlowRequestLog slowRequestLog = new SlowRequestLog(0, 2);
+        ServerTimingFilter filter = new ServerTimingFilter(slowRequestLog);
+
+        // When
+        for (String uri : List.of("/a", "/b", "/c")) {
+            filter.doFilter(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        // Then - capacity 2 keeps only the two newest
+        List<SlowRequestLog.Entry> entries = slowRequestLog.getEntries();
+        assertEquals(2, entries.size());
+        assertEquals("/c", entries.get(0).getUri());
+        assertEquals("/b", entries.get(1).getUri());
+    }
+
+    @Test
+    void testFastRequestsAreNotLogged() throws Exception {
+        // Given
+        SlowRequestLog slowRequestLog = new SlowRequestLog(60_000, 10);
+        ServerTimingFilter filter = new ServerTimingFilter(slowRequestLog);
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertTrue(slowRequestLog.getEntries().isEmpty());
+    }
+}
@@ -0,0 +1,68 @@
+package com.caloriecounter.monitoring;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderControlTest {
+
+    private final FlightRecorderControl control = new FlightRecorderControl("default", 60, 16);
+
+    @Test
+    void testRecordingCapturesCustomEvents() throws Exception {
+        // Given
+        control.start(Duration.ofSeconds(30));
+
+        GeminiCallEvent event = new GeminiCallEvent();
+        event.begin();
+        event.keyHash = GeminiCallEvent.hashKey("AIzaTestKey");
+        event.attempt = 2;
+        event.status = "rate_limited";
+        event.retryReason = "rate_limited";
+        event.commit();
+
+        // When
+        Path file = control.stopAndDump();
+
+        // Then
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals("com.caloriecounter.GeminiCall"))
+                    .toList();
+            assertEquals(1, events.size());
+            assertEquals(2, events.get(0).getInt("attempt"));
+            assertEquals("rate_limited", events.get(0).getString("retryReason"));
+            assertFalse(events.get(0).getString("keyHash").contains("AIza"));
+            assertEquals("NONE", control.getState());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testOnlyOneRecordingAtATime() {
+        // Given
+        Duration duration = control.start(Duration.ofHours(1));
+
+        // Then - capped at the configured maximum, and a second start is refused
+        try {
+            assertEquals(Duration.ofSeconds(60), duration);
+            assertThrows(IllegalStateException.class, () -> control.start(null));
+        } finally {
+            Path file = control.stopAndDump();
+            file.toFile().delete();
+        }
+    }
+
+    @Test
+    void testStopWithoutStartFails() {
+        assertThrows(IllegalStateException.class, control::stopAndDump);
+    }
+}
@@ -0,0 +1,49 @@
+package com.caloriecounter.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenUsageLedgerTest {
+
+    private final TokenUsageLedger ledger = new TokenUsageLedger();
+
+    @Test
+    void testRecord_AccumulatesPerUserAndVariant() {
+        // When
+        ledger.record(1L, "standard", 300, 100, true, TimeUnit.MILLISECONDS.toNanos(800));
+        ledger.record(1L, "compact", 100, 80, false, TimeUnit.MILLISECONDS.toNanos(600));
+        ledger.record(2L, "standard", 320, 110, true, TimeUnit.MILLISECONDS.toNanos(900));
+
+        // Then
+        TokenUsageLedger.Snapshot user1 = ledger.forUser(1L);
+        assertEquals(2, user1.getCalls());
+        assertEquals(1, user1.getReportedCalls());
+        assertEquals(400, user1.getPromptTokens());
+        assertEquals(180, user1.getResponseTokens());
+        assertEquals(700.0, user1.getAvgLatencyMillis(), 0.001);
+
+        assertEquals(2, ledger.byVariant().get("standard").getCalls());
+        assertEquals(310.0, ledger.byVariant().get("standard").getAvgPromptTokens(), 0.001);
+        assertEquals(0, ledger.forUser(99L).getCalls());
+    }
+
+    @Test
+    void testCompare_ReportsRelativeChange() {
+        // Given
+        assertTrue(ledger.compare("standard", "compact").isEmpty());
+        ledger.record(1L, "standard", 400, 100, true, TimeUnit.MILLISECONDS.toNanos(1000));
+        ledger.record(1L, "compact", 100, 80, true, TimeUnit.MILLISECONDS.toNanos(750));
+
+        // When
+        Map<String, Double> deltas = ledger.compare("standard", "compact");
+
+        // Then
+        assertEquals(-0.75, deltas.get("promptTokens"), 0.0001);
+        assertEquals(-0.2, deltas.get("responseTokens"), 0.0001);
+        assertEquals(-0.25, deltas.get("latencyMillis"), 0.0001);
+    }
+}
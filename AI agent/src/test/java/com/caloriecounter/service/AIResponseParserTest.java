@@ -0,0 +1,183 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.model.ActivityLevel;
+import com.caloriecounter.model.Gender;
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class AIResponseParserTest {
+
+    @Mock
+    private AnalysisMetrics metrics;
+
+    @InjectMocks
+    private AIResponseParser parser;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setAge(30);
+        user.setGender(Gender.FEMALE);
+        user.setWeight(60.0);
+        user.setHeight(165.0);
+        user.setActivityLevel(ActivityLevel.MODERATELY_ACTIVE);
+    }
+
+    @Test
+    void testParseCanonicalResponse() {
+        // Given
+        String response = "SUITABILITY: GOOD\n"
+                + "RECOMMENDED_PORTION: 200\n"
+                + "BENEFITS: High protein;Rich in fiber\n"
+                + "WARNINGS: None\n"
+                + "REASONING: Balanced meal for your profile.";
+
+        // When
+        FoodRecommendation recommendation = parse(response);
+
+        // Then
+        assertEquals("GOOD", recommendation.getSuitabilityScore());
+        assertTrue(recommendation.isSuitable());
+        assertEquals(200.0, recommendation.getRecommendedPortionSize());
+        assertEquals(List.of("High protein", "Rich in fiber"), recommendation.getBenefits());
+        assertTrue(recommendation.getWarnings().isEmpty());
+        assertEquals("Balanced meal for your profile.", recommendation.getReasoning());
+    }
+
+    @Test
+    void testParseMarkdownAndLowercaseLabels() {
+        // Given
+        String response = "Here is my analysis:\n\n**suitability:** poor - too much sugar\n"
+                + "**Recommended_Portion:** about 80 grams\n"
+                + "warnings: High sugar;Low fiber\n"
+                + "reasoning: Keep it occasional.\n";
+
+        // When
+        FoodRecommendation recommendation = parse(response);
+
+        // Then
+        assertEquals("POOR", recommendation.getSuitabilityScore());
+        assertFalse(recommendation.isSuitable());
+        assertEquals(80.0, recommendation.getRecommendedPortionSize());
+        assertEquals(List.of("High sugar", "Low fiber"), recommendation.getWarnings());
+        assertEquals("Keep it occasional.", recommendation.getReasoning());
+    }
+
+    @Test
+    void testMissingLabelsFallBackToDefaults() {
+        // When
+        FoodRecommendation recommendation = parse("The model ignored the requested format.");
+
+        // Then
+        assertEquals("MODERATE", recommendation.getSuitabilityScore());
+        assertEquals(250.0, recommendation.getRecommendedPortionSize());
+        assertTrue(recommendation.getBenefits().isEmpty());
+        assertEquals("AI analysis completed.", recommendation.getReasoning());
+    }
+
+    @Test
+    void testIsWellFormed() {
+        String complete = "SUITABILITY: GOOD\nRECOMMENDED_PORTION: 200\nBENEFITS: Fiber\nWARNINGS: None\nREASONING: Fits.";
+
+        assertTrue(parser.isWellFormed(complete));
+        assertTrue(parser.isWellFormed("**SUITABILITY:** [EXCELLENT]\nRECOMMENDED_PORTION: 150 grams\nBENEFITS: a\nWARNINGS: b\nREASONING: c"));
+        assertFalse(parser.isWellFormed(complete.replace("GOOD", "FINE")));
+        assertFalse(parser.isWellFormed(complete.replace("200", "a handful")));
+        assertFalse(parser.isWellFormed(complete.replace("REASONING: Fits.", "")));
+        assertFalse(parser.isWellFormed(null));
+    }
+
+    @Test
+    void testEmptyResponseFails() {
+        assertThrows(RuntimeException.class, () -> parse("  "));
+    }
+
+    @Test
+    void testMatchesOriginalRegexExtraction() {
+        // Given - fixed-seed random responses built from label, separator and value fragments
+        String[] fragments = {"SUITABILITY:", "suitability:", "RECOMMENDED_PORTION:", "Benefits:", "BENEFITS:",
+                "WARNINGS:", "REASONING:", "reasoning:", "NOTE:", "x_y:", "\n", "\r\n", " ", "\t", "  ",
+                "GOOD", "avoid", "Excellent", "moderat", "120", "7g", "**", ";", ":", "_", "word", "\u00e9", "\u2028", "\u0085", "\r"};
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder response = new StringBuilder();
+            int parts = 1 + random.nextInt(16);
+            for (int p = 0; p < parts; p++) {
+                response.append(fragments[random.nextInt(fragments.length)]);
+            }
+            String text = response.toString();
+
+            // When
+            String[] values = parser.extractValues(text);
+
+            // Then
+            for (int label = 0; label < AIResponseParser.LABELS.length; label++) {
+                assertEquals(legacyExtractValue(text, AIResponseParser.LABELS[label]), values[label],
+                        "label " + AIResponseParser.LABELS[label] + " in " + Arrays.toString(text.toCharArray()));
+            }
+        }
+    }
+
+    @Test
+    void testLongResponseIsParsedInOnePass() {
+        // Given - a pathological response with no line boundaries after the labels
+        String response = "SUITABILITY: GOOD " + "a".repeat(2_000_000) + "\nREASONING: fine";
+
+        // When
+        FoodRecommendation recommendation = assertTimeoutPreemptively(java.time.Duration.ofSeconds(5), () -> parse(response));
+
+        // Then
+        assertEquals("GOOD", recommendation.getSuitabilityScore());
+        assertEquals("fine", recommendation.getReasoning());
+    }
+
+    private FoodRecommendation parse(String response) {
+        FoodRecommendation recommendation = new FoodRecommendation();
+        recommendation.setFoodName("apple pie");
+        recommendation.setPortionSize(250.0);
+        parser.parseAIResponse(response, recommendation, user);
+        return recommendation;
+    }
+
+    // The regex extraction the single-pass parser replaced - kept as the reference behaviour
+    private static String legacyExtractValue(String text, String label) {
+        Matcher matcher = Pattern.compile(label + "\\s*(.+?)(?=\\n[A-Z_]+:|$)", Pattern.DOTALL | Pattern.CASE_INSENSITIVE)
+                .matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        String value = matcher.group(1).trim();
+        if (label.contains("SUITABILITY")) {
+            Matcher suitability = Pattern.compile("(EXCELLENT|GOOD|MODERATE|POOR|AVOID)", Pattern.CASE_INSENSITIVE).matcher(value);
+            if (suitability.find()) {
+                return suitability.group(1).toUpperCase();
+            }
+        }
+        if (label.contains("PORTION")) {
+            Matcher number = Pattern.compile("(\\d+)").matcher(value);
+            if (number.find()) {
+                return number.group(1);
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,179 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.config.AiProviderProperties;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AiProviderRouterTest {
+
+    private static final String GEMINI_URL = "https://gemini.example/v1beta/models/flash:generateContent";
+    private static final String LOCAL_URL = "http://localhost:11434/v1/chat/completions";
+    private static final String USER_KEY = "AIzaUserKey";
+    private static final String DEPLOYMENT_KEY = "AIzaDeployKey";
+
+    @Mock
+    private GeminiService geminiService;
+
+    @Mock
+    private OpenAICompatibleService openAIService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AnalysisMetrics metrics;
+    private AiProviderProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new AnalysisMetrics(meterRegistry);
+        properties = new AiProviderProperties();
+    }
+
+    @Test
+    void testDefaultProviderKeepsDirectGeminiBehaviour() {
+        // Given
+        AiProviderRouter router = router();
+        when(geminiService.callGemini("https://default.example", "prompt", USER_KEY, 3)).thenReturn(result(50));
+
+        // When
+        GeminiCallResult result = router.call("prompt", USER_KEY);
+
+        // Then
+        assertEquals("SUITABILITY: GOOD", result.getText());
+        RuntimeException missingKey = assertThrows(RuntimeException.class, () -> router.call("prompt", " "));
+        assertTrue(missingKey.getMessage().startsWith("Gemini API key not provided"));
+        assertEquals(1.0, meterRegistry.counter("analysis.gemini.api_key.failures", "reason", "missing").count());
+    }
+
+    @Test
+    void testFasterProviderIsPreferredOnceMeasured() {
+        // Given
+        properties.setProviders(List.of(provider("gemini-flash", AiProviderProperties.Type.GEMINI, GEMINI_URL),
+                provider("local-llm", AiProviderProperties.Type.OPENAI, LOCAL_URL)));
+        AiProviderRegistry registry = registry();
+        AiProviderRouter router = new AiProviderRouter(registry, geminiService, openAIService, metrics);
+        registry.getProviders().get(0).recordSuccess(900, 1.0);
+        registry.getProviders().get(1).recordSuccess(120, 1.0);
+        when(openAIService.call(eq(LOCAL_URL), eq("llama"), anyString(), isNull())).thenReturn(result(120));
+
+        // When
+        router.call("prompt", USER_KEY);
+
+        // Then
+        verify(geminiService, never()).callGemini(anyString(), anyString(), anyString(), anyInt());
+        assertEquals("local-llm", registry.candidates(USER_KEY, System.currentTimeMillis()).get(0).getName());
+    }
+
+    @Test
+    void testFailoverAndCooldownAfterRateLimit() {
+        // Given
+        AiProviderProperties.Provider shared = provider("gemini-flash", AiProviderProperties.Type.GEMINI, GEMINI_URL);
+        shared.setApiKey(DEPLOYMENT_KEY);
+        properties.setProviders(List.of(shared, provider("local-llm", AiProviderProperties.Type.OPENAI, LOCAL_URL)));
+        AiProviderRegistry registry = registry();
+        AiProviderRouter router = new AiProviderRouter(registry, geminiService, openAIService, metrics);
+        registry.getProviders().get(1).recordSuccess(2_000, 1.0); // slower, so Gemini goes first
+        when(geminiService.callGemini(GEMINI_URL, "prompt", DEPLOYMENT_KEY, 1))
+                .thenThrow(new RuntimeException("Gemini API rate limit exceeded after 1 attempts. Please wait and try again."));
+        when(openAIService.call(eq(LOCAL_URL), eq("llama"), anyString(), isNull())).thenReturn(result(2_000));
+
+        // When
+        router.call("prompt", USER_KEY);
+        router.call("prompt", USER_KEY);
+
+        // Then - the second request skips the cooling-down provider
+        verify(geminiService, times(1)).callGemini(anyString(), anyString(), anyString(), anyInt());
+        verify(openAIService, times(2)).call(anyString(), anyString(), anyString(), isNull());
+        assertEquals(1.0, meterRegistry.counter("analysis.provider.failovers", "from", "gemini-flash", "to", "local-llm").count());
+        assertEquals(1, meterRegistry.timer("analysis.provider.call", "provider", "gemini-flash", "outcome", "rate_limited").count());
+        assertEquals(2, meterRegistry.timer("analysis.provider.call", "provider", "local-llm", "outcome", "success").count());
+        assertEquals(List.of("local-llm"), names(registry.candidates(USER_KEY, System.currentTimeMillis())));
+    }
+
+    @Test
+    void testRateLimitOnOneUsersKeyDoesNotCoolDownSharedProvider() {
+        // Given
+        AiProviderRegistry registry = registry();
+        AiProviderRouter router = new AiProviderRouter(registry, geminiService, openAIService, metrics);
+        when(geminiService.callGemini("https://default.example", "prompt", "AIzaBusyKey", 3))
+                .thenThrow(new RuntimeException("Gemini API rate limit exceeded after 3 attempts. Please wait and try again."));
+        when(geminiService.callGemini("https://default.example", "prompt", USER_KEY, 3)).thenReturn(result(50));
+
+        // When
+        RuntimeException limited = assertThrows(RuntimeException.class, () -> router.call("prompt", "AIzaBusyKey"));
+        GeminiCallResult other = router.call("prompt", USER_KEY);
+
+        // Then - the second user's key is not affected by the first user's limit
+        assertTrue(limited.getMessage().startsWith("Gemini API rate limit exceeded"));
+        assertEquals("SUITABILITY: GOOD", other.getText());
+        assertEquals(1, meterRegistry.timer("analysis.provider.call", "provider", "gemini", "outcome", "rate_limited").count());
+        assertEquals(0.0, registry.getProviders().get(0).errorRate());
+        assertEquals(List.of("gemini"), names(registry.candidates(USER_KEY, System.currentTimeMillis())));
+    }
+
+    @Test
+    void testQuotaExhaustionAndUserKeyFailures() {
+        // Given
+        AiProviderProperties.Provider limited = provider("gemini-flash", AiProviderProperties.Type.GEMINI, GEMINI_URL);
+        limited.setRequestsPerMinute(1);
+        properties.setProviders(List.of(limited));
+        AiProviderRegistry registry = registry();
+        AiProviderRouter router = new AiProviderRouter(registry, geminiService, openAIService, metrics);
+        when(geminiService.callGemini(GEMINI_URL, "prompt", "AIzaBadKey", 3))
+                .thenThrow(new RuntimeException("Invalid Gemini API key. Please check your API key in application.properties."));
+
+        // When
+        RuntimeException rejected = assertThrows(RuntimeException.class, () -> router.call("prompt", "AIzaBadKey"));
+        RuntimeException exhausted = assertThrows(RuntimeException.class, () -> router.call("prompt", USER_KEY));
+
+        // Then - a rejected user key does not count against the provider, but it did use up the quota
+        assertTrue(rejected.getMessage().startsWith("Invalid Gemini API key"));
+        assertTrue(exhausted.getMessage().startsWith("No AI provider available"));
+        assertEquals(0.0, registry.getProviders().get(0).errorRate());
+        assertEquals(0.0, registry.getProviders().get(0).remainingQuotaFraction(System.currentTimeMillis()));
+    }
+
+    private AiProviderRouter router() {
+        return new AiProviderRouter(registry(), geminiService, openAIService, metrics);
+    }
+
+    private AiProviderRegistry registry() {
+        return new AiProviderRegistry(properties, "https://default.example", "gemini-2.0-flash", metrics);
+    }
+
+    private static AiProviderProperties.Provider provider(String name, AiProviderProperties.Type type, String url) {
+        AiProviderProperties.Provider provider = new AiProviderProperties.Provider();
+        provider.setName(name);
+        provider.setType(type);
+        provider.setUrl(url);
+        if (type == AiProviderProperties.Type.OPENAI) {
+            provider.setModel("llama");
+        }
+        return provider;
+    }
+
+    private static GeminiCallResult result(long latencyMs) {
+        return new GeminiCallResult("SUITABILITY: GOOD", 10, 5, 10, true, latencyMs * 1_000_000, 1);
+    }
+
+    private static List<String> names(List<AiProviderRegistry.Provider> providers) {
+        return providers.stream().map(AiProviderRegistry.Provider::getName).toList();
+    }
+}
@@ -0,0 +1,184 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.model.ActivityLevel;
+import com.caloriecounter.model.Gender;
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchetypeCacheTest {
+
+    private static final String ANALYSIS = "SUITABILITY: GOOD\nRECOMMENDED_PORTION: 100\nBENEFITS: Fiber\n"
+            + "WARNINGS: None\nREASONING: A good snack for this profile.";
+
+    private ArchetypeCache cache;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+        cache = new ArchetypeCache(true, 10, 100, List.of("Pregnancy", "kidney  disease"), 60_000, 100, 100, true, 1.5,
+                metrics, new AIResponseParser(metrics));
+        upstreamCalls = new AtomicInteger();
+    }
+
+    @Test
+    void testSimilarProfilesShareOneAnalysis() {
+        // Given
+        User first = user("John Doe", 30, 70.0, ActivityLevel.MODERATELY_ACTIVE, List.of("Diabetes"));
+        User second = user("Max Mustermann", 31, 71.0, ActivityLevel.MODERATELY_ACTIVE, List.of(" diabetes ", "none"));
+
+        // When
+        String a = cache.getOrCompute(first, "Apple", 100.0, PromptVariant.STANDARD, upstream(ANALYSIS)).getText();
+        String b = cache.getOrCompute(second, " apple ", 100.0, PromptVariant.STANDARD, upstream(ANALYSIS)).getText();
+
+        // Then
+        assertEquals(ANALYSIS, a);
+        assertEquals(ANALYSIS, b);
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(0.5, cache.stats().get("hitRatio"));
+    }
+
+    @Test
+    void testDifferentArchetypesDoNotShare() {
+        // Given
+        User base = user("A", 30, 70.0, ActivityLevel.MODERATELY_ACTIVE, List.of());
+
+        // When
+        cache.getOrCompute(base, "apple", 100.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+        cache.getOrCompute(user("B", 30, 70.0, ActivityLevel.SEDENTARY, List.of()), "apple", 100.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+        cache.getOrCompute(user("C", 45, 70.0, ActivityLevel.MODERATELY_ACTIVE, List.of()), "apple", 100.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+        cache.getOrCompute(user("D", 30, 70.0, ActivityLevel.MODERATELY_ACTIVE, List.of("celiac")), "apple", 100.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+        cache.getOrCompute(user("E", 30, 90.0, ActivityLevel.MODERATELY_ACTIVE, List.of()), "apple", 100.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+        cache.getOrCompute(base, "apple", 400.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+        cache.getOrCompute(base, "apple", 100.0, PromptVariant.COMPACT, upstream(ANALYSIS));
+
+        // Then
+        assertEquals(7, upstreamCalls.get());
+        assertEquals(7, cache.size());
+    }
+
+    @Test
+    void testBypassConditionNeverShares() {
+        // Given
+        User pregnant = user("P", 30, 60.0, ActivityLevel.LIGHTLY_ACTIVE, List.of("pregnancy"));
+        User kidney = user("K", 30, 60.0, ActivityLevel.LIGHTLY_ACTIVE, List.of("Kidney Disease"));
+
+        // When
+        cache.getOrCompute(pregnant, "apple", 100.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+        cache.getOrCompute(pregnant, "apple", 100.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+        cache.getOrCompute(kidney, "apple", 100.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+
+        // Then
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(0, cache.size());
+        assertEquals(3L, cache.stats().get("bypasses"));
+    }
+
+    @Test
+    void testPersonalOrMalformedResponsesAreNotShared() {
+        // Given
+        User user = user("Alice Smith", 30, 60.0, ActivityLevel.LIGHTLY_ACTIVE, List.of());
+        String personal = ANALYSIS.replace("for this profile", "for you, Alice");
+
+        // When
+        cache.getOrCompute(user, "apple", 100.0, PromptVariant.STANDARD, upstream(personal));
+        cache.getOrCompute(user, "pear", 100.0, PromptVariant.STANDARD, upstream("Looks fine to me."));
+
+        // Then
+        assertEquals(0, cache.size());
+        assertTrue(ArchetypeCache.mentionsUser("Hi ALICE!", user));
+        assertFalse(ArchetypeCache.mentionsUser("Malice aside, this is fine.", user));
+    }
+
+    @Test
+    void testNearbyPortionIsReusedWithinRatio() {
+        // Given
+        String rice = ANALYSIS.replace("RECOMMENDED_PORTION: 100", "RECOMMENDED_PORTION: 200");
+        User user = user("John Doe", 30, 70.0, ActivityLevel.MODERATELY_ACTIVE, List.of());
+        cache.getOrCompute(user, "rice", 100.0, PromptVariant.STANDARD, upstream(rice));
+        cache.getOrCompute(user, "rice", 300.0, PromptVariant.STANDARD, upstream(rice));
+
+        // When
+        AIAnalysis scaledDown = cache.getOrCompute(user, "rice", 80.0, PromptVariant.STANDARD, upstream(rice));
+        AIAnalysis scaledUp = cache.getOrCompute(user, "rice", 150.0, PromptVariant.STANDARD, upstream(rice));
+        AIAnalysis nearerTheLarger = cache.getOrCompute(user, "rice", 240.0, PromptVariant.STANDARD, upstream(rice));
+        AIAnalysis tooFar = cache.getOrCompute(user, "rice", 170.0, PromptVariant.STANDARD, upstream(rice));
+        AIAnalysis exact = cache.getOrCompute(user, "rice", 100.0, PromptVariant.STANDARD, upstream(rice));
+
+        // Then
+        assertEquals(100.0, scaledDown.getScaledFromPortion());
+        assertEquals(100.0, scaledUp.getScaledFromPortion());
+        assertEquals(300.0, nearerTheLarger.getScaledFromPortion());
+        assertNull(tooFar.getScaledFromPortion());
+        assertNull(exact.getScaledFromPortion());
+        assertEquals(3, upstreamCalls.get()); // 100, 300 and 170
+        assertEquals(3L, cache.stats().get("scaledHits"));
+    }
+
+    @Test
+    void testReusedAnalysisFollowsRequestedPortion() {
+        // Given
+        String cached = "SUITABILITY: GOOD\nRECOMMENDED_PORTION: 120\nBENEFITS: Fiber\nWARNINGS: None\n"
+                + "REASONING: Your 100g portion (100.0 grams) fits well; 1000 g would not.";
+        User user = user("John Doe", 30, 70.0, ActivityLevel.MODERATELY_ACTIVE, List.of());
+        cache.getOrCompute(user, "oats", 100.0, PromptVariant.STANDARD, upstream(cached));
+
+        // When
+        AIAnalysis withinRecommendation = cache.getOrCompute(user, "oats", 110.0, PromptVariant.STANDARD, upstream(cached));
+        AIAnalysis overRecommendation = cache.getOrCompute(user, "oats", 140.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+
+        // Then - 140g would cross the recommended 120g, so the cached verdict does not apply
+        assertEquals(100.0, withinRecommendation.getScaledFromPortion());
+        assertTrue(withinRecommendation.getText().endsWith("Your 110g portion (110 grams) fits well; 1000 g would not."),
+                withinRecommendation.getText());
+        assertNull(overRecommendation.getScaledFromPortion());
+        assertEquals(ANALYSIS, overRecommendation.getText());
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void testPortionScalingCanBeDisabled() {
+        // Given
+        AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+        ArchetypeCache exactOnly = new ArchetypeCache(true, 10, 100, List.of(), 60_000, 100, 100, false, 1.5,
+                metrics, new AIResponseParser(metrics));
+        User user = user("John Doe", 30, 70.0, ActivityLevel.MODERATELY_ACTIVE, List.of());
+
+        // When
+        exactOnly.getOrCompute(user, "rice", 100.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+        AIAnalysis second = exactOnly.getOrCompute(user, "rice", 110.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+
+        // Then
+        assertNull(second.getScaledFromPortion());
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    private Supplier<String> upstream(String response) {
+        return () -> {
+            upstreamCalls.incrementAndGet();
+            return response;
+        };
+    }
+
+    private static User user(String name, int age, double weight, ActivityLevel activityLevel, List<String> conditions) {
+        User user = new User();
+        user.setName(name);
+        user.setAge(age);
+        user.setWeight(weight);
+        user.setHeight(175.0);
+        user.setGender(Gender.MALE);
+        user.setActivityLevel(activityLevel);
+        user.setHealthConditions(conditions);
+        user.setGeminiApiKey("AIzaTestKey");
+        return user;
+    }
+}
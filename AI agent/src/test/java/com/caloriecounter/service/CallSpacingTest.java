@@ -0,0 +1,81 @@
+package com.caloriecounter.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallSpacingTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void testBurstGoesOutTogetherThenCallsAreSpaced() {
+        // Given
+        CallSpacing spacing = new CallSpacing();
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+
+        // When
+        List<Long> waits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            waits.add(spacing.reserve(INTERVAL, 3, now));
+        }
+
+        // Then
+        assertEquals(List.of(0L, 0L, 0L, INTERVAL, 2 * INTERVAL), waits);
+        assertEquals(0, spacing.reserve(INTERVAL, 3, now + 10 * INTERVAL)); // idle again
+    }
+
+    @Test
+    void testZeroIntervalNeverWaits() {
+        CallSpacing spacing = new CallSpacing();
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, spacing.reserve(0, 1, now));
+        }
+    }
+
+    @Test
+    void testConcurrentCallersGetDistinctSlots() throws Exception {
+        // Given
+        CallSpacing spacing = new CallSpacing();
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        int callers = 6;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        try {
+            // When
+            List<Future<Long>> waits = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                Callable<Long> reserve = () -> {
+                    start.await();
+                    return spacing.reserve(INTERVAL, 1, now);
+                };
+                waits.add(executor.submit(reserve));
+            }
+            start.countDown();
+
+            // Then - one slot per caller, one interval apart
+            List<Long> slots = new ArrayList<>();
+            for (Future<Long> wait : waits) {
+                slots.add(wait.get(5, TimeUnit.SECONDS));
+            }
+            slots.sort(null);
+            for (int i = 0; i < callers; i++) {
+                assertEquals(i * INTERVAL, slots.get(i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
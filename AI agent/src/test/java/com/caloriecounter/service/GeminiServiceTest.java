@@ -0,0 +1,266 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.config.GeminiClientConfig;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import com.caloriecounter.monitoring.PayloadLog;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeminiServiceTest {
+
+    private static final String GEMINI_RESPONSE =
+            "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"SUITABILITY: GOOD\"}]}}]}";
+
+    private volatile String responseBody = GEMINI_RESPONSE;
+    private final List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+    private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+    private final List<Long> arrivals = new CopyOnWriteArrayList<>();
+    private volatile long serverDelayMs;
+    private HttpServer server;
+    private ConnectionProvider connectionProvider;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/gemini", exchange -> {
+            arrivals.add(System.nanoTime());
+            acceptEncodings.add(String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")));
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            exchange.getRequestBody().readAllBytes();
+            sleep(serverDelayMs);
+
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+                gzip.write(responseBody.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, gzipped.size());
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(gzipped.toByteArray());
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+    }
+
+    @Test
+    void testPooledClientNegotiatesGzipAndReusesConnections() {
+        // Given
+        GeminiService service = geminiService(5_000);
+
+        // When
+        String first = service.callGeminiAPI("prompt one", "AIzaTestKey");
+        sleep(50); // the connection goes back to the pool on the event loop, just after the response completes
+        String second = service.callGeminiAPI("prompt two", "AIzaTestKey");
+
+        // Then
+        assertEquals("SUITABILITY: GOOD", first);
+        assertEquals("SUITABILITY: GOOD", second);
+        assertTrue(acceptEncodings.get(0).contains("gzip"), acceptEncodings.toString());
+        assertEquals(clientPorts.get(0), clientPorts.get(1), "second call should reuse the kept-alive connection");
+    }
+
+    @Test
+    void testTokenCountsPreferUsageMetadata() {
+        // Given
+        GeminiService service = geminiService(5_000);
+        responseBody = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"SUITABILITY: GOOD\"}]}}],"
+                + "\"usageMetadata\":{\"promptTokenCount\":42,\"candidatesTokenCount\":7,\"totalTokenCount\":49}}";
+
+        // When
+        GeminiCallResult reported = service.callGemini("twelve chars", "AIzaTestKey");
+        responseBody = GEMINI_RESPONSE;
+        GeminiCallResult estimated = service.callGemini("twelve chars", "AIzaTestKey");
+
+        // Then
+        assertTrue(reported.isReported());
+        assertEquals(42, reported.getPromptTokens());
+        assertEquals(7, reported.getResponseTokens());
+        assertEquals(3, reported.getEstimatedPromptTokens());
+        assertFalse(estimated.isReported());
+        assertEquals(3, estimated.getPromptTokens());
+        assertEquals(TokenEstimator.estimate("SUITABILITY: GOOD"), estimated.getResponseTokens());
+        assertTrue(estimated.getLatencyNanos() > 0);
+    }
+
+    @Test
+    void testResponseTimeoutFailsTheCall() {
+        // Given
+        serverDelayMs = 1_000;
+        GeminiService service = geminiService(200);
+
+        // When
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> service.callGeminiAPI("slow prompt", "AIzaTestKey"));
+
+        // Then
+        assertTrue(exception.getMessage().startsWith("Gemini API call failed"), exception.getMessage());
+        assertEquals(1, roundTrips("timeout"));
+        assertEquals(0, roundTrips("success"));
+    }
+
+    @Test
+    void testRateLimitedRoundTripsAreTimed() {
+        // Given
+        GeminiService service = geminiService(5_000);
+        server.createContext("/limited", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+        });
+        String limitedUrl = "http://localhost:" + server.getAddress().getPort() + "/limited";
+
+        // When
+        assertThrows(RuntimeException.class, () -> service.callGemini(limitedUrl, "prompt", "AIzaTestKey", 1));
+
+        // Then
+        assertEquals(1, roundTrips("rate_limited"));
+    }
+
+    @Test
+    void testConcurrentCallsAreSpacedAfterTheBurst() throws Exception {
+        // Given - two calls may go out together, then one per 150 ms
+        GeminiService service = geminiService(5_000);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            warmUp(service, executor); // connections are open, so arrival times reflect the spacing alone
+            ReflectionTestUtils.setField(service, "minCallInterval", 150L);
+            ReflectionTestUtils.setField(service, "callBurst", 2);
+
+            // When
+            List<Future<String>> calls = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                calls.add(executor.submit(() -> {
+                    start.await();
+                    return service.callGeminiAPI("prompt", "AIzaTestKey");
+                }));
+            }
+            start.countDown();
+            for (Future<String> call : calls) {
+                assertEquals("SUITABILITY: GOOD", call.get(10, TimeUnit.SECONDS));
+            }
+
+            // Then - the third and fourth calls waited for their own slots instead of firing together
+            List<Long> sorted = new ArrayList<>(arrivals);
+            sorted.sort(null);
+            assertEquals(4, sorted.size());
+            assertTrue(sorted.get(1) - sorted.get(0) < TimeUnit.MILLISECONDS.toNanos(120), "burst was spaced");
+            assertTrue(sorted.get(2) - sorted.get(0) >= TimeUnit.MILLISECONDS.toNanos(120), "third call not spaced");
+            assertTrue(sorted.get(3) - sorted.get(2) >= TimeUnit.MILLISECONDS.toNanos(120), "fourth call not spaced");
+            assertEquals(2, meterRegistry.find("analysis.stage").tags("stage", AnalysisMetrics.RATE_LIMIT_WAIT)
+                    .timers().stream().mapToLong(timer -> timer.count()).sum());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testBackgroundCallsTakeNoLiveSlots() {
+        // Given - one live call per 500 ms
+        GeminiService service = geminiService(5_000);
+        ReflectionTestUtils.setField(service, "minCallInterval", 500L);
+        ReflectionTestUtils.setField(service, "callBurst", 1);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            service.callGeminiInBackground("precompute", "AIzaServiceKey");
+        }
+        String live = service.callGeminiAPI("prompt", "AIzaTestKey");
+
+        // Then - the live call did not wait behind the background calls
+        assertEquals("SUITABILITY: GOOD", live);
+        assertEquals(4, arrivals.size());
+        assertEquals(0, meterRegistry.find("analysis.stage").tags("stage", AnalysisMetrics.RATE_LIMIT_WAIT)
+                .timers().stream().mapToLong(timer -> timer.count()).sum());
+    }
+
+    @Test
+    void testPreconnectCountsAnyHttpResponse() {
+        // Given - the real endpoint rejects a keyless HEAD
+        GeminiService service = geminiService(5_000);
+        server.createContext("/rejects-head", exchange -> {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+        });
+        ReflectionTestUtils.setField(service, "apiUrl", "http://localhost:" + server.getAddress().getPort() + "/rejects-head");
+
+        // When
+        int connected = service.preconnect(2, Duration.ofSeconds(5));
+
+        // Then
+        assertEquals(2, connected);
+    }
+
+    private void warmUp(GeminiService service, ExecutorService executor) throws Exception {
+        List<Future<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(executor.submit(() -> service.callGeminiAPI("warm-up", "AIzaTestKey")));
+        }
+        for (Future<String> call : calls) {
+            call.get(10, TimeUnit.SECONDS);
+        }
+        arrivals.clear();
+    }
+
+    private long roundTrips(String outcome) {
+        return meterRegistry.find("analysis.stage").tags("stage", AnalysisMetrics.GEMINI_ROUND_TRIP, "outcome", outcome)
+                .timers().stream().mapToLong(timer -> timer.count()).sum();
+    }
+
+    private GeminiService geminiService(long responseTimeoutMs) {
+        String apiUrl = "http://localhost:" + server.getAddress().getPort() + "/gemini";
+        GeminiClientConfig config = new GeminiClientConfig();
+        connectionProvider = config.geminiConnectionProvider(4, 16, 1_000, 30_000, 300_000);
+        WebClient webClient = config.geminiWebClient(connectionProvider, WebClient.builder(), apiUrl,
+                true, true, 1_000, responseTimeoutMs, 262_144);
+
+        GeminiService service = new GeminiService(webClient, new AnalysisMetrics(meterRegistry),
+                new PayloadLog(0.0, 16));
+        ReflectionTestUtils.setField(service, "apiUrl", apiUrl);
+        ReflectionTestUtils.setField(service, "minCallInterval", 0L);
+        return service;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
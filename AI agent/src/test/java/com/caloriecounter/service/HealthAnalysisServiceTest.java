@@ -1,15 +1,26 @@
 package com.caloriecounter.service;
 
+import com.caloriecounter.dto.FoodAnalysisRequest;
 import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.dto.MealAnalysisResult;
+import com.caloriecounter.dto.RecipeAnalysisResult;
 import com.caloriecounter.model.*;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -22,19 +33,30 @@ class HealthAnalysisServiceTest {
     @Mock
     private UserService userService;
 
-    @Mock
+    @Mock(answer = Answers.CALLS_REAL_METHODS) // analyze(..) delegates to the stubbed analyzeFood(..)
     private AIService aiService; // Mocking the interface - follows DIP
 
     @Mock
     private AIResponseParser responseParser; // Mock the response parser
 
+    @Mock
+    private AnalysisMetrics metrics;
+
     @InjectMocks
     private HealthAnalysisService healthAnalysisService;
 
     private User testUser;
 
+    private ExecutorService analysisExecutor;
+
     @BeforeEach
     void setUp() {
+        analysisExecutor = Executors.newFixedThreadPool(6);
+        ReflectionTestUtils.setField(healthAnalysisService, "analysisExecutor", analysisExecutor);
+        ReflectionTestUtils.setField(healthAnalysisService, "fanOutDeadlineMs", 5000L);
+        ReflectionTestUtils.setField(healthAnalysisService, "recipeParser", new RecipeParser(15, 100, 100));
+        ReflectionTestUtils.setField(healthAnalysisService, "recipeComposer", new RecipeComposer());
+
         testUser = new User();
         testUser.setId(1L);
         testUser.setName("John Doe");
@@ -46,6 +68,11 @@ class HealthAnalysisServiceTest {
         testUser.setHealthConditions(Arrays.asList("None"));
     }
 
+    @AfterEach
+    void tearDown() {
+        analysisExecutor.shutdownNow();
+    }
+
     @Test
     void testAnalyzeFoodForHealthyUser_ChickenBreast() {
         // Mock AI response
@@ -249,4 +276,113 @@ class HealthAnalysisServiceTest {
 
         assertTrue(exception.getMessage().contains("Failed to analyze food"));
     }
+
+    @Test
+    void testAnalyzeFoodsForUser_RunsItemsConcurrently() {
+        when(userService.findById(1L)).thenReturn(testUser);
+        when(aiService.analyzeFood(any(User.class), anyString(), anyDouble())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return "SUITABILITY: GOOD";
+        });
+
+        List<FoodAnalysisRequest> meal = Arrays.asList(
+                new FoodAnalysisRequest(1L, "rice", 150.0),
+                new FoodAnalysisRequest(1L, "chicken breast", 120.0),
+                new FoodAnalysisRequest(1L, "broccoli", 80.0),
+                new FoodAnalysisRequest(1L, "salad", 60.0),
+                new FoodAnalysisRequest(1L, "yogurt", 100.0),
+                new FoodAnalysisRequest(1L, "apple", 100.0));
+
+        // Test
+        MealAnalysisResult result = healthAnalysisService.analyzeFoodsForUser(1L, meal);
+
+        // Verify - six 300ms items should take roughly one item's latency, not the sum
+        assertTrue(result.isComplete());
+        assertFalse(result.isTimedOut());
+        assertEquals(6, result.getRecommendations().size());
+        assertEquals("rice", result.getRecommendations().get(0).getFoodName());
+        assertEquals("apple", result.getRecommendations().get(5).getFoodName());
+        assertTrue(result.getElapsedMillis() < 1500, "Elapsed " + result.getElapsedMillis() + "ms");
+    }
+
+    @Test
+    void testAnalyzeFoodsForUser_DeadlineReturnsPartialResults() {
+        ReflectionTestUtils.setField(healthAnalysisService, "fanOutDeadlineMs", 500L);
+        when(userService.findById(1L)).thenReturn(testUser);
+        when(aiService.analyzeFood(any(User.class), eq("apple"), anyDouble())).thenReturn("SUITABILITY: GOOD");
+        when(aiService.analyzeFood(any(User.class), eq("slow soup"), anyDouble())).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return "SUITABILITY: GOOD";
+        });
+
+        // Test
+        MealAnalysisResult result = healthAnalysisService.analyzeFoodsForUser(1L, Arrays.asList(
+                new FoodAnalysisRequest(1L, "apple", 100.0),
+                new FoodAnalysisRequest(1L, "slow soup", 250.0)));
+
+        // Verify
+        assertTrue(result.isTimedOut());
+        assertFalse(result.isComplete());
+        assertEquals(1, result.getRecommendations().size());
+        assertEquals("apple", result.getRecommendations().get(0).getFoodName());
+        assertTrue(result.getErrors().get(0).contains("slow soup"));
+        assertTrue(result.getElapsedMillis() < 2000);
+    }
+
+    @Test
+    void testAnalyzeFoodsForUser_FailureCancelsSiblings() {
+        when(userService.findById(1L)).thenReturn(testUser);
+        when(aiService.analyzeFood(any(User.class), eq("bad food"), anyDouble()))
+                .thenThrow(new RuntimeException("Gemini API call failed"));
+        // The sibling may be cancelled before it even starts
+        lenient().when(aiService.analyzeFood(any(User.class), eq("slow soup"), anyDouble())).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return "SUITABILITY: GOOD";
+        });
+
+        // Test
+        MealAnalysisResult result = healthAnalysisService.analyzeFoodsForUser(1L, Arrays.asList(
+                new FoodAnalysisRequest(1L, "bad food", 100.0),
+                new FoodAnalysisRequest(1L, "slow soup", 250.0)));
+
+        // Verify
+        assertFalse(result.isTimedOut());
+        assertFalse(result.isComplete());
+        assertTrue(result.getRecommendations().isEmpty());
+        assertEquals(2, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).contains("bad food"));
+        assertTrue(result.getErrors().get(1).contains("cancelled"));
+        assertTrue(result.getElapsedMillis() < 2000);
+    }
+
+    @Test
+    void testAnalyzeRecipeForUser_SharedIngredientsComeFromCache() {
+        // Setup - the AI path goes through a real per-user cache, counting upstream calls
+        AnalysisMetrics cacheMetrics = new AnalysisMetrics(new io.micrometer.core.instrument.simple.SimpleMeterRegistry());
+        AIResponseParser parser = new AIResponseParser(cacheMetrics);
+        ReflectionTestUtils.setField(healthAnalysisService, "responseParser", parser);
+        UserAnalysisCache cache = new UserAnalysisCache(true, 10, 100, 60_000, 100, List.of(),
+                new com.caloriecounter.repository.UserRepository(), cacheMetrics, parser);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        when(userService.findById(1L)).thenReturn(testUser);
+        when(aiService.analyze(any(User.class), anyString(), anyDouble())).thenAnswer(invocation ->
+                cache.getOrCompute(testUser, invocation.getArgument(1), invocation.getArgument(2), PromptVariant.STANDARD,
+                        () -> {
+                            upstreamCalls.incrementAndGet();
+                            return new AIAnalysis("SUITABILITY: GOOD\nRECOMMENDED_PORTION: 100\nBENEFITS: Protein\n"
+                                    + "WARNINGS: None\nREASONING: Fine.");
+                        }));
+
+        // Test
+        RecipeAnalysisResult first = healthAnalysisService.analyzeRecipeForUser(1L, "200g pasta with 2 tbsp pesto and 150g chicken");
+        RecipeAnalysisResult second = healthAnalysisService.analyzeRecipeForUser(1L, "150g Chicken, 2 tbsp pesto, 100g rice");
+
+        // Verify - only rice is new in the second recipe
+        assertEquals(3, first.getIngredients().size());
+        assertEquals(3, second.getIngredients().size());
+        assertEquals(4, upstreamCalls.get());
+        assertEquals("GOOD", second.getSuitabilityScore());
+        assertEquals(280.0, second.getTotalPortionSize());
+        assertEquals("chicken", second.getLimitingIngredient());
+    }
 }
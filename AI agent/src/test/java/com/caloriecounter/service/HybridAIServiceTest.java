@@ -0,0 +1,114 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.model.ActivityLevel;
+import com.caloriecounter.model.Gender;
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HybridAIServiceTest {
+
+    @Mock
+    private GeminiAIService gemini;
+
+    private LocalNutritionAIService local;
+    private SimpleMeterRegistry registry;
+    private AnalysisMetrics metrics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        local = new LocalNutritionAIService(new ClassPathResource("nutrition/nutrients.csv"));
+        registry = new SimpleMeterRegistry();
+        metrics = new AnalysisMetrics(registry);
+
+        user = new User();
+        user.setAge(30);
+        user.setWeight(70.0);
+        user.setHeight(175.0);
+        user.setGender(Gender.FEMALE);
+        user.setActivityLevel(ActivityLevel.LIGHTLY_ACTIVE);
+        user.setHealthConditions(List.of("Diabetes"));
+    }
+
+    @Test
+    void testConfidentLocalEstimateSkipsGemini() {
+        // Given
+        HybridAIService hybrid = new HybridAIService("hybrid", 1.0, gemini, local, metrics);
+
+        // When
+        AIAnalysis analysis = hybrid.analyze(user, "apple", 150.0);
+
+        // Then
+        assertEquals(LocalNutritionAIService.SOURCE, analysis.getSource());
+        verify(gemini, never()).analyze(any(User.class), anyString(), anyDouble());
+        assertEquals(1.0, routeCount("local"));
+    }
+
+    @Test
+    void testUncertainEstimateGoesToGeminiAndServesFallbackOnFailure() {
+        // Given
+        HybridAIService hybrid = new HybridAIService("hybrid", 1.0, gemini, local, metrics);
+        when(gemini.analyze(any(User.class), anyString(), anyDouble()))
+                .thenReturn(new AIAnalysis("SUITABILITY: GOOD"))
+                .thenThrow(new RuntimeException("Gemini API quota exceeded."));
+
+        // When
+        AIAnalysis first = hybrid.analyze(user, "grilled chicken breast", 150.0);
+        AIAnalysis second = hybrid.analyze(user, "grilled chicken breast", 150.0);
+
+        // Then
+        assertEquals(AIAnalysis.GEMINI, first.getSource());
+        assertEquals(LocalNutritionAIService.SOURCE, second.getSource());
+        assertTrue(second.getText().startsWith("SUITABILITY:"));
+        assertEquals(1.0, routeCount("ai"));
+        assertEquals(1.0, routeCount("fallback"));
+    }
+
+    @Test
+    void testUnknownFoodFailureReachesCaller() {
+        // Given
+        HybridAIService hybrid = new HybridAIService("hybrid", 1.0, gemini, local, metrics);
+        when(gemini.analyze(any(User.class), anyString(), anyDouble()))
+                .thenThrow(new RuntimeException("Gemini API quota exceeded."));
+
+        // When / Then
+        RuntimeException e = assertThrows(RuntimeException.class, () -> hybrid.analyze(user, "jackfruit curry", 200.0));
+        assertEquals("Gemini API quota exceeded.", e.getMessage());
+        assertEquals(1.0, routeCount("unavailable"));
+    }
+
+    @Test
+    void testGeminiAndLocalModes() {
+        // Given
+        HybridAIService geminiOnly = new HybridAIService("gemini", 1.0, gemini, local, metrics);
+        HybridAIService localOnly = new HybridAIService("LOCAL", 1.0, gemini, local, metrics);
+        when(gemini.analyze(any(User.class), anyString(), anyDouble())).thenReturn(new AIAnalysis("SUITABILITY: GOOD"));
+
+        // When / Then
+        assertEquals(AIAnalysis.GEMINI, geminiOnly.analyze(user, "apple", 150.0).getSource());
+        assertEquals(LocalNutritionAIService.SOURCE, localOnly.analyze(user, "grilled chicken breast", 150.0).getSource());
+        assertThrows(RuntimeException.class, () -> localOnly.analyze(user, "jackfruit curry", 200.0));
+    }
+
+    private double routeCount(String route) {
+        return registry.counter("analysis.route", "route", route).count();
+    }
+}
@@ -0,0 +1,188 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.dto.FoodRecommendation;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    private static final String APPLE = "1:apple:100.0";
+
+    @Test
+    void testDuplicateSubmissionReusesFinishedResult() {
+        IdempotencyService service = new IdempotencyService(60_000, 100, 5_000);
+        AtomicInteger calls = new AtomicInteger();
+
+        FoodRecommendation first = service.execute("web:s1:token", APPLE, () -> recommendation("apple", calls));
+        FoodRecommendation second = service.execute("web:s1:token", APPLE, () -> recommendation("apple", calls));
+
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testDuplicateSubmissionAttachesToInFlightAnalysis() throws Exception {
+        IdempotencyService service = new IdempotencyService(60_000, 100, 5_000);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<FoodRecommendation> original = executor.submit(() -> service.execute("key", APPLE, () -> {
+                started.countDown();
+                await(release);
+                return recommendation("rice", calls);
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<FoodRecommendation> duplicate = executor.submit(() -> service.execute("key", APPLE, () -> recommendation("rice", calls)));
+
+            release.countDown();
+            assertSame(original.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailedAnalysisCanBeRetried() {
+        IdempotencyService service = new IdempotencyService(60_000, 100, 5_000);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(RuntimeException.class, () -> service.execute("key", APPLE, () -> {
+            throw new RuntimeException("Gemini API rate limit exceeded");
+        }));
+        FoodRecommendation retried = service.execute("key", APPLE, () -> recommendation("apple", calls));
+
+        assertEquals("apple", retried.getFoodName());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testEntriesExpireAndStoreIsBounded() throws Exception {
+        IdempotencyService service = new IdempotencyService(50, 3, 5_000);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            service.execute("key-" + i, APPLE, () -> recommendation("apple", calls));
+        }
+        assertEquals(3, service.size());
+
+        Thread.sleep(100);
+        service.execute("key-0", APPLE, () -> recommendation("apple", calls));
+        assertEquals(1, service.size());
+        assertEquals(11, calls.get());
+    }
+
+    @Test
+    void testKeyReusedForDifferentPayloadIsRejected() {
+        IdempotencyService service = new IdempotencyService(60_000, 100, 5_000);
+        AtomicInteger calls = new AtomicInteger();
+
+        service.execute("web:s1:token", service.fingerprint(1L, "Apple", 100.0), () -> recommendation("apple", calls));
+
+        assertThrows(IdempotencyService.KeyReusedException.class, () -> service.execute("web:s1:token",
+                service.fingerprint(1L, "pizza", 100.0), () -> recommendation("pizza", calls)));
+        assertEquals("apple", service.execute("web:s1:token", service.fingerprint(1L, " apple ", 100.0),
+                () -> recommendation("apple", calls)).getFoodName());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testErrorInOriginalReleasesWaiters() throws Exception {
+        IdempotencyService service = new IdempotencyService(60_000, 100, 5_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicReference<Throwable> waiterFailure = new AtomicReference<>();
+
+        try {
+            Future<FoodRecommendation> original = executor.submit(() -> service.execute("key", APPLE, () -> {
+                started.countDown();
+                await(release);
+                throw new OutOfMemoryError("simulated");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread duplicate = new Thread(() -> {
+                try {
+                    service.execute("key", APPLE, () -> recommendation("apple", new AtomicInteger()));
+                } catch (Throwable t) {
+                    waiterFailure.set(t);
+                }
+            });
+            duplicate.start();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (duplicate.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+                Thread.sleep(5); // until it is parked on the in-flight entry
+            }
+
+            release.countDown();
+            duplicate.join(5_000);
+            assertInstanceOf(OutOfMemoryError.class, waiterFailure.get().getCause());
+            assertThrows(ExecutionException.class, () -> original.get(5, TimeUnit.SECONDS));
+            assertEquals(0, service.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testWaiterGivesUpAfterTimeout() throws Exception {
+        IdempotencyService service = new IdempotencyService(60_000, 100, 100);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<FoodRecommendation> original = executor.submit(() -> service.execute("key", APPLE, () -> {
+                started.countDown();
+                await(release);
+                return recommendation("apple", new AtomicInteger());
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            RuntimeException timeout = assertThrows(RuntimeException.class,
+                    () -> service.execute("key", APPLE, () -> recommendation("apple", new AtomicInteger())));
+            release.countDown();
+
+            assertTrue(timeout.getMessage().startsWith("Timed out"));
+            assertEquals("apple", original.get(5, TimeUnit.SECONDS).getFoodName());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testKeyForPrefersClientKey() {
+        IdempotencyService service = new IdempotencyService(60_000, 100, 5_000);
+
+        assertEquals("api:1:abc", service.keyFor("api:1", " abc ", "Apple", 100.0));
+        assertEquals("api:1:apple:100.0", service.keyFor("api:1", null, " Apple ", 100.0));
+    }
+
+    private static FoodRecommendation recommendation(String foodName, AtomicInteger calls) {
+        calls.incrementAndGet();
+        FoodRecommendation recommendation = new FoodRecommendation();
+        recommendation.setFoodName(foodName);
+        return recommendation;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
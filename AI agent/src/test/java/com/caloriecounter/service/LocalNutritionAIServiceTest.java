@@ -0,0 +1,105 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.model.ActivityLevel;
+import com.caloriecounter.model.Gender;
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalNutritionAIServiceTest {
+
+    private LocalNutritionAIService localService;
+    private AIResponseParser parser;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        localService = new LocalNutritionAIService(new ClassPathResource("nutrition/nutrients.csv"));
+        parser = new AIResponseParser(new AnalysisMetrics(new SimpleMeterRegistry()));
+
+        user = new User();
+        user.setName("John Doe");
+        user.setAge(30);
+        user.setWeight(70.0);
+        user.setHeight(175.0);
+        user.setGender(Gender.MALE);
+        user.setActivityLevel(ActivityLevel.MODERATELY_ACTIVE);
+        user.setHealthConditions(List.of());
+    }
+
+    @Test
+    void testHealthyFoodForHealthyUser() {
+        // When
+        LocalNutritionAIService.Estimate estimate = localService.estimate(user, "Broccoli", 150.0);
+        FoodRecommendation recommendation = parse(estimate, "Broccoli", 150.0);
+
+        // Then
+        assertEquals(LocalNutritionAIService.EXACT_MATCH, estimate.getConfidence());
+        assertTrue(parser.isWellFormed(estimate.getText()));
+        assertEquals("EXCELLENT", recommendation.getSuitabilityScore());
+        assertEquals(150.0, recommendation.getRecommendedPortionSize());
+        assertTrue(recommendation.getBenefits().contains("Low in calories"));
+    }
+
+    @Test
+    void testConditionRulesLowerSuitability() {
+        // Given
+        user.setHealthConditions(List.of("Hypertension", "Type 2 Diabetes"));
+
+        // When
+        FoodRecommendation bacon = parse(localService.estimate(user, "bacon", 30.0), "bacon", 30.0);
+        FoodRecommendation soda = parse(localService.estimate(user, "cola", 330.0), "cola", 330.0);
+        FoodRecommendation broccoli = parse(localService.estimate(user, "broccoli", 150.0), "broccoli", 150.0);
+
+        // Then
+        assertEquals("AVOID", bacon.getSuitabilityScore());
+        assertEquals(0.0, bacon.getRecommendedPortionSize());
+        assertTrue(bacon.getWarnings().stream().anyMatch(w -> w.contains("sodium")));
+        assertEquals("MODERATE", soda.getSuitabilityScore());
+        assertTrue(broccoli.isSuitable());
+        assertTrue(broccoli.getBenefits().stream().anyMatch(b -> b.trim().equals("Low in sodium")));
+    }
+
+    @Test
+    void testCeliacAvoidsGluten() {
+        // Given
+        user.setHealthConditions(List.of("Celiac disease"));
+
+        // When
+        FoodRecommendation pasta = parse(localService.estimate(user, "spaghetti", 200.0), "spaghetti", 200.0);
+
+        // Then
+        assertEquals("AVOID", pasta.getSuitabilityScore());
+        assertFalse(pasta.isSuitable());
+    }
+
+    @Test
+    void testConfidenceReflectsMatchAndConditionCoverage() {
+        // When
+        double partial = localService.estimate(user, "grilled chicken breast with herbs", 150.0).getConfidence();
+        user.setHealthConditions(List.of("Migraine"));
+        double uncovered = localService.estimate(user, "apple", 100.0).getConfidence();
+
+        // Then
+        assertEquals(LocalNutritionAIService.PARTIAL_MATCH, partial);
+        assertEquals(LocalNutritionAIService.UNCOVERED_CONDITION_FACTOR, uncovered, 1e-9);
+        assertNull(localService.estimate(user, "dragon fruit smoothie bowl", 300.0));
+        assertThrows(RuntimeException.class, () -> localService.analyzeFood(user, "dragon fruit smoothie bowl", 300.0));
+    }
+
+    private FoodRecommendation parse(LocalNutritionAIService.Estimate estimate, String food, double portion) {
+        FoodRecommendation recommendation = new FoodRecommendation();
+        recommendation.setFoodName(food);
+        recommendation.setPortionSize(portion);
+        parser.parseAIResponse(estimate.getText(), recommendation, user);
+        return recommendation;
+    }
+}
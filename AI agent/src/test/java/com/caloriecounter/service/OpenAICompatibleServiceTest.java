@@ -0,0 +1,91 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.config.GeminiClientConfig;
+import com.caloriecounter.monitoring.PayloadLog;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAICompatibleServiceTest {
+
+    private volatile int status = 200;
+    private volatile String responseBody;
+    private volatile String requestBody;
+    private volatile String authorization;
+    private HttpServer server;
+    private ConnectionProvider connectionProvider;
+    private OpenAICompatibleService service;
+    private String url;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/v1/chat/completions";
+
+        GeminiClientConfig config = new GeminiClientConfig();
+        connectionProvider = config.geminiConnectionProvider(4, 16, 1_000, 30_000, 300_000);
+        WebClient webClient = config.aiProviderWebClient(connectionProvider, WebClient.builder(), true, 1_000, 5_000, 262_144);
+        service = new OpenAICompatibleService(webClient, new PayloadLog(0.0, 16));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        connectionProvider.dispose();
+    }
+
+    @Test
+    void testChatCompletionWithReportedUsage() {
+        // Given
+        responseBody = "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"SUITABILITY: GOOD\"}}],"
+                + "\"usage\":{\"prompt_tokens\":42,\"completion_tokens\":7}}";
+
+        // When
+        GeminiCallResult result = service.call(url, "llama3.1:8b", "analyze apple", "sk-test");
+
+        // Then
+        assertEquals("SUITABILITY: GOOD", result.getText());
+        assertTrue(result.isReported());
+        assertEquals(42, result.getPromptTokens());
+        assertEquals(7, result.getResponseTokens());
+        assertEquals("Bearer sk-test", authorization);
+        assertTrue(requestBody.contains("\"model\":\"llama3.1:8b\""), requestBody);
+        assertTrue(requestBody.contains("\"content\":\"analyze apple\""), requestBody);
+    }
+
+    @Test
+    void testRateLimitIsReportedForFailover() {
+        // Given
+        status = 429;
+        responseBody = "{\"error\":{\"message\":\"slow down\"}}";
+
+        // When
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> service.call(url, "llama3.1:8b", "analyze apple", null));
+
+        // Then
+        assertNull(authorization);
+        assertTrue(exception.getMessage().contains("rate limit"), exception.getMessage());
+    }
+}
@@ -0,0 +1,139 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.model.ActivityLevel;
+import com.caloriecounter.model.Gender;
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrecomputeServiceTest {
+
+    private static final String ANALYSIS = "SUITABILITY: GOOD\nRECOMMENDED_PORTION: 100\nBENEFITS: Fiber\n"
+            + "WARNINGS: None\nREASONING: A good snack for this profile.";
+    private static final ZonedDateTime NIGHT = ZonedDateTime.of(2026, 10, 19, 3, 0, 0, 0, ZoneOffset.UTC);
+
+    @Mock
+    private GeminiService geminiService;
+
+    @Mock
+    private ScheduledExecutorService executor;
+
+    private ArchetypeCache cache;
+
+    @BeforeEach
+    void setUp() {
+        AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+        cache = new ArchetypeCache(true, 10, 100, List.of(), 60_000, 100, 100, false, 1.5, metrics,
+                new AIResponseParser(metrics));
+    }
+
+    @Test
+    void testRunOnce_FillsPopularEntriesInsideWindow() {
+        // Given - two live lookups of the same archetype, answered from the user's own call
+        User user = user(70.0);
+        cache.getOrCompute(user, "apple", 100.0, PromptVariant.STANDARD, () -> "not well formed");
+        cache.getOrCompute(user, "apple", 100.0, PromptVariant.STANDARD, () -> "not well formed");
+        when(geminiService.callGeminiInBackground(anyString(), eq("AIzaServiceKey"))).thenReturn(result(ANALYSIS));
+
+        // When
+        PrecomputeService.RunSummary summary = service(List.of("AIzaServiceKey"), 10).runOnce(NIGHT);
+
+        // Then - the prompt came from an anonymized copy, and the next live lookup is a hit
+        ArgumentCaptor<String> prompt = ArgumentCaptor.forClass(String.class);
+        verify(geminiService).callGeminiInBackground(prompt.capture(), eq("AIzaServiceKey"));
+        assertTrue(prompt.getValue().contains("- Name: Member\n"));
+        assertFalse(prompt.getValue().contains("John"));
+        assertEquals(1, summary.getFilled());
+        assertEquals(ANALYSIS, cache.getOrCompute(user(71.0), "apple", 100.0, PromptVariant.STANDARD,
+                () -> fail("should be served from the pre-computed entry")).getText());
+    }
+
+    @Test
+    void testRunOnce_SkipsOutsideWindow() {
+        // Given
+        User user = user(70.0);
+        cache.getOrCompute(user, "apple", 100.0, PromptVariant.STANDARD, () -> "x");
+        cache.getOrCompute(user, "apple", 100.0, PromptVariant.STANDARD, () -> "x");
+
+        // When
+        PrecomputeService.RunSummary summary = service(List.of("AIzaServiceKey"), 10).runOnce(NIGHT.withHour(9));
+
+        // Then
+        assertEquals("outside window", summary.getStopReason());
+        verifyNoInteractions(geminiService);
+    }
+
+    @Test
+    void testRunOnce_StopsWhenEveryKeyIsOutOfBudget() {
+        // Given - three popular foods, two keys with one call each
+        User user = user(70.0);
+        for (String food : List.of("apple", "pear", "plum")) {
+            cache.getOrCompute(user, food, 100.0, PromptVariant.STANDARD, () -> "x");
+            cache.getOrCompute(user, food, 100.0, PromptVariant.STANDARD, () -> "x");
+        }
+        when(geminiService.callGeminiInBackground(anyString(), anyString())).thenReturn(result(ANALYSIS));
+
+        // When
+        PrecomputeService.RunSummary summary = service(List.of("AIzaKeyOne", "AIzaKeyTwo"), 1).runOnce(NIGHT);
+
+        // Then
+        assertEquals(2, summary.getFilled());
+        assertEquals("budget exhausted", summary.getStopReason());
+        verify(geminiService).callGeminiInBackground(anyString(), eq("AIzaKeyOne"));
+        verify(geminiService).callGeminiInBackground(anyString(), eq("AIzaKeyTwo"));
+    }
+
+    @Test
+    void testWindowsMayWrapPastMidnight() {
+        // Given
+        PrecomputeService service = new PrecomputeService(cache, new PromptBuilder(), geminiService, executor, true,
+                List.of("23:00-01:30", "04:00-05:00"), "UTC", List.of("AIzaKey"), 1, 1, 1, 1, 1, 0, 0);
+
+        // Then
+        assertTrue(service.inWindow(LocalTime.of(23, 30)));
+        assertTrue(service.inWindow(LocalTime.of(0, 45)));
+        assertTrue(service.inWindow(LocalTime.of(4, 0)));
+        assertFalse(service.inWindow(LocalTime.of(1, 30)));
+        assertFalse(service.inWindow(LocalTime.of(12, 0)));
+    }
+
+    private PrecomputeService service(List<String> apiKeys, int maxCallsPerKey) {
+        return new PrecomputeService(cache, new PromptBuilder(), geminiService, executor, true,
+                List.of("02:00-05:00"), "UTC", apiKeys, maxCallsPerKey, 50, 2, 3_600_000, 60_000, 0, 0);
+    }
+
+    private static GeminiCallResult result(String text) {
+        return new GeminiCallResult(text, 100, 50, 100, true, 1_000_000L, 1);
+    }
+
+    private static User user(double weight) {
+        User user = new User();
+        user.setId(1L);
+        user.setName("John Doe");
+        user.setAge(30);
+        user.setWeight(weight);
+        user.setHeight(175.0);
+        user.setGender(Gender.MALE);
+        user.setActivityLevel(ActivityLevel.MODERATELY_ACTIVE);
+        user.setHealthConditions(List.of());
+        user.setGeminiApiKey("AIzaUserKey");
+        return user;
+    }
+}
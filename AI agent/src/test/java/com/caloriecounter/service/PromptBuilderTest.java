@@ -0,0 +1,139 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.model.ActivityLevel;
+import com.caloriecounter.model.Gender;
+import com.caloriecounter.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptBuilderTest {
+
+    private PromptBuilder promptBuilder;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        promptBuilder = new PromptBuilder();
+
+        user = new User();
+        user.setId(1L);
+        user.setVersion(1);
+        user.setName("John Doe");
+        user.setWeight(70.0);
+        user.setHeight(175.0);
+        user.setAge(30);
+        user.setGender(Gender.MALE);
+        user.setActivityLevel(ActivityLevel.MODERATELY_ACTIVE);
+        user.setHealthConditions(Arrays.asList("Diabetes", "Hypertension"));
+    }
+
+    @Test
+    void testBuildNutritionPrompt_Format() {
+        // When
+        String prompt = promptBuilder.buildNutritionPrompt(user, "apple", 150.0);
+
+        // Then
+        String expected = "You are a professional nutritionist AI. Analyze this food for the user and provide personalized recommendations.\n\n"
+                + "USER PROFILE:\n"
+                + "- Name: John Doe\n"
+                + "- Age: 30 years\n"
+                + "- Gender: MALE\n"
+                + "- Weight: 70.0 kg\n"
+                + "- Height: 175.0 cm\n"
+                + "- Activity Level: " + ActivityLevel.MODERATELY_ACTIVE.getDescription() + "\n"
+                + "- Daily Calorie Needs: " + String.format("%.0f", user.calculateDailyCalorieNeeds()) + " calories\n"
+                + "- Health Conditions: Diabetes, Hypertension\n"
+                + "\nFOOD TO ANALYZE:\n"
+                + "- Food: apple\n"
+                + "- Portion Size: 150.0 grams\n"
+                + "- Please analyze the nutritional content of this food and provide recommendations\n"
+                + "\nPLEASE PROVIDE YOUR ANALYSIS IN THIS EXACT FORMAT:\n"
+                + "SUITABILITY: [EXCELLENT/GOOD/MODERATE/POOR/AVOID]\n"
+                + "RECOMMENDED_PORTION: [number in grams]\n"
+                + "BENEFITS: [list benefits separated by semicolons]\n"
+                + "WARNINGS: [list warnings separated by semicolons, or 'None' if no warnings]\n"
+                + "REASONING: [detailed explanation of your recommendation considering the user's profile]\n";
+        assertEquals(expected, prompt);
+        assertEquals(1, promptBuilder.cachedProfileCount());
+    }
+
+    @Test
+    void testBuildNutritionPrompt_ReusesProfileUntilUpdated() {
+        // Given
+        promptBuilder.buildNutritionPrompt(user, "apple", 150.0);
+        user.setName("John Updated"); // in-place change without a save is not picked up
+
+        // When
+        String cached = promptBuilder.buildNutritionPrompt(user, "pear", 100.0);
+        promptBuilder.onProfileUpdated(new UserProfileUpdatedEvent(1L));
+        String refreshed = promptBuilder.buildNutritionPrompt(user, "pear", 100.0);
+
+        // Then
+        assertTrue(cached.contains("- Name: John Doe\n"));
+        assertTrue(cached.contains("- Food: pear\n"));
+        assertTrue(refreshed.contains("- Name: John Updated\n"));
+    }
+
+    @Test
+    void testBuildNutritionPrompt_NewVersionRendersAgain() {
+        // Given
+        promptBuilder.buildNutritionPrompt(user, "apple", 150.0);
+        user.setWeight(80.0);
+        user.setVersion(2);
+
+        // When
+        String prompt = promptBuilder.buildNutritionPrompt(user, "apple", 150.0);
+
+        // Then
+        assertTrue(prompt.contains("- Weight: 80.0 kg\n"));
+        assertEquals(1, promptBuilder.cachedProfileCount());
+    }
+
+    @Test
+    void testBuildNutritionPrompt_UnsavedUserIsNotCached() {
+        // Given
+        user.setId(null);
+
+        // When
+        String prompt = promptBuilder.buildNutritionPrompt(user, "apple", 150.0);
+
+        // Then
+        assertTrue(prompt.contains("- Name: John Doe\n"));
+        assertEquals(0, promptBuilder.cachedProfileCount());
+    }
+
+    @Test
+    void testCompactVariant_SameResponseFormatWithFewerTokens() {
+        // When
+        String standard = promptBuilder.buildNutritionPrompt(user, "apple", 150.0, PromptVariant.STANDARD);
+        String compact = promptBuilder.buildNutritionPrompt(user, "apple", 150.0, PromptVariant.COMPACT);
+
+        // Then
+        for (String label : new String[]{"SUITABILITY:", "RECOMMENDED_PORTION:", "BENEFITS:", "WARNINGS:", "REASONING:"}) {
+            assertTrue(compact.contains("\n" + label + " "), label);
+        }
+        assertTrue(compact.contains("Food: apple, 150.0 g\n"));
+        assertTrue(compact.contains("conditions: Diabetes, Hypertension"));
+        assertFalse(compact.contains("John"));
+        assertTrue(TokenEstimator.estimate(compact) * 2 < TokenEstimator.estimate(standard),
+                TokenEstimator.estimate(compact) + " vs " + TokenEstimator.estimate(standard));
+    }
+
+    @Test
+    void testProfileUpdate_InvalidatesEveryVariant() {
+        // Given
+        promptBuilder.buildNutritionPrompt(user, "apple", 150.0, PromptVariant.STANDARD);
+        promptBuilder.buildNutritionPrompt(user, "apple", 150.0, PromptVariant.COMPACT);
+        assertEquals(2, promptBuilder.cachedProfileCount());
+
+        // When
+        promptBuilder.onProfileUpdated(new UserProfileUpdatedEvent(1L));
+
+        // Then
+        assertEquals(0, promptBuilder.cachedProfileCount());
+    }
+}
@@ -0,0 +1,91 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.monitoring.ExperimentStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptExperimentTest {
+
+    @Test
+    void testAssign_DeterministicAndWeighted() {
+        // Given
+        PromptExperiment experiment = new PromptExperiment(true, "prompt-v1", "standard:75,compact:25", "standard");
+        PromptExperiment sameConfig = new PromptExperiment(true, "prompt-v1", "standard:75,compact:25", "standard");
+
+        // When
+        Map<PromptVariant, Integer> counts = new EnumMap<>(PromptVariant.class);
+        for (long userId = 1; userId <= 20_000; userId++) {
+            PromptVariant variant = experiment.assign(userId);
+            assertEquals(variant, sameConfig.assign(userId));
+            counts.merge(variant, 1, Integer::sum);
+        }
+
+        // Then
+        assertEquals(0.25, counts.get(PromptVariant.COMPACT) / 20_000.0, 0.02);
+        assertEquals(PromptVariant.STANDARD, experiment.assign(null));
+    }
+
+    @Test
+    void testAssign_RenamedExperimentReshuffles() {
+        // Given
+        PromptExperiment first = new PromptExperiment(true, "prompt-v1", "standard:50,compact:50", "standard");
+        PromptExperiment second = new PromptExperiment(true, "prompt-v2", "standard:50,compact:50", "standard");
+
+        // When
+        int moved = 0;
+        for (long userId = 1; userId <= 1_000; userId++) {
+            if (first.assign(userId) != second.assign(userId)) {
+                moved++;
+            }
+        }
+
+        // Then - independent assignments disagree for about half the users
+        assertTrue(moved > 400 && moved < 600, "moved=" + moved);
+    }
+
+    @Test
+    void testAssign_DisabledUsesDefaultVariant() {
+        // Given
+        PromptExperiment experiment = new PromptExperiment(false, "prompt-v1", "standard:50,compact:50", "compact");
+
+        // Then
+        for (long userId = 1; userId <= 100; userId++) {
+            assertEquals(PromptVariant.COMPACT, experiment.assign(userId));
+        }
+        assertEquals(Map.of("compact", 100), experiment.summary().get("allocation"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSummary_ReportsConfidenceIntervals() {
+        // Given
+        PromptExperiment experiment = new PromptExperiment(true, "prompt-v1", "standard:50,compact:50", "standard");
+        for (int i = 0; i < 100; i++) {
+            experiment.recordCall(PromptVariant.COMPACT, new GeminiCallResult("text", 90, 60 + i % 11, 90, true,
+                    (800 + i % 21) * 1_000_000L, i % 10 == 0 ? 2 : 1));
+            experiment.recordParse(PromptVariant.COMPACT, i % 20 != 0);
+        }
+        experiment.recordFailure(PromptVariant.COMPACT);
+
+        // When
+        Map<String, ExperimentStats.Summary> variants =
+                (Map<String, ExperimentStats.Summary>) experiment.summary().get("variants");
+        ExperimentStats.Summary compact = variants.get("compact");
+
+        // Then
+        assertEquals(100, compact.getCalls());
+        assertEquals(1, compact.getFailures());
+        assertEquals(810.0, compact.getLatencyMillis().getValue(), 0.5);
+        assertTrue(compact.getLatencyMillis().getLow() < 810.0 && compact.getLatencyMillis().getHigh() > 810.0);
+        assertEquals(65.0, compact.getOutputTokens().getValue(), 0.5);
+        assertEquals(0.1, compact.getRetries().getValue(), 0.0001);
+        assertEquals(0.95, compact.getParseSuccessRate().getValue(), 0.0001);
+        assertTrue(compact.getParseSuccessRate().getLow() > 0.88 && compact.getParseSuccessRate().getHigh() < 0.985,
+                compact.getParseSuccessRate().getLow() + ".." + compact.getParseSuccessRate().getHigh());
+        assertFalse(variants.containsKey("standard"));
+    }
+}
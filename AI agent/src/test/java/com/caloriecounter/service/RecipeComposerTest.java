@@ -0,0 +1,87 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.dto.FoodRecommendation;
+import com.caloriecounter.dto.MealAnalysisResult;
+import com.caloriecounter.dto.RecipeAnalysisResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeComposerTest {
+
+    private final RecipeComposer composer = new RecipeComposer();
+
+    @Test
+    void testComposesPortionWeightedRecommendation() {
+        // Given
+        MealAnalysisResult meal = meal(
+                ingredient("pasta", 200.0, "MODERATE", 150.0, 20.0, List.of("Refined carbs"), List.of("Energy")),
+                ingredient("chicken", 150.0, "EXCELLENT", 200.0, 10.0, List.of("None"), List.of("Protein")),
+                ingredient("pesto", 30.0, "POOR", 15.0, 5.0, List.of("High sodium"), List.of("Energy")));
+
+        // When
+        RecipeAnalysisResult result = composer.compose("pasta with chicken and pesto", meal);
+
+        // Then - (2*200 + 4*150 + 1*30) / 380 = 2.7 -> GOOD; pesto allows only half its portion
+        assertEquals("GOOD", result.getSuitabilityScore());
+        assertTrue(result.isSuitable());
+        assertEquals(380.0, result.getTotalPortionSize());
+        assertEquals(190.0, result.getRecommendedPortionSize());
+        assertEquals("pesto", result.getLimitingIngredient());
+        assertEquals(35.0, result.getPercentageOfDailyCalories(), 0.001);
+        assertEquals(List.of("pasta: Refined carbs", "pesto: High sodium"), result.getWarnings());
+        assertEquals(List.of("Energy", "Protein"), result.getBenefits());
+        assertEquals(3, result.getIngredients().size());
+    }
+
+    @Test
+    void testAvoidIngredientCapsScore() {
+        // Given
+        MealAnalysisResult meal = meal(
+                ingredient("salad", 300.0, "EXCELLENT", 300.0, 5.0, List.of(), List.of()),
+                ingredient("peanuts", 20.0, "AVOID", 0.0, 5.0, List.of("Allergen"), List.of()));
+
+        // When
+        RecipeAnalysisResult result = composer.compose("salad with peanuts", meal);
+
+        // Then
+        assertEquals("POOR", result.getSuitabilityScore());
+        assertFalse(result.isSuitable());
+    }
+
+    @Test
+    void testNoAnalyzedIngredientsLeavesScoreUnset() {
+        // Given
+        MealAnalysisResult meal = new MealAnalysisResult();
+        meal.getErrors().add("rice: Gemini API call failed");
+
+        // When
+        RecipeAnalysisResult result = composer.compose("rice", meal);
+
+        // Then
+        assertNull(result.getSuitabilityScore());
+        assertEquals(List.of("rice: Gemini API call failed"), result.getErrors());
+    }
+
+    private static MealAnalysisResult meal(FoodRecommendation... ingredients) {
+        MealAnalysisResult meal = new MealAnalysisResult();
+        meal.setRecommendations(List.of(ingredients));
+        meal.setComplete(true);
+        return meal;
+    }
+
+    private static FoodRecommendation ingredient(String name, double portion, String score, double recommended,
+                                                 double caloriePercentage, List<String> warnings, List<String> benefits) {
+        FoodRecommendation recommendation = new FoodRecommendation();
+        recommendation.setFoodName(name);
+        recommendation.setPortionSize(portion);
+        recommendation.setSuitabilityScore(score);
+        recommendation.setRecommendedPortionSize(recommended);
+        recommendation.setPercentageOfDailyCalories(caloriePercentage);
+        recommendation.setWarnings(warnings);
+        recommendation.setBenefits(benefits);
+        return recommendation;
+    }
+}
@@ -0,0 +1,60 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.dto.FoodAnalysisRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeParserTest {
+
+    private final RecipeParser parser = new RecipeParser(5, 100, 50);
+
+    @Test
+    void testSplitsIngredientsAndConvertsUnits() {
+        // When
+        List<FoodAnalysisRequest> ingredients = parser.parse("200g Pasta with 2 tbsp pesto and chicken breast (150 g)");
+
+        // Then
+        assertEquals(3, ingredients.size());
+        assertIngredient(ingredients.get(0), "pasta", 200.0);
+        assertIngredient(ingredients.get(1), "pesto", 30.0);
+        assertIngredient(ingredients.get(2), "chicken breast", 150.0);
+    }
+
+    @Test
+    void testCountsDefaultsAndFractions() {
+        // When
+        List<FoodAnalysisRequest> ingredients = parser.parse("- 2 eggs\n- spinach\n- 1/2 cup of milk\n- ½ kg potatoes");
+
+        // Then
+        assertIngredient(ingredients.get(0), "eggs", 100.0);
+        assertIngredient(ingredients.get(1), "spinach", 100.0);
+        assertIngredient(ingredients.get(2), "milk", 120.0);
+        assertIngredient(ingredients.get(3), "potatoes", 500.0);
+    }
+
+    @Test
+    void testMergesRepeatedIngredientsAndClampsPortions() {
+        // When
+        List<FoodAnalysisRequest> ingredients = parser.parse("Rice 100g; rice 50 g, 3 kg beef, pinch salt");
+
+        // Then
+        assertEquals(3, ingredients.size());
+        assertIngredient(ingredients.get(0), "rice", 150.0);
+        assertIngredient(ingredients.get(1), "beef", RecipeParser.MAX_PORTION_GRAMS);
+        assertIngredient(ingredients.get(2), "salt", RecipeParser.MIN_PORTION_GRAMS);
+    }
+
+    @Test
+    void testRejectsEmptyAndOversizedRecipes() {
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(" , and ; "));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("a, b, c, d, e, f"));
+    }
+
+    private static void assertIngredient(FoodAnalysisRequest ingredient, String name, double grams) {
+        assertEquals(name, ingredient.getFoodName());
+        assertEquals(grams, ingredient.getPortionSizeInGrams(), 0.01);
+    }
+}
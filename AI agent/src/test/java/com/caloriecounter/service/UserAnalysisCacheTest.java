@@ -0,0 +1,186 @@
+package com.caloriecounter.service;
+
+import com.caloriecounter.model.ActivityLevel;
+import com.caloriecounter.model.Gender;
+import com.caloriecounter.model.User;
+import com.caloriecounter.monitoring.AnalysisMetrics;
+import com.caloriecounter.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserAnalysisCacheTest {
+
+    private static final String ANALYSIS = "SUITABILITY: GOOD\nRECOMMENDED_PORTION: 100\nBENEFITS: Fiber\n"
+            + "WARNINGS: None\nREASONING: A good choice for this profile.";
+
+    private UserRepository userRepository;
+    private UserAnalysisCache cache;
+    private AtomicInteger upstreamCalls;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+        userRepository = new UserRepository();
+        cache = new UserAnalysisCache(true, 10, 100, 60_000, 100,
+                List.of("diabetes:sugar|rice|bread", "lactose:milk|cheese"),
+                userRepository, metrics, new AIResponseParser(metrics));
+        upstreamCalls = new AtomicInteger();
+
+        user = new User();
+        user.setName("John Doe");
+        user.setAge(30);
+        user.setWeight(70.0);
+        user.setHeight(175.0);
+        user.setGender(Gender.MALE);
+        user.setActivityLevel(ActivityLevel.MODERATELY_ACTIVE);
+        user.setHealthConditions(new ArrayList<>());
+        userRepository.save(user);
+    }
+
+    @Test
+    void testWeightChangeWithinBmrBandKeepsEntries() {
+        // Given
+        analyze("apple");
+        analyze("rice");
+
+        // When
+        user.setWeight(70.5);
+        userRepository.save(user);
+        cache.onProfileUpdated(new UserProfileUpdatedEvent(user.getId()));
+        analyze("apple");
+        analyze("rice");
+
+        // Then
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(2L, cache.stats().get("retainedOnUpdate"));
+        assertEquals(0L, cache.stats().get("invalidatedOnUpdate"));
+    }
+
+    @Test
+    void testAddingConditionInvalidatesOnlyAffectedFoods() {
+        // Given
+        analyze("apple");
+        analyze("White Rice");
+        analyze("broccoli");
+
+        // When
+        user.setHealthConditions(List.of("Type 2 Diabetes"));
+        userRepository.save(user);
+        cache.onProfileUpdated(new UserProfileUpdatedEvent(user.getId()));
+
+        // Then
+        assertEquals(2, cache.size());
+        assertEquals(1L, cache.stats().get("invalidatedOnUpdate"));
+        analyze("apple");
+        analyze("broccoli");
+        assertEquals(3, upstreamCalls.get());
+        analyze("White Rice");
+        assertEquals(4, upstreamCalls.get());
+    }
+
+    @Test
+    void testConditionWithoutKeywordsAndDeletionInvalidateEverything() {
+        // Given
+        analyze("apple");
+        analyze("rice");
+
+        // When
+        user.setHealthConditions(List.of("Kidney disease"));
+        userRepository.save(user);
+        cache.onProfileUpdated(new UserProfileUpdatedEvent(user.getId()));
+
+        // Then
+        assertEquals(0, cache.size());
+
+        // When
+        analyze("apple");
+        userRepository.deleteById(user.getId());
+        cache.onProfileUpdated(new UserProfileUpdatedEvent(user.getId()));
+
+        // Then
+        assertEquals(0, cache.size());
+        assertEquals(3L, cache.stats().get("invalidatedOnUpdate"));
+    }
+
+    @Test
+    void testAnyConditionChangeInvalidatesEverythingByDefault() {
+        // Given
+        AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+        cache = new UserAnalysisCache(true, 10, 100, 60_000, 100, List.of(),
+                userRepository, metrics, new AIResponseParser(metrics));
+        analyze("pizza");
+        analyze("broccoli");
+
+        // When
+        user.setHealthConditions(List.of("Diabetes"));
+        userRepository.save(user);
+        cache.onProfileUpdated(new UserProfileUpdatedEvent(user.getId()));
+        analyze("pizza");
+
+        // Then
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(2L, cache.stats().get("invalidatedOnUpdate"));
+        assertEquals(0L, cache.stats().get("retainedOnUpdate"));
+    }
+
+    @Test
+    void testLookupRechecksDependenciesWithoutEvent() {
+        // Given
+        analyze("apple");
+
+        // When
+        user.setActivityLevel(ActivityLevel.SEDENTARY);
+        analyze("apple");
+
+        // Then
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(1L, cache.stats().get("staleOnLookup"));
+    }
+
+    @Test
+    void testNameOnlyMattersWhenResponseMentionsIt() {
+        // Given
+        String personal = ANALYSIS.replace("this profile", "John");
+        cache.getOrCompute(user, "pear", 100.0, PromptVariant.STANDARD, upstream(personal));
+        analyze("apple");
+
+        // When
+        user.setName("Jane Doe");
+        userRepository.save(user);
+        cache.onProfileUpdated(new UserProfileUpdatedEvent(user.getId()));
+
+        // Then
+        assertEquals(1, cache.size());
+        assertEquals(1L, cache.stats().get("invalidatedOnUpdate"));
+    }
+
+    @Test
+    void testMalformedResponsesAreNotCached() {
+        // When
+        cache.getOrCompute(user, "apple", 100.0, PromptVariant.STANDARD, upstream("Sorry, I cannot help"));
+
+        // Then
+        assertEquals(0, cache.size());
+    }
+
+    private void analyze(String food) {
+        AIAnalysis analysis = cache.getOrCompute(user, food, 100.0, PromptVariant.STANDARD, upstream(ANALYSIS));
+        assertEquals(ANALYSIS, analysis.getText());
+    }
+
+    private Supplier<AIAnalysis> upstream(String response) {
+        return () -> {
+            upstreamCalls.incrementAndGet();
+            return new AIAnalysis(response);
+        };
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.Optional;
@@ -20,6 +21,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +33,9 @@ class UserServiceTest {
     @Mock
     private SessionService sessionService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserService userService;
 
@@ -131,6 +136,24 @@ class UserServiceTest {
         verify(userRepository).findById(1L);
     }
 
+    @Test
+    void testGetProfileETag_ChangesWithVersion() {
+        // Given
+        user.setVersion(1);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        // When
+        String first = userService.getProfileETag(1L).orElseThrow();
+        user.setVersion(2);
+        String second = userService.getProfileETag(1L).orElseThrow();
+
+        // Then
+        assertTrue(first.startsWith("\"1-1-"));
+        assertTrue(second.startsWith("\"1-2-"));
+        assertNotEquals(first, second);
+        assertFalse(userService.getProfileETag(2L).isPresent());
+    }
+
     @Test
     void testCalculateBMR() {
         // When
@@ -181,6 +204,8 @@ class UserServiceTest {
         
         verify(userRepository).findById(1L);
         verify(userRepository).save(any(User.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof UserProfileUpdatedEvent updated && updated.getUserId() == 1L));
     }
 
     @Test